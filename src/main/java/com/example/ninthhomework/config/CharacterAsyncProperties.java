@@ -0,0 +1,38 @@
+package com.example.ninthhomework.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "characters.async")
+public class CharacterAsyncProperties {
+    //DBの接続数(HikariCPのmaximum-pool-size)と揃える
+    private int poolSize = 10;
+    private int queueCapacity = 100;
+    //この時間内に結果を返せない時は503とする
+    private Duration timeout = Duration.ofSeconds(2);
+
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+}
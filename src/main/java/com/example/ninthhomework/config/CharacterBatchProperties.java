@@ -0,0 +1,47 @@
+package com.example.ninthhomework.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "characters.batch")
+public class CharacterBatchProperties {
+    //ID指定の検索をまとめる待ち時間。0の時はまとめずに1件ずつ問い合わせる
+    private Duration window = Duration.ZERO;
+    private int maxSize = 100;
+    //同じIDへの部分更新をまとめる待ち時間。0の時はまとめずに1件ずつ更新する
+    private Duration updateWindow = Duration.ZERO;
+    private int updateMaxSize = 100;
+
+    public Duration getWindow() {
+        return window;
+    }
+
+    public void setWindow(Duration window) {
+        this.window = window;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public Duration getUpdateWindow() {
+        return updateWindow;
+    }
+
+    public void setUpdateWindow(Duration updateWindow) {
+        this.updateWindow = updateWindow;
+    }
+
+    public int getUpdateMaxSize() {
+        return updateMaxSize;
+    }
+
+    public void setUpdateMaxSize(int updateMaxSize) {
+        this.updateMaxSize = updateMaxSize;
+    }
+}
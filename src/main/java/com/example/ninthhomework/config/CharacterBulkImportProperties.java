@@ -0,0 +1,17 @@
+package com.example.ninthhomework.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "characters.bulk-import")
+public class CharacterBulkImportProperties {
+    //1トランザクションでまとめて登録する行数
+    private int chunkSize = 1000;
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.ninthhomework.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "characters.cache")
+public class CharacterCacheProperties {
+    //ID指定の検索結果を保持する件数。0の時は保持しない
+    private int maxSize = 0;
+    //満杯の時に検索回数の推定値で保持するかを決める(TinyLFU)。無効の時は単純なLRUとなる
+    private boolean admission = false;
+    //よく読まれるIDとして保持・公開する件数
+    private int topK = 10;
+    //キャッシュの内容を保存するファイル。未指定の時は保存しない
+    private String snapshotPath;
+    //停止時に加えて保存する間隔。0の時は停止時だけ保存する
+    private Duration snapshotInterval = Duration.ZERO;
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public boolean isAdmission() {
+        return admission;
+    }
+
+    public void setAdmission(boolean admission) {
+        this.admission = admission;
+    }
+
+    public int getTopK() {
+        return topK;
+    }
+
+    public void setTopK(int topK) {
+        this.topK = topK;
+    }
+
+    public String getSnapshotPath() {
+        return snapshotPath;
+    }
+
+    public void setSnapshotPath(String snapshotPath) {
+        this.snapshotPath = snapshotPath;
+    }
+
+    public Duration getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    public void setSnapshotInterval(Duration snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.ninthhomework.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "characters.count")
+public class CharacterCountProperties {
+    //件数を保持しておく年齢の種類の上限
+    private int maxCachedAges = 256;
+
+    public int getMaxCachedAges() {
+        return maxCachedAges;
+    }
+
+    public void setMaxCachedAges(int maxCachedAges) {
+        this.maxCachedAges = maxCachedAges;
+    }
+}
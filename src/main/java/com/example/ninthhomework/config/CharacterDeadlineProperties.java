@@ -0,0 +1,20 @@
+package com.example.ninthhomework.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+//リクエストごとの処理期限の設定
+@ConfigurationProperties(prefix = "characters.deadline")
+public class CharacterDeadlineProperties {
+    //@RequestTimeoutがないAPIの処理期限。0の時はX-Request-Timeoutヘッダーの指定がある時だけ期限を設ける
+    private Duration defaultTimeout = Duration.ZERO;
+
+    public Duration getDefaultTimeout() {
+        return defaultTimeout;
+    }
+
+    public void setDefaultTimeout(Duration defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.ninthhomework.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+//ID指定・年齢指定の検索が遅い時にレプリカにも同じ問い合わせを送る設定
+@ConfigurationProperties(prefix = "characters.hedge")
+public class CharacterHedgeProperties {
+    //レプリカのJDBC URL。未設定の時はレプリカに問い合わせない
+    private String replicaUrl;
+    private String replicaUsername;
+    private String replicaPassword;
+    private int replicaPoolSize = 10;
+    //レプリカに送ってよい問い合わせの数の、検索の数に対する割合(%)
+    private int budgetPercent = 5;
+    //レプリカに送るまでの待ち時間の下限。通常は主DBの応答時間の95パーセンタイルだけ待つ
+    private Duration minDelay = Duration.ofMillis(1);
+
+    public String getReplicaUrl() {
+        return replicaUrl;
+    }
+
+    public void setReplicaUrl(String replicaUrl) {
+        this.replicaUrl = replicaUrl;
+    }
+
+    public String getReplicaUsername() {
+        return replicaUsername;
+    }
+
+    public void setReplicaUsername(String replicaUsername) {
+        this.replicaUsername = replicaUsername;
+    }
+
+    public String getReplicaPassword() {
+        return replicaPassword;
+    }
+
+    public void setReplicaPassword(String replicaPassword) {
+        this.replicaPassword = replicaPassword;
+    }
+
+    public int getReplicaPoolSize() {
+        return replicaPoolSize;
+    }
+
+    public void setReplicaPoolSize(int replicaPoolSize) {
+        this.replicaPoolSize = replicaPoolSize;
+    }
+
+    public int getBudgetPercent() {
+        return budgetPercent;
+    }
+
+    public void setBudgetPercent(int budgetPercent) {
+        this.budgetPercent = budgetPercent;
+    }
+
+    public Duration getMinDelay() {
+        return minDelay;
+    }
+
+    public void setMinDelay(Duration minDelay) {
+        this.minDelay = minDelay;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.ninthhomework.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+//登録前にIDを割り当てるための採番の設定
+@ConfigurationProperties(prefix = "characters.id-allocation")
+public class CharacterIdAllocationProperties {
+    //1回の予約で確保するIDの数。0の時は予約せずにDBの自動採番を使う
+    private int blockSize = 0;
+    //予約したIDを使ってよい期間。過ぎた時は残りを捨てて予約し直す
+    private Duration blockLifetime = Duration.ofMinutes(1);
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    public void setBlockSize(int blockSize) {
+        this.blockSize = blockSize;
+    }
+
+    public Duration getBlockLifetime() {
+        return blockLifetime;
+    }
+
+    public void setBlockLifetime(Duration blockLifetime) {
+        this.blockLifetime = blockLifetime;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.ninthhomework.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+//存在するIDのビット列の設定
+@ConfigurationProperties(prefix = "characters.id-filter")
+public class CharacterIdFilterProperties {
+    //ビット列で保持するIDの上限。これより大きいIDは保持せず、存在するかもしれないとして扱う
+    private int maxId = 10_000_000;
+
+    public int getMaxId() {
+        return maxId;
+    }
+
+    public void setMaxId(int maxId) {
+        this.maxId = maxId;
+    }
+}
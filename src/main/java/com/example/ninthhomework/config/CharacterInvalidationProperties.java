@@ -0,0 +1,59 @@
+package com.example.ninthhomework.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+//他のノードでの変更を反映する設定
+@ConfigurationProperties(prefix = "characters.invalidation")
+public class CharacterInvalidationProperties {
+    //変更ログを読む間隔。0の時は読まない
+    private Duration pollInterval = Duration.ofMillis(500);
+    private int batchSize = 500;
+    //seqの抜けがコミットされるのを待つ時間
+    private Duration gapTimeout = Duration.ofSeconds(5);
+    //変更ログを残しておく期間
+    private Duration retention = Duration.ofHours(1);
+    //変更ログを読めない状態がこの時間を超えたらキャッシュを捨てる
+    private Duration maxLag = Duration.ofSeconds(10);
+
+    public Duration getPollInterval() {
+        return pollInterval;
+    }
+
+    public void setPollInterval(Duration pollInterval) {
+        this.pollInterval = pollInterval;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getGapTimeout() {
+        return gapTimeout;
+    }
+
+    public void setGapTimeout(Duration gapTimeout) {
+        this.gapTimeout = gapTimeout;
+    }
+
+    public Duration getRetention() {
+        return retention;
+    }
+
+    public void setRetention(Duration retention) {
+        this.retention = retention;
+    }
+
+    public Duration getMaxLag() {
+        return maxLag;
+    }
+
+    public void setMaxLag(Duration maxLag) {
+        this.maxLag = maxLag;
+    }
+}
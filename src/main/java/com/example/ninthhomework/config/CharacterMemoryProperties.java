@@ -0,0 +1,36 @@
+package com.example.ninthhomework.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+//memoryプロファイルで使う更新ログの設定
+@ConfigurationProperties(prefix = "characters.memory")
+public class CharacterMemoryProperties {
+    private String walPath = "data/characters.wal";
+    private int initialWalSize = 1024 * 1024;
+    //trueの時は書き込みのたびにディスクへ同期する
+    private boolean syncWrites = false;
+
+    public String getWalPath() {
+        return walPath;
+    }
+
+    public void setWalPath(String walPath) {
+        this.walPath = walPath;
+    }
+
+    public int getInitialWalSize() {
+        return initialWalSize;
+    }
+
+    public void setInitialWalSize(int initialWalSize) {
+        this.initialWalSize = initialWalSize;
+    }
+
+    public boolean isSyncWrites() {
+        return syncWrites;
+    }
+
+    public void setSyncWrites(boolean syncWrites) {
+        this.syncWrites = syncWrites;
+    }
+}
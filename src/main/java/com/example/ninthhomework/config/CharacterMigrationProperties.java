@@ -0,0 +1,38 @@
+package com.example.ninthhomework.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+//起動時にスキーマの移行(db/migration/V<版>__<説明>.sql)を適用する設定
+@ConfigurationProperties(prefix = "characters.migration")
+public class CharacterMigrationProperties {
+    private boolean enabled = false;
+    private String location = "classpath*:db/migration/";
+    //他のノードが移行している間、名前付きロックを待つ時間
+    private Duration lockTimeout = Duration.ofMinutes(1);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public void setLocation(String location) {
+        this.location = location;
+    }
+
+    public Duration getLockTimeout() {
+        return lockTimeout;
+    }
+
+    public void setLockTimeout(Duration lockTimeout) {
+        this.lockTimeout = lockTimeout;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.ninthhomework.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+//管理用APIから行うJFRの記録の設定
+@ConfigurationProperties(prefix = "characters.profiling")
+public class CharacterProfilingProperties {
+    //JDKに含まれる設定の名前(default・profile)
+    private String settings = "profile";
+    //1回の記録の最長時間。これより長い時間を指定しても切り詰める
+    private Duration maxDuration = Duration.ofMinutes(5);
+    //記録の最大バイト数。超えた時は古い内容から捨てる
+    private long maxSize = 100L * 1024 * 1024;
+
+    public String getSettings() {
+        return settings;
+    }
+
+    public void setSettings(String settings) {
+        this.settings = settings;
+    }
+
+    public Duration getMaxDuration() {
+        return maxDuration;
+    }
+
+    public void setMaxDuration(Duration maxDuration) {
+        this.maxDuration = maxDuration;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(long maxSize) {
+        this.maxSize = maxSize;
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.ninthhomework.config;
+
+import com.example.ninthhomework.mapper.CharacterReplica;
+import org.apache.ibatis.plugin.Interceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+// characters.hedge.replica-urlが設定されている時だけ、ヘッジ読み込み用のレプリカに接続する
+@Configuration
+@Profile("!memory")
+public class CharacterReplicaConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "characters.hedge", name = "replica-url")
+    public CharacterReplica characterReplica(CharacterHedgeProperties hedge, ObjectProvider<Interceptor> interceptors)
+            throws Exception {
+        return CharacterReplica.connect(hedge.getReplicaUrl(), hedge.getReplicaUsername(),
+                hedge.getReplicaPassword(), hedge.getReplicaPoolSize(), interceptors.orderedStream().toList());
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.ninthhomework.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "characters.snapshot")
+public class CharacterSnapshotProperties {
+    //復元時に1回のINSERTでまとめて登録する件数
+    private int batchSize = 1000;
+    //PUT /admin/snapshotで全件を入れ替えられるようにするか。起動引数での復元には影響しない
+    private boolean importEndpointEnabled = false;
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public boolean isImportEndpointEnabled() {
+        return importEndpointEnabled;
+    }
+
+    public void setImportEndpointEnabled(boolean importEndpointEnabled) {
+        this.importEndpointEnabled = importEndpointEnabled;
+    }
+}
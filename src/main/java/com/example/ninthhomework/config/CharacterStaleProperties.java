@@ -0,0 +1,50 @@
+package com.example.ninthhomework.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+//DBが遅い・止まっている時に最後に読めた値を返す設定
+@ConfigurationProperties(prefix = "characters.stale")
+public class CharacterStaleProperties {
+    //DBの応答を待つ時間。超えた時は最後に読めた値を返す。0の時は最後に読めた値を使わない
+    private Duration latencyBudget = Duration.ZERO;
+    //最後に読めた値を返してよい経過時間
+    private Duration maxStaleness = Duration.ofMinutes(5);
+    //ID指定の検索結果を保持する件数
+    private int maxEntries = 10000;
+    //一覧(年齢ごと・全件)を保持する件数。全件の一覧は表全体の大きさになる
+    private int maxLists = 16;
+
+    public Duration getLatencyBudget() {
+        return latencyBudget;
+    }
+
+    public void setLatencyBudget(Duration latencyBudget) {
+        this.latencyBudget = latencyBudget;
+    }
+
+    public Duration getMaxStaleness() {
+        return maxStaleness;
+    }
+
+    public void setMaxStaleness(Duration maxStaleness) {
+        this.maxStaleness = maxStaleness;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public int getMaxLists() {
+        return maxLists;
+    }
+
+    public void setMaxLists(int maxLists) {
+        this.maxLists = maxLists;
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.ninthhomework.config;
+
+import com.example.ninthhomework.controller.RequestDeadlineInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+//@WebMvcTestではCharacterDeadlinePropertiesが登録されないため、ない時は既定値(期限なし)とする
+@Configuration
+public class RequestDeadlineConfig implements WebMvcConfigurer {
+    private final CharacterDeadlineProperties properties;
+
+    public RequestDeadlineConfig(ObjectProvider<CharacterDeadlineProperties> properties) {
+        this.properties = properties.getIfAvailable(CharacterDeadlineProperties::new);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestDeadlineInterceptor(properties.getDefaultTimeout()));
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.ninthhomework.controller;
+
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.service.CharacterAsyncService;
+import com.example.ninthhomework.exception.ServiceUnavailableException;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+// CharacterListControllerの参照系と同じ内容を非同期で返し、時間内に終わらない時は503を返す
+@RestController
+public class CharacterAsyncController {
+    private final CharacterAsyncService characterAsyncService;
+
+    public CharacterAsyncController(CharacterAsyncService characterAsyncService) {
+        this.characterAsyncService = characterAsyncService;
+    }
+
+    @GetMapping("/async/characters/{id}")
+    public DeferredResult<Character> findCharacterById(@PathVariable("id") int id) {
+        return defer(characterAsyncService.findById(id));
+    }
+
+    @GetMapping("/async/characters-without-id")
+    public DeferredResult<List<CharacterResponse>> selectCharacters() {
+        return defer(characterAsyncService.getCharacters(), characters ->
+                characters.stream().map(y -> new CharacterResponse(y.getName(), y.getAge())).toList());
+    }
+
+    @GetMapping("/async/characters")
+    public DeferredResult<List<Character>> findCharacterByAge(@RequestParam(name = "age", required = false) Integer age) {
+        return defer(characterAsyncService.findByAge(age));
+    }
+
+    @GetMapping(value = "/async/characters", params = "ids")
+    public DeferredResult<List<Character>> findCharactersByIds(@Validated IdsForm idsForm) {
+        return defer(characterAsyncService.findByIds(idsForm.getIds()));
+    }
+
+    @GetMapping("/async/characters/count")
+    public DeferredResult<Map<String, Long>> countCharacters(@RequestParam(name = "age", required = false) Integer age) {
+        return defer(characterAsyncService.count(age), count -> Map.of("count", count));
+    }
+
+    private <T> DeferredResult<T> defer(CompletableFuture<T> future) {
+        return defer(future, Function.identity());
+    }
+
+    //例外はCharacterListControllerと同じExceptionHandlerで処理する
+    //時間切れの時は元の処理をキャンセルし、まだ待ち行列にあればDBへ問い合わせずに終わらせる
+    private <S, T> DeferredResult<T> defer(CompletableFuture<S> future, Function<S, T> converter) {
+        long timeoutMillis = characterAsyncService.getTimeout().toMillis();
+        DeferredResult<T> result = new DeferredResult<>(timeoutMillis);
+        result.onTimeout(() -> {
+            future.cancel(false);
+            result.setErrorResult(new ServiceUnavailableException("request timed out after " + timeoutMillis + "ms"));
+        });
+        future.whenComplete((value, ex) -> {
+            if (ex == null) {
+                result.setResult(converter.apply(value));
+            } else {
+                result.setErrorResult(ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex);
+            }
+        });
+        return result;
+    }
+}
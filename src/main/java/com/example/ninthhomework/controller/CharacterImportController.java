@@ -0,0 +1,40 @@
+package com.example.ninthhomework.controller;
+
+import com.example.ninthhomework.domain.user.service.CharacterImportResult;
+import com.example.ninthhomework.domain.user.service.CharacterImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+//件数に応じて時間がかかるため、既定の処理期限は設けない
+@RestController
+@RequestTimeout("0")
+public class CharacterImportController {
+    private static final String TEXT_CSV = "text/csv";
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final CharacterImportService importService;
+
+    public CharacterImportController(CharacterImportService importService) {
+        this.importService = importService;
+    }
+
+    //リクエストボディ全体を読み込まずに、届いた行から順に処理する
+    @PostMapping(value = "/characters/import", consumes = {TEXT_CSV, APPLICATION_NDJSON})
+    public CharacterImportResult importCharacters(HttpServletRequest request) throws IOException {
+        CharacterImportService.Format format = MediaType.parseMediaType(request.getContentType())
+                .isCompatibleWith(MediaType.parseMediaType(APPLICATION_NDJSON))
+                ? CharacterImportService.Format.NDJSON
+                : CharacterImportService.Format.CSV;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8))) {
+            return importService.importFrom(reader, format);
+        }
+    }
+}
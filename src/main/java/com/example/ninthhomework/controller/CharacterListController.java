@@ -2,10 +2,15 @@ package com.example.ninthhomework.controller;
 
 import com.example.ninthhomework.domain.user.model.Character;
 import com.example.ninthhomework.domain.user.service.CharacterService;
+import com.example.ninthhomework.domain.user.service.CharacterStaleReadService;
+import com.example.ninthhomework.domain.user.service.Served;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.net.URI;
@@ -14,29 +19,59 @@ import java.util.Map;
 
 @RestController
 public class CharacterListController {
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
     @Autowired
     private final CharacterService characterService;
 
-    public CharacterListController(CharacterService characterService) {
+    private final CharacterStaleReadService staleReadService;
+
+    public CharacterListController(CharacterService characterService, CharacterStaleReadService staleReadService) {
         this.characterService = characterService;
+        this.staleReadService = staleReadService;
     }
 
     //指定したIDの内容のみ返す
+    //DBから読めずに最後に読めた値を返す時は、WarningヘッダーとAgeヘッダー(経過秒数)を付ける
     @GetMapping("/characters/{id}")
-    public Character findCharacterById(@PathVariable("id") int id) {
-        return characterService.findById(id);
+    public ResponseEntity<Character> findCharacterById(@PathVariable("id") int id) {
+        Served<Character> served = staleReadService.findById(id);
+        return ok(served).body(served.getValue());
     }
 
     // このAPIはController層でResponseクラスへ変換する方法を試すために作りました
     @GetMapping("/characters-without-id")
-    public List<CharacterResponse> selectCharacters() {
-        return characterService.getCharacters().stream().map(y -> new CharacterResponse(y.getName(), y.getAge())).toList();
+    public ResponseEntity<List<CharacterResponse>> selectCharacters() {
+        List<CharacterResponse> characters = characterService.getCharacters().stream().map(y -> new CharacterResponse(y.getName(), y.getAge())).toList();
+        return ResponseEntity.ok().header(TOTAL_COUNT_HEADER, String.valueOf(characterService.count(null))).body(characters);
     }
 
     //クエリに指定がない時は全件、指定ありの時は年齢でフィルターをかけて表示
+    //minAge・maxAge・namePrefix・sort・limitのいずれかがある時は条件を組み合わせて検索する
     @GetMapping("/characters")
-    public List<Character> findCharacterByAge(@RequestParam(name = "age", required = false) Integer age) {
-        return characterService.findByAge(age);
+    @RequestTimeout("5s")
+    public ResponseEntity<List<Character>> findCharacterByAge(@Validated SearchForm searchForm) {
+        if (searchForm.isSearch()) {
+            return ResponseEntity.ok(characterService.search(searchForm.toQuery()));
+        }
+        Integer age = searchForm.getAge();
+        Served<List<Character>> served = staleReadService.findByAge(age);
+        //最後に読めた値を返す時は件数もDBから読まず、その値の件数とする
+        long total = served.isStale() ? served.getValue().size() : characterService.count(age);
+        return ok(served).header(TOTAL_COUNT_HEADER, String.valueOf(total)).body(served.getValue());
+    }
+
+    //一覧と同じ条件で件数のみ返す
+    @GetMapping("/characters/count")
+    public Map<String, Long> countCharacters(@RequestParam(name = "age", required = false) Integer age) {
+        return Map.of("count", characterService.count(age));
+    }
+
+    //複数のIDをまとめて指定した時は1回の問い合わせで返す
+    @GetMapping(value = "/characters", params = "ids")
+    public List<Character> findCharactersByIds(@Validated IdsForm idsForm) {
+        return characterService.findByIds(idsForm.getIds());
     }
 
     @PostMapping("/characters")
@@ -58,10 +93,44 @@ public class CharacterListController {
         return ResponseEntity.ok(Map.of("message", "character successfully updated"));
     }
 
+    //指定したIDで登録、既にある時は名前と年齢を置き換える。存在を確認せずに1回の問い合わせで行う
+    @PutMapping("/characters/{id}")
+    public ResponseEntity<Map<String, String>> upsert
+            (@PathVariable("id") int id, @RequestBody @Validated CreateForm createForm) {
+        requirePositiveId(id);
+        characterService.upsertCharacter(id, createForm.getName(), createForm.getAge());
+        return ResponseEntity.ok(Map.of("message", "character successfully saved"));
+    }
+
+    //同期処理向けに、複数のキャラクターの登録・置き換えを1回の問い合わせで行う
+    @PutMapping("/characters")
+    public ResponseEntity<Map<String, String>> upsertAll(@RequestBody @Validated UpsertForm upsertForm) {
+        List<Character> characters = upsertForm.toCharacters();
+        characterService.upsertCharacters(characters);
+        return ResponseEntity.ok(Map.of(
+                "message", "characters successfully saved",
+                "saved", String.valueOf(characters.size())));
+    }
+
     @DeleteMapping("characters/{id}")
     public ResponseEntity<Map<String, String>> delete(@PathVariable("id") int id) {
         characterService.deleteCharacter(id);
         return ResponseEntity.ok(Map.of("message", "character successfully deleted"));
     }
-}
 
+    //IDが0の行はAUTO_INCREMENTで採番されてしまうため、IDは1以上に限る
+    private static void requirePositiveId(int id) {
+        if (id <= 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id must be positive: " + id);
+        }
+    }
+
+    private static ResponseEntity.BodyBuilder ok(Served<?> served) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok();
+        if (served.isStale()) {
+            builder.header(HttpHeaders.WARNING, STALE_WARNING)
+                    .header(HttpHeaders.AGE, String.valueOf(served.getAge().toSeconds()));
+        }
+        return builder;
+    }
+}
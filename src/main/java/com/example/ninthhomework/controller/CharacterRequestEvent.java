@@ -0,0 +1,28 @@
+package com.example.ninthhomework.controller;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// APIのリクエスト1回分のJFRイベント
+@Name("com.example.ninthhomework.CharacterRequest")
+@Label("Character Request")
+@Category({"Ninthhomework", "HTTP"})
+@Description("APIのリクエスト1回分の処理")
+@StackTrace(false)
+public class CharacterRequestEvent extends Event {
+    @Label("Endpoint")
+    @Description("HTTPメソッドとURLのパターン。例: GET /characters/{id}")
+    String endpoint;
+
+    @Label("Status")
+    int status;
+
+    @Label("Bytes Written")
+    @DataAmount
+    long bytesWritten;
+}
@@ -0,0 +1,37 @@
+package com.example.ninthhomework.controller;
+
+import com.example.ninthhomework.domain.user.service.CharacterCache;
+import com.example.ninthhomework.domain.user.service.CharacterFrequencySketch;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// よく読まれるキャラクターのIDと推定検索回数を /actuator/hotcharacters で返す
+@Component
+@Endpoint(id = "hotcharacters")
+public class HotCharactersEndpoint {
+    private final CharacterFrequencySketch sketch;
+    private final CharacterCache cache;
+
+    public HotCharactersEndpoint(CharacterFrequencySketch sketch, CharacterCache cache) {
+        this.sketch = sketch;
+        this.cache = cache;
+    }
+
+    @ReadOperation
+    public Map<String, Object> hotCharacters() {
+        List<Map<String, Integer>> characters = sketch.hottest().entrySet().stream()
+                .map(entry -> Map.of("id", entry.getKey(), "count", entry.getValue()))
+                .toList();
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("characters", characters);
+        body.put("sampleSize", sketch.getSampleSize());
+        body.put("cacheSize", cache.size());
+        body.put("cacheRejections", cache.getRejections());
+        return body;
+    }
+}
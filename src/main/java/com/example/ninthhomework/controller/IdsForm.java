@@ -0,0 +1,21 @@
+package com.example.ninthhomework.controller;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+//まとめて検索するIDの一覧。IN句の大きさを抑えるため件数に上限を設ける
+public class IdsForm {
+    @NotEmpty
+    @Size(max = 1000)
+    private final List<Integer> ids;
+
+    public IdsForm(List<Integer> ids) {
+        this.ids = ids;
+    }
+
+    public List<Integer> getIds() {
+        return ids;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.ninthhomework.controller;
+
+import com.example.ninthhomework.domain.user.service.FlightRecordingService;
+import com.example.ninthhomework.exception.NotFoundException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.Map;
+
+//JFRの記録を開始・停止し、記録した内容をダウンロードする管理用API
+@RestController
+@RequestTimeout("0")
+public class ProfilingAdminController {
+    private final FlightRecordingService recordingService;
+
+    public ProfilingAdminController(FlightRecordingService recordingService) {
+        this.recordingService = recordingService;
+    }
+
+    //期間を指定しない時は設定された最長時間だけ記録する
+    @PostMapping("/admin/profiling")
+    public ResponseEntity<Map<String, String>> start(
+            @RequestParam(name = "duration", defaultValue = "0s") Duration duration) throws IOException, ParseException {
+        if (!recordingService.start(duration)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", "recording already running"));
+        }
+        return ResponseEntity.accepted().body(Map.of("message", "recording successfully started"));
+    }
+
+    @PostMapping("/admin/profiling/stop")
+    public Map<String, String> stop() {
+        if (!recordingService.stop()) {
+            throw new NotFoundException("記録中のJFRはありません");
+        }
+        return Map.of("message", "recording successfully stopped");
+    }
+
+    @GetMapping("/admin/profiling")
+    public Map<String, String> status() {
+        return recordingService.status().orElseThrow(() -> new NotFoundException("JFRの記録はありません"));
+    }
+
+    @GetMapping("/admin/profiling/recording")
+    public ResponseEntity<StreamingResponseBody> download() throws IOException {
+        Path file = Files.createTempFile("characters", ".jfr");
+        try {
+            if (!recordingService.dumpTo(file)) {
+                throw new NotFoundException("JFRの記録はありません");
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(Files.size(file))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"characters.jfr\"")
+                .body(body);
+    }
+}
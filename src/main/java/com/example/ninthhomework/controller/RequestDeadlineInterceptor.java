@@ -0,0 +1,80 @@
+package com.example.ninthhomework.controller;
+
+import com.example.ninthhomework.domain.user.service.RequestDeadline;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Objects;
+
+// X-Request-TimeoutヘッダーとAPIごとの期限のうち短い方を、リクエストの処理期限としてスレッドに結び付ける
+public class RequestDeadlineInterceptor implements AsyncHandlerInterceptor {
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    private final Duration defaultTimeout;
+
+    public RequestDeadlineInterceptor(Duration defaultTimeout) {
+        this.defaultTimeout = defaultTimeout;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        Duration timeout = min(endpointTimeout(handler), headerTimeout(request));
+        if (Objects.nonNull(timeout)) {
+            RequestDeadline deadline = RequestDeadline.after(timeout);
+            deadline.check();
+            RequestDeadline.attach(deadline);
+        }
+        return true;
+    }
+
+    //非同期のAPIでは処理を別スレッドへ引き継いだ時点でリクエストのスレッドから外す
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        RequestDeadline.detach();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        RequestDeadline.detach();
+    }
+
+    private Duration endpointTimeout(Object handler) {
+        RequestTimeout annotation = null;
+        if (handler instanceof HandlerMethod handlerMethod) {
+            annotation = handlerMethod.getMethodAnnotation(RequestTimeout.class);
+            if (Objects.isNull(annotation)) {
+                annotation = handlerMethod.getBeanType().getAnnotation(RequestTimeout.class);
+            }
+        }
+        Duration timeout = Objects.isNull(annotation) ? defaultTimeout : DurationStyle.detectAndParse(annotation.value());
+        return timeout.isZero() ? null : timeout;
+    }
+
+    private static Duration headerTimeout(HttpServletRequest request) {
+        String value = request.getHeader(TIMEOUT_HEADER);
+        if (Objects.isNull(value) || value.isBlank()) {
+            return null;
+        }
+        try {
+            return DurationStyle.detectAndParse(value.trim(), ChronoUnit.MILLIS);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid " + TIMEOUT_HEADER + ": " + value);
+        }
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        if (Objects.isNull(a)) {
+            return b;
+        }
+        return Objects.isNull(b) || a.compareTo(b) <= 0 ? a : b;
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.ninthhomework.controller;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+//APIごとの処理期限("2s"・"500ms"の形式。"0"の時は期限を設けない)
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RequestTimeout {
+    String value();
+}
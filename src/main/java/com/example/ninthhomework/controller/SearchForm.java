@@ -0,0 +1,72 @@
+package com.example.ninthhomework.controller;
+
+import com.example.ninthhomework.domain.user.model.CharacterQuery;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+import java.util.Objects;
+
+public class SearchForm {
+    //ageは従来通り「指定された年齢より年上」として扱う
+    private Integer age;
+    @Min(0)
+    private Integer minAge;
+    @Min(0)
+    private Integer maxAge;
+    @Size(max = 100)
+    private String namePrefix;
+    @Pattern(regexp = "-?(id|name|age)")
+    private String sort;
+    @Min(1)
+    @Max(1000)
+    private Integer limit;
+
+    public SearchForm(Integer age, Integer minAge, Integer maxAge, String namePrefix, String sort, Integer limit) {
+        this.age = age;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.namePrefix = namePrefix;
+        this.sort = sort;
+        this.limit = limit;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public Integer getMinAge() {
+        return minAge;
+    }
+
+    public Integer getMaxAge() {
+        return maxAge;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public String getSort() {
+        return sort;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    //age以外の条件が1つでもあれば検索として扱う
+    public boolean isSearch() {
+        return Objects.nonNull(minAge) || Objects.nonNull(maxAge) || Objects.nonNull(namePrefix)
+                || Objects.nonNull(sort) || Objects.nonNull(limit);
+    }
+
+    public CharacterQuery toQuery() {
+        Integer min = minAge;
+        if (Objects.nonNull(age) && age < Integer.MAX_VALUE) {
+            min = Objects.isNull(min) ? age + 1 : Math.max(min, age + 1);
+        }
+        return CharacterQuery.of(min, maxAge, namePrefix, sort, limit);
+    }
+}
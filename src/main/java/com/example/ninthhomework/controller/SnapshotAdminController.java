@@ -0,0 +1,72 @@
+package com.example.ninthhomework.controller;
+
+import com.example.ninthhomework.domain.user.service.CharacterSnapshotService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+//キャラクター全件のスナップショットをダウンロード・アップロードする管理用API
+@RestController
+@RequestTimeout("0")
+public class SnapshotAdminController {
+    private final CharacterSnapshotService snapshotService;
+
+    public SnapshotAdminController(CharacterSnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
+    }
+
+    @GetMapping("/admin/snapshot")
+    public ResponseEntity<StreamingResponseBody> exportSnapshot() throws IOException {
+        Path file = Files.createTempFile("characters", ".snapshot");
+        try {
+            snapshotService.exportTo(file);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(Files.size(file))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"characters.snapshot\"")
+                .body(body);
+    }
+
+    //リクエストボディを一時ファイルに書き出してから、メモリマップして読み込む
+    //全件を削除して入れ替えるため、characters.snapshot.import-endpoint-enabledを有効にした時だけ受け付ける
+    @PutMapping(value = "/admin/snapshot", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<Map<String, String>> importSnapshot(HttpServletRequest request) throws IOException {
+        if (!snapshotService.isImportEndpointEnabled()) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "snapshot import is disabled");
+        }
+        Path file = Files.createTempFile("characters", ".snapshot");
+        try {
+            Files.copy(request.getInputStream(), file, StandardCopyOption.REPLACE_EXISTING);
+            int imported = snapshotService.importFrom(file);
+            return ResponseEntity.ok(Map.of(
+                    "message", "snapshot successfully imported",
+                    "imported", String.valueOf(imported)));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
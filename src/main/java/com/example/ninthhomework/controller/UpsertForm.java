@@ -0,0 +1,59 @@
+package com.example.ninthhomework.controller;
+
+import com.example.ninthhomework.domain.user.model.Character;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+//まとめて登録・置き換えるキャラクターの一覧。1回の問い合わせの大きさを抑えるため件数に上限を設ける
+public class UpsertForm {
+    @NotEmpty
+    @Size(max = 1000)
+    @Valid
+    private List<Item> characters;
+
+    public List<Item> getCharacters() {
+        return characters;
+    }
+
+    public void setCharacters(List<Item> characters) {
+        this.characters = characters;
+    }
+
+    public List<Character> toCharacters() {
+        return characters.stream().map(item -> new Character(item.getId(), item.getName(), item.getAge())).toList();
+    }
+
+    //IDが0の行はAUTO_INCREMENTで採番されてしまうため、IDは1以上に限る
+    public static class Item {
+        @Positive
+        private final int id;
+        @NotBlank
+        private final String name;
+        @NotNull
+        private final Integer age;
+
+        public Item(int id, String name, Integer age) {
+            this.id = id;
+            this.name = name;
+            this.age = age;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Integer getAge() {
+            return age;
+        }
+    }
+}
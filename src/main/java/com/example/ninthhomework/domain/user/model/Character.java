@@ -4,10 +4,10 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.util.Objects;
 
-public class Character {
-    private int id;
-    private String name;
-    private Integer age;
+public final class Character {
+    private final int id;
+    private final String name;
+    private final Integer age;
 
     public Character(int id, String name, Integer age) {
         this.id = id;
@@ -16,8 +16,7 @@ public class Character {
     }
 
     public Character(String name, Integer age) {
-        this.name = name;
-        this.age = age;
+        this(0, name, age);
     }
 
     public int getId() {
@@ -32,17 +31,15 @@ public class Character {
         return age;
     }
 
-    public void setName(String name) {
-        this.name = name;
+    //入力がある項目だけを置き換えた新しいCharacterを返す
+    public Character updated(String name, Integer age) {
+        return new Character(id,
+                StringUtils.isNotBlank(name) ? name : this.name,
+                Objects.nonNull(age) ? age : this.age);
     }
 
-    public void update(String name, Integer age) {
-        if (StringUtils.isNotBlank(name)) {
-            this.name = name;
-        }
-        if (Objects.nonNull(age)) {
-            this.age = age;
-        }
+    public Character withId(int id) {
+        return new Character(id, name, age);
     }
 
     @Override
@@ -55,7 +52,7 @@ public class Character {
         }
         Character character = (Character) obj;
         return id == character.id &&
-                age == character.age &&
+                Objects.equals(age, character.age) &&
                 Objects.equals(name, character.name);
     }
 
@@ -64,4 +61,3 @@ public class Character {
         return Objects.hash(id, name, age);
     }
 }
-
@@ -0,0 +1,71 @@
+package com.example.ninthhomework.domain.user.model;
+
+import java.util.Objects;
+
+// character_changesテーブルの1行。他のノードのキャッシュなどを無効化するために使う
+public final class CharacterChange {
+    public enum Type {
+        CREATE, UPDATE, DELETE,
+        //IDを指定した登録または置き換え
+        UPSERT,
+        //IDを特定しないまとめての登録
+        BULK_INSERT,
+        //全件の入れ替え
+        RESET
+    }
+
+    private final long seq;
+    private final int characterId;
+    private final Type type;
+    private final String origin;
+
+    public CharacterChange(long seq, int characterId, Type type, String origin) {
+        this.seq = seq;
+        this.characterId = characterId;
+        this.type = type;
+        this.origin = origin;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public int getCharacterId() {
+        return characterId;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    //変更を書き込んだノードのID
+    public String getOrigin() {
+        return origin;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        CharacterChange change = (CharacterChange) obj;
+        return seq == change.seq &&
+                characterId == change.characterId &&
+                type == change.type &&
+                Objects.equals(origin, change.origin);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(seq, characterId, type, origin);
+    }
+
+    @Override
+    public String toString() {
+        return "CharacterChange{seq=" + seq + ", characterId=" + characterId + ", type=" + type
+                + ", origin=" + origin + "}";
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.ninthhomework.domain.user.model;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+// 一覧検索の条件。条件がnullの項目は絞り込まず、名前の比較はMySQLの照合順序と同じく大文字小文字を区別しない
+public final class CharacterQuery {
+    public enum SortKey {
+        ID("id", Comparator.comparingInt(Character::getId)),
+        NAME("name", Comparator.comparing(Character::getName, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER))),
+        AGE("age", Comparator.comparing(Character::getAge, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        private final String column;
+        private final Comparator<Character> comparator;
+
+        SortKey(String column, Comparator<Character> comparator) {
+            this.column = column;
+            this.comparator = comparator;
+        }
+
+        public String getColumn() {
+            return column;
+        }
+    }
+
+    private final Integer minAge;
+    private final Integer maxAge;
+    private final String namePrefix;
+    private final SortKey sortKey;
+    private final boolean descending;
+    private final Integer limit;
+
+    public CharacterQuery(Integer minAge, Integer maxAge, String namePrefix, SortKey sortKey, boolean descending,
+                          Integer limit) {
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.namePrefix = namePrefix == null || namePrefix.isEmpty() ? null : namePrefix;
+        this.sortKey = Objects.requireNonNullElse(sortKey, SortKey.ID);
+        this.descending = descending;
+        this.limit = limit;
+    }
+
+    //"age" や "-age"(降順) の形式で並び順を指定する
+    public static CharacterQuery of(Integer minAge, Integer maxAge, String namePrefix, String sort, Integer limit) {
+        boolean descending = sort != null && sort.startsWith("-");
+        SortKey sortKey = sort == null || sort.isEmpty()
+                ? SortKey.ID
+                : SortKey.valueOf(sort.substring(descending ? 1 : 0).toUpperCase(Locale.ROOT));
+        return new CharacterQuery(minAge, maxAge, namePrefix, sortKey, descending, limit);
+    }
+
+    public Integer getMinAge() {
+        return minAge;
+    }
+
+    public Integer getMaxAge() {
+        return maxAge;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    //LIKE句で使うため、% _ \ をエスケープして末尾に%を付ける
+    public String getNamePattern() {
+        if (namePrefix == null) {
+            return null;
+        }
+        return namePrefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    public SortKey getSortKey() {
+        return sortKey;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public boolean hasFilter() {
+        return minAge != null || maxAge != null || namePrefix != null;
+    }
+
+    //結果が必ず空になる条件
+    public boolean isUnsatisfiable() {
+        return (limit != null && limit <= 0) || (minAge != null && maxAge != null && minAge > maxAge);
+    }
+
+    public boolean matches(Character character) {
+        Integer age = character.getAge();
+        if ((minAge != null || maxAge != null) && age == null) {
+            return false;
+        }
+        if ((minAge != null && age < minAge) || (maxAge != null && age > maxAge)) {
+            return false;
+        }
+        return namePrefix == null || (character.getName() != null
+                && character.getName().regionMatches(true, 0, namePrefix, 0, namePrefix.length()));
+    }
+
+    //String.regionMatches(true, ...)と同じ規則で1文字を比較する
+    public static boolean equalsIgnoreCase(char a, char b) {
+        if (a == b) {
+            return true;
+        }
+        char upperA = java.lang.Character.toUpperCase(a);
+        char upperB = java.lang.Character.toUpperCase(b);
+        return upperA == upperB || java.lang.Character.toLowerCase(upperA) == java.lang.Character.toLowerCase(upperB);
+    }
+
+    //MySQLと同じく、昇順ではnullを先頭、降順では末尾に並べる。同じ値の時はID順とする
+    public Comparator<Character> comparator() {
+        Comparator<Character> comparator = descending ? sortKey.comparator.reversed() : sortKey.comparator;
+        return sortKey == SortKey.ID ? comparator : comparator.thenComparingInt(Character::getId);
+    }
+
+    //メモリ上の一覧に同じ条件を適用する
+    public List<Character> apply(Stream<Character> characters) {
+        Stream<Character> sorted = characters.filter(this::matches).sorted(comparator());
+        return (limit == null ? sorted : sorted.limit(limit)).toList();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        CharacterQuery query = (CharacterQuery) obj;
+        return descending == query.descending &&
+                Objects.equals(minAge, query.minAge) &&
+                Objects.equals(maxAge, query.maxAge) &&
+                Objects.equals(namePrefix, query.namePrefix) &&
+                sortKey == query.sortKey &&
+                Objects.equals(limit, query.limit);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(minAge, maxAge, namePrefix, sortKey, descending, limit);
+    }
+
+    @Override
+    public String toString() {
+        return "CharacterQuery{minAge=" + minAge + ", maxAge=" + maxAge + ", namePrefix=" + namePrefix
+                + ", sort=" + (descending ? "-" : "") + sortKey.column + ", limit=" + limit + "}";
+    }
+}
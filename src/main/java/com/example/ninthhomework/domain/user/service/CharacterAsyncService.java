@@ -0,0 +1,77 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterAsyncProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// CharacterServiceの呼び出しをDB接続数と同じ数のスレッドで実行し、待ち行列が一杯の時は503とする
+@Service
+public class CharacterAsyncService {
+    private final CharacterService characterService;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+
+    public CharacterAsyncService(CharacterService characterService, CharacterAsyncProperties async,
+                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        this.characterService = characterService;
+        this.timeout = async.getTimeout();
+        this.executor = new ThreadPoolExecutor(async.getPoolSize(), async.getPoolSize(), 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(async.getQueueCapacity()), new CustomizableThreadFactory("character-db-"));
+        meterRegistry.ifAvailable(registry ->
+                new ExecutorServiceMetrics(executor, "characters.db", List.of()).bindTo(registry));
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdown();
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public CompletableFuture<List<Character>> getCharacters() {
+        return submit(characterService::getCharacters);
+    }
+
+    public CompletableFuture<List<Character>> findByAge(Integer age) {
+        return submit(() -> characterService.findByAge(age));
+    }
+
+    public CompletableFuture<Character> findById(int id) {
+        return submit(() -> characterService.findById(id));
+    }
+
+    public CompletableFuture<List<Character>> findByIds(List<Integer> ids) {
+        return submit(() -> characterService.findByIds(ids));
+    }
+
+    public CompletableFuture<Long> count(Integer age) {
+        return submit(() -> characterService.count(age));
+    }
+
+    //待ち行列に残っている間にキャンセルされた処理は実行されない
+    //呼び出し元のリクエストの処理期限は実行するスレッドに引き継ぐ
+    private <T> CompletableFuture<T> submit(Supplier<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(RequestDeadline.propagate(task), executor);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(new ServiceUnavailableException("too many pending requests"));
+        }
+    }
+}
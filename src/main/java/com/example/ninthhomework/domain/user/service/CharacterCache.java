@@ -0,0 +1,131 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterCacheProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// ID指定の検索結果を保持するノード内のキャッシュ(LRU。admissionを有効にするとTinyLFU)
+@Component
+public class CharacterCache {
+    //キャッシュ以外に保持している値(最後に読めた値など)を、キャッシュと同じ時に捨てるための通知先
+    public interface EvictionListener {
+        void evicted(int id);
+
+        void cleared();
+    }
+
+    private final int maxSize;
+    private final boolean admission;
+    private final CharacterFrequencySketch sketch;
+    private final Map<Integer, Character> entries;
+    private final List<EvictionListener> listeners = new CopyOnWriteArrayList<>();
+    private long invalidations;
+    private long rejections;
+
+    public CharacterCache(CharacterCacheProperties properties, CharacterFrequencySketch sketch) {
+        this.maxSize = properties.getMaxSize();
+        this.admission = properties.isAdmission();
+        this.sketch = sketch;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Character> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public boolean isEnabled() {
+        return maxSize > 0;
+    }
+
+    //見つからなかった時も含めて検索回数を記録する
+    public Character get(int id) {
+        sketch.record(id);
+        synchronized (this) {
+            return entries.get(id);
+        }
+    }
+
+    //見つかった時だけ検索回数を記録する。見つからなかった時は続けて呼ぶgetで記録する
+    public Character getIfPresent(int id) {
+        Character character;
+        synchronized (this) {
+            character = entries.get(id);
+        }
+        if (character != null) {
+            sketch.record(id);
+        }
+        return character;
+    }
+
+    public synchronized long stamp() {
+        return invalidations;
+    }
+
+    public synchronized void put(Character character, long stamp) {
+        if (!isEnabled() || stamp != invalidations) {
+            return;
+        }
+        if (admission && entries.size() >= maxSize && !entries.containsKey(character.getId())) {
+            //アクセス順のため先頭が次に追い出される値
+            int victim = entries.keySet().iterator().next();
+            if (sketch.frequency(character.getId()) <= sketch.frequency(victim)) {
+                rejections++;
+                return;
+            }
+        }
+        entries.put(character.getId(), character);
+    }
+
+    public void evict(int id) {
+        synchronized (this) {
+            invalidations++;
+            entries.remove(id);
+        }
+        listeners.forEach(listener -> listener.evicted(id));
+    }
+
+    //新しさを保証できない値(レプリカから読んだ値など)が返った時に呼び、読み込み中の値を保持しないようにする
+    public synchronized void skipPendingPuts() {
+        invalidations++;
+    }
+
+    public void clear() {
+        synchronized (this) {
+            invalidations++;
+            entries.clear();
+        }
+        listeners.forEach(EvictionListener::cleared);
+    }
+
+    public void addEvictionListener(EvictionListener listener) {
+        listeners.add(listener);
+    }
+
+    //最近使われた順に並べた保持中の値
+    public synchronized List<Character> values() {
+        List<Character> values = new ArrayList<>(entries.values());
+        Collections.reverse(values);
+        return values;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    //admissionで保持しなかった回数
+    public synchronized long getRejections() {
+        return rejections;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.domain.user.model.Character;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// キャッシュの内容を再起動後に読み込むためのファイル形式
+public final class CharacterCacheSnapshot {
+    public static final int VERSION = 1;
+    private static final byte[] MAGIC = {'C', 'H', 'C', 'S'};
+
+    private final Instant savedAt;
+    private final long position;
+    private final List<Character> characters;
+    private final int[] frequencies;
+
+    public CharacterCacheSnapshot(Instant savedAt, long position, List<Character> characters, int[] frequencies) {
+        if (characters.size() != frequencies.length) {
+            throw new IllegalArgumentException("characters and frequencies must have the same length");
+        }
+        this.savedAt = savedAt;
+        this.position = position;
+        this.characters = List.copyOf(characters);
+        this.frequencies = frequencies.clone();
+    }
+
+    public Instant getSavedAt() {
+        return savedAt;
+    }
+
+    //保存時点で反映済みだった変更ログの位置
+    public long getPosition() {
+        return position;
+    }
+
+    public List<Character> getCharacters() {
+        return characters;
+    }
+
+    public int getFrequency(int index) {
+        return frequencies[index];
+    }
+
+    //[CHCS][版][保存日時][変更ログの位置][件数]の後に[ID][年齢][年齢がnullか][推定検索回数][名前]を件数分並べる
+    //書き込み途中で停止しても前回のファイルが残るよう、一時ファイルに書いてから置き換える
+    public void write(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(savedAt.toEpochMilli());
+            out.writeLong(position);
+            out.writeInt(characters.size());
+            for (int i = 0; i < characters.size(); i++) {
+                Character character = characters.get(i);
+                out.writeInt(character.getId());
+                out.writeInt(character.getAge() == null ? 0 : character.getAge());
+                out.writeByte(character.getAge() == null ? 1 : 0);
+                out.writeInt(frequencies[i]);
+                if (character.getName() == null) {
+                    out.writeInt(-1);
+                } else {
+                    byte[] name = character.getName().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(name.length);
+                    out.write(name);
+                }
+            }
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public static CharacterCacheSnapshot read(Path path) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            byte[] magic = in.readNBytes(MAGIC.length);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IllegalArgumentException("not a character cache snapshot: " + path);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("unsupported cache snapshot version: " + version);
+            }
+            Instant savedAt = Instant.ofEpochMilli(in.readLong());
+            long position = in.readLong();
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IllegalArgumentException("corrupted cache snapshot");
+            }
+            List<Character> characters = new ArrayList<>(count);
+            int[] frequencies = new int[count];
+            for (int i = 0; i < count; i++) {
+                int id = in.readInt();
+                int age = in.readInt();
+                boolean ageIsNull = in.readByte() != 0;
+                frequencies[i] = in.readInt();
+                int nameLength = in.readInt();
+                String name = null;
+                if (nameLength >= 0) {
+                    byte[] nameBytes = new byte[nameLength];
+                    in.readFully(nameBytes);
+                    name = new String(nameBytes, StandardCharsets.UTF_8);
+                }
+                characters.add(new Character(id, name, ageIsNull ? null : age));
+            }
+            return new CharacterCacheSnapshot(savedAt, position, characters, frequencies);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterCacheProperties;
+import com.example.ninthhomework.config.CharacterInvalidationProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// キャッシュの内容をファイルに保存し、起動時に読み込んでから停止中の変更を取り除く
+@Component
+public class CharacterCacheWarmer {
+    private static final Logger log = LoggerFactory.getLogger(CharacterCacheWarmer.class);
+
+    private final CharacterCache cache;
+    private final CharacterFrequencySketch sketch;
+    private final CharacterChangeBus changeBus;
+    private final Path path;
+    private final Duration interval;
+    private final Duration retention;
+    private ScheduledExecutorService scheduler;
+
+    public CharacterCacheWarmer(CharacterCache cache, CharacterFrequencySketch sketch, CharacterChangeBus changeBus,
+                                CharacterCacheProperties cacheProperties,
+                                CharacterInvalidationProperties invalidationProperties) {
+        this.cache = cache;
+        this.sketch = sketch;
+        this.changeBus = changeBus;
+        String snapshotPath = cacheProperties.getSnapshotPath();
+        this.path = snapshotPath == null || snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+        this.interval = cacheProperties.getSnapshotInterval();
+        this.retention = invalidationProperties.getRetention();
+    }
+
+    @PostConstruct
+    public void restore() {
+        if (!isEnabled() || !Files.exists(path)) {
+            return;
+        }
+        CharacterCacheSnapshot snapshot;
+        try {
+            snapshot = CharacterCacheSnapshot.read(path);
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("could not read the cache snapshot {}, starting with an empty cache", path, e);
+            return;
+        }
+        if (snapshot.getSavedAt().isBefore(Instant.now().minus(retention))) {
+            log.info("the cache snapshot {} is older than the change log retention, ignoring it", path);
+            return;
+        }
+        if (!changeBus.resumeFrom(snapshot.getPosition())) {
+            log.info("the cache snapshot {} does not match the change log, ignoring it", path);
+            return;
+        }
+        //よく読まれる値が最後に使われた扱いになるよう、読まれない順に入れる
+        List<Character> characters = snapshot.getCharacters();
+        int restored = Math.min(characters.size(), cache.getMaxSize());
+        long stamp = cache.stamp();
+        for (int i = restored - 1; i >= 0; i--) {
+            sketch.restore(characters.get(i).getId(), snapshot.getFrequency(i));
+            cache.put(characters.get(i), stamp);
+        }
+        changeBus.poll();
+        log.info("restored {} cached characters from {}", restored, path);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!isEnabled() || interval.isZero() || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "character-cache-warmer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long nanos = interval.toNanos();
+        scheduler.scheduleWithFixedDelay(this::saveQuietly, nanos, nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        saveQuietly();
+    }
+
+    //保存した件数を返す
+    public int save() throws IOException {
+        if (!isEnabled()) {
+            return 0;
+        }
+        //値より先に位置を読み、保存する値がその位置までの変更を反映済みであるようにする
+        long position = changeBus.getAppliedPosition();
+        List<Character> characters = cache.values().stream()
+                .sorted(Comparator.comparingInt((Character character) -> sketch.frequency(character.getId())).reversed())
+                .toList();
+        int[] frequencies = characters.stream().mapToInt(character -> sketch.frequency(character.getId())).toArray();
+        new CharacterCacheSnapshot(Instant.now(), position, characters, frequencies).write(path);
+        return characters.size();
+    }
+
+    private boolean isEnabled() {
+        return path != null && cache.isEnabled() && changeBus.getAppliedPosition() >= 0;
+    }
+
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException | RuntimeException e) {
+            log.warn("could not save the cache snapshot {}", path, e);
+        }
+    }
+}
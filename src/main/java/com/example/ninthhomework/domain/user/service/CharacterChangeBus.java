@@ -0,0 +1,161 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterInvalidationProperties;
+import com.example.ninthhomework.domain.user.model.CharacterChange;
+import com.example.ninthhomework.mapper.CharacterMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// 他のノードでの変更を受け取り、このノードのキャッシュ・IDフィルター・件数に反映する
+@Component
+public class CharacterChangeBus {
+    private static final Logger log = LoggerFactory.getLogger(CharacterChangeBus.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CharacterChangeTransport transport;
+    private final CharacterMapper characterMapper;
+    private final CharacterCache cache;
+    private final CharacterIdFilter idFilter;
+    private final CharacterCounter counter;
+    private final Duration pollInterval;
+    private final long maxLagNanos;
+    private ScheduledExecutorService scheduler;
+    private long lastPolledAt = System.nanoTime();
+    private volatile long appliedPosition;
+
+    public CharacterChangeBus(ObjectProvider<CharacterChangeTransport> transport, CharacterMapper characterMapper,
+                              CharacterCache cache, CharacterIdFilter idFilter, CharacterCounter counter,
+                              CharacterInvalidationProperties properties) {
+        this.transport = transport.getIfAvailable();
+        this.characterMapper = characterMapper;
+        this.cache = cache;
+        this.idFilter = idFilter;
+        this.counter = counter;
+        this.pollInterval = properties.getPollInterval();
+        this.maxLagNanos = properties.getMaxLag().toNanos();
+        this.appliedPosition = this.transport == null ? -1 : this.transport.position();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (transport == null || pollInterval.isZero() || scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "character-change-bus");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = pollInterval.toNanos();
+        scheduler.scheduleWithFixedDelay(this::poll, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    //キャッシュ・IDフィルター・件数に反映済みの変更ログの位置。変更を受け取れない構成では-1を返す
+    public long getAppliedPosition() {
+        return appliedPosition;
+    }
+
+    //指定した位置の後の変更を次回以降のpollで反映し直す
+    public boolean resumeFrom(long position) {
+        if (transport == null || !transport.resumeFrom(position)) {
+            return false;
+        }
+        appliedPosition = position;
+        return true;
+    }
+
+    //変更を書き込むトランザクション内で呼ぶ
+    public void publish(CharacterChange.Type type, int characterId) {
+        if (transport != null) {
+            transport.publish(type, characterId, nodeId);
+        }
+    }
+
+    public void publishAll(CharacterChange.Type type, List<Integer> characterIds) {
+        if (transport != null) {
+            transport.publishAll(type, characterIds, nodeId);
+        }
+    }
+
+    public synchronized void poll() {
+        if (transport == null) {
+            return;
+        }
+        List<CharacterChange> changes;
+        try {
+            changes = transport.poll();
+        } catch (RuntimeException e) {
+            if (System.nanoTime() - lastPolledAt >= maxLagNanos && cache.size() > 0) {
+                log.warn("could not read changes from other nodes for too long, clearing the cache", e);
+                cache.clear();
+                counter.invalidate();
+            } else {
+                log.warn("could not read changes from other nodes", e);
+            }
+            return;
+        }
+        lastPolledAt = System.nanoTime();
+        apply(changes);
+        appliedPosition = transport.position();
+    }
+
+    void apply(List<CharacterChange> changes) {
+        boolean changed = false;
+        boolean reset = false;
+        boolean rebuildIds = false;
+        for (CharacterChange change : changes) {
+            if (nodeId.equals(change.getOrigin())) {
+                continue;
+            }
+            changed = true;
+            switch (change.getType()) {
+                case CREATE -> idFilter.add(change.getCharacterId());
+                case UPDATE -> cache.evict(change.getCharacterId());
+                case UPSERT -> {
+                    cache.evict(change.getCharacterId());
+                    idFilter.add(change.getCharacterId());
+                }
+                case DELETE -> {
+                    cache.evict(change.getCharacterId());
+                    idFilter.remove(change.getCharacterId());
+                }
+                //登録されたIDが分からないため、IDフィルターを読み込み直す
+                case BULK_INSERT -> rebuildIds = true;
+                case RESET -> reset = true;
+            }
+        }
+        if (reset) {
+            cache.clear();
+        }
+        if (reset || rebuildIds) {
+            idFilter.rebuild(characterMapper::findAllIds);
+        }
+        if (changed) {
+            counter.invalidate();
+        }
+    }
+}
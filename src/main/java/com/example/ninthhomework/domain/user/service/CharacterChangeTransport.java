@@ -0,0 +1,28 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.domain.user.model.CharacterChange;
+
+import java.util.List;
+
+// ノード間で変更を伝える手段
+public interface CharacterChangeTransport {
+
+    //書き込みと同じトランザクション内で呼ぶ
+    public void publish(CharacterChange.Type type, int characterId, String origin);
+
+    //複数のキャラクターの変更をまとめて伝える。書き込みと同じトランザクション内で呼ぶ
+    public default void publishAll(CharacterChange.Type type, List<Integer> characterIds, String origin) {
+        for (int characterId : characterIds) {
+            publish(type, characterId, origin);
+        }
+    }
+
+    //前回以降の変更を古い順に返す。同じ変更を複数回返すことがあるため、受け取る側は何度適用しても同じ結果になるようにする
+    public List<CharacterChange> poll();
+
+    //読み込み済みの位置
+    public long position();
+
+    //指定した位置の後から読み直す。現在の位置より後を指定した時は、別のログの位置とみなして何もせずにfalseを返す
+    public boolean resumeFrom(long position);
+}
@@ -0,0 +1,166 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterCountProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+// 全件数と「指定年齢より年上」の件数をメモリ上に保持し、リクエストごとのCOUNT(*)を避ける
+@Component
+public class CharacterCounter {
+    private final int maxCachedAges;
+    private final Map<Integer, Count> olderThan = new HashMap<>();
+    private Count total;
+    private long modifications;
+    private int writesInFlight;
+    //書き込みが1件もない状態から書き込みが始まるたびに増やす
+    private long busyPeriod;
+
+    public CharacterCounter(CharacterCountProperties properties) {
+        this.maxCachedAges = properties.getMaxCachedAges();
+    }
+
+    public long total(LongSupplier loader) {
+        synchronized (this) {
+            if (Objects.nonNull(total)) {
+                return total.value;
+            }
+        }
+        return load(loader, count -> total = count);
+    }
+
+    public long olderThan(int age, LongSupplier loader) {
+        synchronized (this) {
+            Count cached = olderThan.get(age);
+            if (Objects.nonNull(cached)) {
+                return cached.value;
+            }
+        }
+        return load(loader, count -> {
+            if (olderThan.size() < maxCachedAges || olderThan.containsKey(age)) {
+                olderThan.put(age, count);
+            }
+        });
+    }
+
+    //書き込みを行い、成功した時だけ登録した行を件数に反映する
+    public void recordInsert(List<Character> inserted, Runnable write) {
+        beginWrite();
+        try {
+            write.run();
+        } catch (RuntimeException | Error e) {
+            abortWrite();
+            throw e;
+        }
+        endInsert(inserted);
+    }
+
+    //DBへの書き込みの前に呼び、書き込み中に読み込んだ件数に印を付ける
+    //書き込みがコミットされた後にendInsert・endDelete・endUpdate、失敗した時はabortWriteを呼ぶ
+    public synchronized void beginWrite() {
+        if (writesInFlight++ == 0) {
+            busyPeriod++;
+        }
+    }
+
+    //登録した行の年齢だけを使うため、IDは採番前のものでもよい
+    public synchronized void endInsert(List<Character> inserted) {
+        if (Objects.nonNull(total) && !add(total, inserted.size())) {
+            total = null;
+        }
+        for (Character character : inserted) {
+            for (Iterator<Map.Entry<Integer, Count>> it = olderThan.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<Integer, Count> entry = it.next();
+                if (isOlder(character.getAge(), entry.getKey()) && !add(entry.getValue(), 1)) {
+                    it.remove();
+                }
+            }
+        }
+        finishWrite();
+    }
+
+    //削除した行の年齢は書き込みの前に読んだもののため、その年齢が影響する件数は増減させずに読み込み直す
+    public synchronized void endDelete(long deleted, Integer age) {
+        if (Objects.nonNull(total) && !add(total, -deleted)) {
+            total = null;
+        }
+        if (deleted > 0) {
+            olderThan.keySet().removeIf(olderAge -> isOlder(age, olderAge));
+        }
+        finishWrite();
+    }
+
+    //変更前と変更後の年齢の間にある条件の件数だけを読み込み直す
+    public synchronized void endUpdate(Integer before, Integer after) {
+        olderThan.keySet().removeIf(olderAge -> isOlder(before, olderAge) != isOlder(after, olderAge));
+        finishWrite();
+    }
+
+    public synchronized void abortWrite() {
+        finishWrite();
+    }
+
+    //全件の入れ替えなど件数が追えない書き込みの後に呼び、次回はDBから読み込み直す
+    public synchronized void endReplace() {
+        invalidate();
+        finishWrite();
+    }
+
+    //他のノードでの書き込みなど、このノードを通らない変更があった時に呼ぶ
+    public synchronized void invalidate() {
+        total = null;
+        olderThan.clear();
+        modifications++;
+    }
+
+    private void finishWrite() {
+        modifications++;
+        writesInFlight--;
+    }
+
+    //書き込み中に読み込んだ値は増減させられないため、falseを返して捨てさせる
+    private boolean add(Count count, long delta) {
+        if (writesInFlight > 0 && count.busyPeriod == busyPeriod) {
+            return false;
+        }
+        count.value += delta;
+        return true;
+    }
+
+    private static boolean isOlder(Integer characterAge, int age) {
+        return Objects.nonNull(characterAge) && characterAge > age;
+    }
+
+    private long load(LongSupplier loader, Consumer<Count> store) {
+        long before;
+        synchronized (this) {
+            before = modifications;
+        }
+        long value = loader.getAsLong();
+        synchronized (this) {
+            //読み込みの間に終わった書き込みはないため、今書き込み中のものは読み込みの開始時から続いている
+            if (before == modifications) {
+                store.accept(new Count(value, writesInFlight > 0 ? busyPeriod : 0));
+            }
+        }
+        return value;
+    }
+
+    private static final class Count {
+        long value;
+        //書き込み中に読み込んだ時はその時のbusyPeriod、そうでない時は0
+        final long busyPeriod;
+
+        Count(long value, long busyPeriod) {
+            this.value = value;
+            this.busyPeriod = busyPeriod;
+        }
+    }
+}
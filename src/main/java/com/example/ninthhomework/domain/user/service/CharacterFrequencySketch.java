@@ -0,0 +1,133 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterCacheProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// ID指定の検索回数をCount-Min Sketchで概算し、よく読まれるIDの上位を保持する
+@Component
+public class CharacterFrequencySketch {
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x97cb3127, 0xb4f8d2a1, 0xc2b2ae35, 0x85ebca6b};
+
+    private final AtomicIntegerArray counters;
+    private final int mask;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+    private final int topK;
+    private final Map<Integer, Integer> top = new HashMap<>();
+    private volatile int topThreshold;
+
+    public CharacterFrequencySketch(CharacterCacheProperties cache) {
+        int width = Integer.highestOneBit(Math.max(1024, cache.getMaxSize()) - 1) << 1;
+        this.counters = new AtomicIntegerArray(DEPTH * width);
+        this.mask = width - 1;
+        this.sampleSize = width * 10;
+        this.topK = Math.max(0, cache.getTopK());
+    }
+
+    //検索されたIDを記録し、記録後の推定回数を返す
+    public int record(int id) {
+        int[] indexes = indexes(id);
+        int estimate = estimate(indexes);
+        for (int index : indexes) {
+            //他のスレッドが先に増やした時は増やさない。概算のため取りこぼしは許容する
+            counters.compareAndSet(index, estimate, estimate + 1);
+        }
+        estimate++;
+        if (estimate > topThreshold) {
+            offer(id, estimate);
+        }
+        if (additions.incrementAndGet() >= sampleSize) {
+            age();
+        }
+        return estimate;
+    }
+
+    public int frequency(int id) {
+        return estimate(indexes(id));
+    }
+
+    //保存しておいた推定回数を戻す。既に記録された回数の方が多い時はそちらを残す
+    public void restore(int id, int frequency) {
+        int count = Math.min(frequency, sampleSize);
+        if (count <= 0) {
+            return;
+        }
+        for (int index : indexes(id)) {
+            counters.accumulateAndGet(index, count, Math::max);
+        }
+        int estimate = frequency(id);
+        if (estimate > topThreshold) {
+            offer(id, estimate);
+        }
+    }
+
+    //推定回数の多い順に、IDと推定回数を返す
+    public synchronized Map<Integer, Integer> hottest() {
+        Map<Integer, Integer> hottest = new LinkedHashMap<>();
+        top.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> hottest.put(entry.getKey(), entry.getValue()));
+        return hottest;
+    }
+
+    public int getSampleSize() {
+        return sampleSize;
+    }
+
+    private synchronized void offer(int id, int estimate) {
+        if (topK == 0) {
+            return;
+        }
+        top.merge(id, estimate, Math::max);
+        if (top.size() > topK) {
+            top.entrySet().stream()
+                    .min(Map.Entry.comparingByValue(Comparator.naturalOrder()))
+                    .ifPresent(min -> top.remove(min.getKey()));
+        }
+        updateThreshold();
+    }
+
+    private synchronized void age() {
+        if (additions.get() < sampleSize) {
+            return;
+        }
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, counters.get(i) >>> 1);
+        }
+        additions.set(additions.get() >>> 1);
+        top.replaceAll((id, count) -> count >>> 1);
+        top.values().removeIf(count -> count == 0);
+        updateThreshold();
+    }
+
+    private void updateThreshold() {
+        topThreshold = top.size() < topK ? 0 : top.values().stream().mapToInt(Integer::intValue).min().orElse(0);
+    }
+
+    private int estimate(int[] indexes) {
+        int min = Integer.MAX_VALUE;
+        for (int index : indexes) {
+            min = Math.min(min, counters.get(index));
+        }
+        return min;
+    }
+
+    private int[] indexes(int id) {
+        int[] indexes = new int[DEPTH];
+        for (int row = 0; row < DEPTH; row++) {
+            int hash = id * SEEDS[row];
+            hash ^= hash >>> 16;
+            indexes[row] = row * (mask + 1) + (hash & mask);
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,248 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterAsyncProperties;
+import com.example.ninthhomework.config.CharacterHedgeProperties;
+import com.example.ninthhomework.mapper.CancellableQuery;
+import com.example.ninthhomework.mapper.CharacterMapper;
+import com.example.ninthhomework.mapper.CharacterReplica;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+// 主DBの応答が遅い時に同じ問い合わせをレプリカにも送り、先に返った方を使う
+@Component
+public class CharacterHedgedReader {
+    //95パーセンタイルを求める直近の応答時間の数と、レプリカに送り始めるまでに集める数
+    private static final int WINDOW_SIZE = 1000;
+    private static final int MIN_SAMPLES = 100;
+    //レプリカに送る枠は1回分を100として貯め、10回分まで持ち越す
+    private static final long HEDGE_COST = 100;
+    private static final long MAX_BUDGET = HEDGE_COST * 10;
+
+    private final CharacterMapper characterMapper;
+    private final CharacterReplica replica;
+    private final CharacterCache cache;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+    private final long budgetPerRead;
+    private final long minDelayNanos;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong budget = new AtomicLong();
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    public CharacterHedgedReader(CharacterMapper characterMapper, ObjectProvider<CharacterReplica> replica,
+                                 CharacterCache cache, CharacterHedgeProperties hedge,
+                                 CharacterAsyncProperties asyncProperties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.characterMapper = characterMapper;
+        this.replica = replica.getIfAvailable();
+        this.cache = cache;
+        this.meterRegistry = meterRegistry;
+        this.budgetPerRead = Math.max(0, hedge.getBudgetPercent());
+        this.minDelayNanos = hedge.getMinDelay().toNanos();
+        //待ち行列は持たず、主DBとレプリカの接続数を超える問い合わせは受け付けない
+        int threads = asyncProperties.getPoolSize() + hedge.getReplicaPoolSize();
+        this.executor = this.replica == null ? null : new ThreadPoolExecutor(threads, threads, 0,
+                TimeUnit.MILLISECONDS, new SynchronousQueue<>(), new CustomizableThreadFactory("character-hedge-"));
+    }
+
+    @PreDestroy
+    public void close() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    public boolean isEnabled() {
+        return replica != null;
+    }
+
+    //usableを満たさないレプリカの結果は使わない。スレッドが空いていない時は呼び出したスレッドで主DBだけに問い合わせる
+    public <T> T read(String query, Function<CharacterMapper, T> read, Predicate<T> usable) {
+        if (!isEnabled()) {
+            return read.apply(characterMapper);
+        }
+        Stats stats = stats(query);
+        stats.reads.incrementAndGet();
+        budget.accumulateAndGet(budgetPerRead, (current, added) -> Math.min(MAX_BUDGET, current + added));
+        CancellableQuery primaryQuery = new CancellableQuery();
+        long startedAt = System.nanoTime();
+        CompletableFuture<T> primary;
+        try {
+            primary = CompletableFuture.supplyAsync(
+                    RequestDeadline.propagate(() -> primaryQuery.run(() -> read.apply(characterMapper))), executor);
+        } catch (RejectedExecutionException e) {
+            return read.apply(characterMapper);
+        }
+        //取り消した時も取り消すまでの時間を記録し、遅い応答が集計から抜け落ちないようにする
+        primary.whenComplete((value, error) -> stats.record(System.nanoTime() - startedAt));
+        long delay = stats.hedgeDelayNanos(minDelayNanos);
+        if (delay < 0) {
+            return join(primary);
+        }
+        try {
+            return primary.get(delay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            //主DBの応答を待ちきれなかったためレプリカにも送る
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            primaryQuery.cancel();
+            throw new IllegalStateException(e);
+        }
+        if (!acquireBudget()) {
+            stats.skipped.incrementAndGet();
+            return join(primary);
+        }
+        CancellableQuery hedgeQuery = new CancellableQuery();
+        CompletableFuture<T> hedge;
+        try {
+            hedge = CompletableFuture.supplyAsync(
+                    RequestDeadline.propagate(() -> hedgeQuery.run(() -> read.apply(replica.getMapper()))), executor);
+        } catch (RejectedExecutionException e) {
+            stats.skipped.incrementAndGet();
+            return join(primary);
+        }
+        stats.hedged.incrementAndGet();
+        CompletableFuture<T> first = new CompletableFuture<>();
+        primary.whenComplete((value, error) -> {
+            if (error == null) {
+                first.complete(value);
+            } else {
+                first.completeExceptionally(error);
+            }
+        });
+        hedge.whenComplete((value, error) -> {
+            if (error != null || !usable.test(value) || first.isDone()) {
+                return;
+            }
+            cache.skipPendingPuts();
+            if (first.complete(value)) {
+                stats.won.incrementAndGet();
+            }
+        });
+        try {
+            return join(first);
+        } finally {
+            if (!primary.isDone()) {
+                primaryQuery.cancel();
+            }
+            if (!hedge.isDone()) {
+                hedgeQuery.cancel();
+            }
+        }
+    }
+
+    //問い合わせの種類ごとの検索の数
+    public long getReads(String query) {
+        return stats(query).reads.get();
+    }
+
+    //レプリカにも送った数
+    public long getHedged(String query) {
+        return stats(query).hedged.get();
+    }
+
+    //レプリカの結果を使った数
+    public long getWon(String query) {
+        return stats(query).won.get();
+    }
+
+    //枠が足りずにレプリカに送らなかった数
+    public long getSkipped(String query) {
+        return stats(query).skipped.get();
+    }
+
+    private boolean acquireBudget() {
+        long current;
+        do {
+            current = budget.get();
+            if (current < HEDGE_COST) {
+                return false;
+            }
+        } while (!budget.compareAndSet(current, current - HEDGE_COST));
+        return true;
+    }
+
+    private Stats stats(String query) {
+        return stats.computeIfAbsent(query, key -> {
+            Stats created = new Stats();
+            meterRegistry.ifAvailable(registry -> created.bindTo(registry, key));
+            return created;
+        });
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+    }
+
+    // 問い合わせの種類ごとの主DBの応答時間(直近WINDOW_SIZE件)と件数
+    static final class Stats {
+        private final long[] samples = new long[WINDOW_SIZE];
+        private int count;
+        private volatile long p95 = -1;
+        final AtomicLong reads = new AtomicLong();
+        final AtomicLong hedged = new AtomicLong();
+        final AtomicLong won = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+
+        //件数が少ない間は95パーセンタイルを求めず、並べ替えも一定件数ごとに行う
+        synchronized void record(long nanos) {
+            samples[count % WINDOW_SIZE] = nanos;
+            count++;
+            if (count >= MIN_SAMPLES && count % (MIN_SAMPLES / 2) == 0) {
+                long[] sorted = Arrays.copyOf(samples, Math.min(count, WINDOW_SIZE));
+                Arrays.sort(sorted);
+                p95 = sorted[(int) (sorted.length * 0.95)];
+            }
+        }
+
+        //まだ応答時間が集まっていない時は負の値を返す
+        long hedgeDelayNanos(long minDelayNanos) {
+            long current = p95;
+            return current < 0 ? -1 : Math.max(minDelayNanos, current);
+        }
+
+        void bindTo(MeterRegistry registry, String query) {
+            FunctionCounter.builder("characters.hedge.reads", reads, AtomicLong::get)
+                    .tag("query", query).register(registry);
+            FunctionCounter.builder("characters.hedge.sent", hedged, AtomicLong::get)
+                    .tag("query", query).register(registry);
+            FunctionCounter.builder("characters.hedge.won", won, AtomicLong::get)
+                    .tag("query", query).register(registry);
+            FunctionCounter.builder("characters.hedge.skipped", skipped, AtomicLong::get)
+                    .tag("query", query).register(registry);
+            Gauge.builder("characters.hedge.delay", this, stats -> Math.max(0, stats.p95) / 1e9)
+                    .tag("query", query).baseUnit("seconds").register(registry);
+        }
+    }
+}
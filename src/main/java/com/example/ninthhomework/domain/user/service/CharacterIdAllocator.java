@@ -0,0 +1,202 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterIdAllocationProperties;
+import com.example.ninthhomework.config.CharacterInvalidationProperties;
+import com.example.ninthhomework.mapper.CharacterIdSequenceMapper;
+import com.example.ninthhomework.mapper.IdBlock;
+import com.example.ninthhomework.mapper.IdBlockReservation;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 採番テーブルからIDをブロック単位で予約し、登録前にメモリ上でIDを割り当てる(hi/lo)
+@Component
+public class CharacterIdAllocator {
+    private static final Logger log = LoggerFactory.getLogger(CharacterIdAllocator.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CharacterIdSequenceMapper sequenceMapper;
+    private final TransactionOperations transactionOperations;
+    private final int blockSize;
+    private final long lifetimeNanos;
+    //予約されてからこの時間が過ぎたブロックのIDは、登録されていれば変更ログが全ノードに届いている
+    //ブロックの期限の直前に割り当てたIDの書き込みが長引く分として、ブロックの期限をもう1回分待つ
+    private final long settleMillis;
+    //最初に読めるまではnull(全て未確定)
+    private volatile Reserved reserved;
+    private volatile Block block;
+    private ScheduledExecutorService scheduler;
+
+    public CharacterIdAllocator(ObjectProvider<CharacterIdSequenceMapper> sequenceMapper,
+                                TransactionOperations transactionOperations, CharacterIdAllocationProperties allocation,
+                                CharacterInvalidationProperties invalidation) {
+        this.sequenceMapper = sequenceMapper.getIfAvailable();
+        this.transactionOperations = transactionOperations;
+        this.blockSize = Math.max(0, allocation.getBlockSize());
+        this.lifetimeNanos = allocation.getBlockLifetime().toNanos();
+        this.settleMillis = allocation.getBlockLifetime().multipliedBy(2)
+                .plus(invalidation.getMaxLag()).toMillis();
+    }
+
+    //採番テーブルがない構成(memoryプロファイル)やblock-sizeが0の時はDBの自動採番を使う
+    public boolean isEnabled() {
+        return blockSize > 0 && sequenceMapper != null;
+    }
+
+    //書き込みのトランザクションの外で呼ぶ。採番テーブルの行ロックを書き込みが終わるまで持ち続けないようにするため
+    public int next() {
+        Block current = block;
+        if (current != null) {
+            int id = current.take();
+            if (id > 0) {
+                return id;
+            }
+        }
+        return reserve(current);
+    }
+
+    public List<Integer> next(int count) {
+        List<Integer> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(next());
+        }
+        return ids;
+    }
+
+    //ID指定の登録や自動採番の登録と同じトランザクションで呼び、登録されたIDを以降のブロックに含めないようにする
+    public void advancePastExistingIds() {
+        if (sequenceMapper != null) {
+            sequenceMapper.advancePastExistingIds();
+        }
+    }
+
+    //割り当てたIDが登録済みだった時にトランザクションの外で呼び、採番テーブルを進めて残りのブロックを捨てる
+    public synchronized void resync() {
+        advancePastExistingIds();
+        block = null;
+    }
+
+    //起動時に1回読んでから、ブロックの期限ごとに裏のスレッドで読み直す
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!isEnabled() || scheduler != null) {
+            return;
+        }
+        refresh();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "character-id-allocator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, lifetimeNanos);
+        scheduler.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    //IDフィルターに載っていないIDが、他のノードで登録されたばかりで変更ログがまだ届いていない可能性があるか
+    public boolean mayBeUnsettled(int id) {
+        if (!isEnabled()) {
+            return false;
+        }
+        Reserved current = reserved;
+        return current == null || current.mayBeInUse(id);
+    }
+
+    //読んだ後に予約されたブロックは読んだ時のnext_id以上にあるため、next_idを先に読む
+    //読めなかった時は前回の値を使い続け、未確定として扱うIDが減らない側に倒れる
+    void refresh() {
+        try {
+            long nextId = sequenceMapper.findNextId();
+            List<IdBlock> blocks = sequenceMapper.findBlocksReservedWithin(settleMillis, nodeId);
+            reserved = new Reserved(nextId, blocks);
+            sequenceMapper.deleteBlocksOlderThan(settleMillis);
+        } catch (RuntimeException e) {
+            log.warn("could not read character_id_sequence", e);
+        }
+    }
+
+    //使い切ったブロックを見たスレッドのうち、最初の1つだけが予約し直す
+    private synchronized int reserve(Block exhausted) {
+        Block current = block;
+        if (current != null && current != exhausted) {
+            int id = current.take();
+            if (id > 0) {
+                return id;
+            }
+        }
+        IdBlockReservation reservation = new IdBlockReservation(blockSize);
+        //他のノードがnext_idとブロックを続けて読んだ時に、進んだnext_idだけが見えることのないよう1つのトランザクションで記録する
+        transactionOperations.executeWithoutResult(status -> {
+            if (sequenceMapper.reserve(reservation) != 1) {
+                throw new IllegalStateException("character_id_sequence has no row for characters");
+            }
+            sequenceMapper.insertBlock(reservation.getStart(), reservation.getEnd(), nodeId);
+        });
+        block = new Block(reservation.getStart() + 1, reservation.getEnd(), System.nanoTime() + lifetimeNanos);
+        return Math.toIntExact(reservation.getStart());
+    }
+
+    //読んだ時点のnext_idと、他のノードが使っている可能性のあるブロック
+    private static final class Reserved {
+        private final long nextId;
+        private final List<IdBlock> blocks;
+
+        Reserved(long nextId, List<IdBlock> blocks) {
+            this.nextId = nextId;
+            this.blocks = List.copyOf(blocks);
+        }
+
+        boolean mayBeInUse(int id) {
+            if (id >= nextId) {
+                return true;
+            }
+            for (IdBlock block : blocks) {
+                if (block.contains(id)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+        private final long expiresAt;
+
+        Block(long next, long end, long expiresAt) {
+            this.next = new AtomicLong(next);
+            this.end = end;
+            this.expiresAt = expiresAt;
+        }
+
+        //使い切った時と期限が過ぎた時は0を返す
+        int take() {
+            if (System.nanoTime() - expiresAt >= 0) {
+                return 0;
+            }
+            long id = next.getAndIncrement();
+            return id < end ? Math.toIntExact(id) : 0;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterIdFilterProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+// 存在するIDをビット列で保持し、確実に存在しないIDへの問い合わせをDBに届く前に打ち切る
+@Component
+public class CharacterIdFilter {
+    private final int maxId;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private BitSet ids = new BitSet();
+    private final BitSet addedDuringRebuild = new BitSet();
+    private int highestKnownId;
+    private boolean ready;
+
+    public CharacterIdFilter(CharacterIdFilterProperties properties) {
+        this.maxId = properties.getMaxId();
+    }
+
+    public boolean mightExist(int id) {
+        lock.readLock().lock();
+        try {
+            return !ready || id < 0 || id > highestKnownId || id > maxId || ids.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(int id) {
+        if (!isStorable(id)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ids.set(id);
+            addedDuringRebuild.set(id);
+            highestKnownId = Math.max(highestKnownId, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //DBで存在を確認できたIDを反映する。既に反映済みの時は書き込みロックを取らない
+    //他のノードが登録したIDの可能性があるため、把握している最大IDは引き上げない
+    public void confirm(int id) {
+        if (!isStorable(id)) {
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            if (ids.get(id)) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        lock.writeLock().lock();
+        try {
+            ids.set(id);
+            addedDuringRebuild.set(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        if (!isStorable(id)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ids.clear(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //読み込み中に登録されたIDは読み込み結果に含まれない可能性があるため、構築後に合わせて反映する
+    public void rebuild(Supplier<List<Integer>> loader) {
+        lock.writeLock().lock();
+        try {
+            addedDuringRebuild.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<Integer> loaded = loader.get();
+        BitSet fresh = new BitSet();
+        int highest = 0;
+        for (int id : loaded) {
+            if (isStorable(id)) {
+                fresh.set(id);
+                highest = Math.max(highest, id);
+            }
+        }
+        lock.writeLock().lock();
+        try {
+            fresh.or(addedDuringRebuild);
+            ids = fresh;
+            highestKnownId = Math.max(highest, highestKnownId);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean isStorable(int id) {
+        return id >= 0 && id <= maxId;
+    }
+}
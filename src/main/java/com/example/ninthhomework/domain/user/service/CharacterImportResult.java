@@ -0,0 +1,58 @@
+package com.example.ninthhomework.domain.user.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+//一括登録の結果。エラーの詳細は先頭から一定件数までを返す
+public class CharacterImportResult {
+    static final int MAX_ERRORS = 100;
+
+    private long accepted;
+    private long rejected;
+    private final List<LineError> errors = new ArrayList<>();
+
+    void accept(int rows) {
+        accepted += rows;
+    }
+
+    void reject(long line, String message) {
+        reject(line, message, 1);
+    }
+
+    void reject(long line, String message, int rows) {
+        rejected += rows;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new LineError(line, message));
+        }
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public List<LineError> getErrors() {
+        return errors;
+    }
+
+    public static class LineError {
+        private final long line;
+        private final String message;
+
+        public LineError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
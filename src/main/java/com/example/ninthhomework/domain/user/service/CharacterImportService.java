@@ -0,0 +1,206 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterBulkImportProperties;
+import com.example.ninthhomework.controller.CreateForm;
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.model.CharacterChange;
+import com.example.ninthhomework.mapper.CharacterMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// CSV・NDJSONを1行ずつ検証し、一定件数ごとにまとめて登録する
+@Service
+public class CharacterImportService {
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    private final CharacterMapper characterMapper;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final CharacterCounter counter;
+    private final CharacterChangeBus changeBus;
+    private final CharacterIdFilter idFilter;
+    private final CharacterIdAllocator idAllocator;
+    private final int chunkSize;
+
+    public CharacterImportService(CharacterMapper characterMapper, Validator validator,
+                                  TransactionTemplate transactionTemplate, ObjectMapper objectMapper,
+                                  CharacterCounter counter, CharacterChangeBus changeBus,
+                                  CharacterIdFilter idFilter, CharacterIdAllocator idAllocator,
+                                  CharacterBulkImportProperties properties) {
+        this.characterMapper = characterMapper;
+        this.counter = counter;
+        this.changeBus = changeBus;
+        this.idFilter = idFilter;
+        this.idAllocator = idAllocator;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, properties.getChunkSize());
+    }
+
+    public CharacterImportResult importFrom(BufferedReader reader, Format format) throws IOException {
+        CharacterImportResult result = new CharacterImportResult();
+        List<Character> chunk = new ArrayList<>(chunkSize);
+        long chunkFirstLine = 0;
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && format == Format.CSV && isCsvHeader(line))) {
+                continue;
+            }
+            CreateForm form;
+            try {
+                form = format == Format.CSV ? parseCsv(line) : parseJson(line);
+            } catch (IllegalArgumentException e) {
+                result.reject(lineNumber, e.getMessage());
+                continue;
+            }
+            Set<ConstraintViolation<CreateForm>> violations = validator.validate(form);
+            if (!violations.isEmpty()) {
+                result.reject(lineNumber, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+                continue;
+            }
+            if (chunk.isEmpty()) {
+                chunkFirstLine = lineNumber;
+            }
+            chunk.add(new Character(form.getName(), form.getAge()));
+            if (chunk.size() == chunkSize) {
+                flush(chunk, chunkFirstLine, lineNumber, result);
+            }
+        }
+        flush(chunk, chunkFirstLine, lineNumber, result);
+        return result;
+    }
+
+    private void flush(List<Character> chunk, long firstLine, long lastLine, CharacterImportResult result) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            if (idAllocator.isEnabled()) {
+                insertWithAllocatedIds(chunk);
+            } else {
+                counter.recordInsert(chunk, () ->
+                        transactionTemplate.executeWithoutResult(status -> {
+                            characterMapper.insertCharacters(chunk);
+                            idAllocator.advancePastExistingIds();
+                            changeBus.publish(CharacterChange.Type.BULK_INSERT, 0);
+                        }));
+            }
+            result.accept(chunk.size());
+        } catch (DataAccessException e) {
+            if (e instanceof DuplicateKeyException && idAllocator.isEnabled()) {
+                idAllocator.resync();
+            }
+            String message = "lines " + firstLine + "-" + lastLine + " were not inserted: "
+                    + e.getMostSpecificCause().getMessage();
+            result.reject(firstLine, message, chunk.size());
+        }
+        chunk.clear();
+    }
+
+    //IDを割り当ててから登録するため、他のノードはIDフィルターを読み込み直さずに登録されたIDだけを反映できる
+    private void insertWithAllocatedIds(List<Character> chunk) {
+        List<Integer> ids = idAllocator.next(chunk.size());
+        List<Character> characters = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            characters.add(new Character(ids.get(i), chunk.get(i).getName(), chunk.get(i).getAge()));
+        }
+        counter.recordInsert(characters, () ->
+                transactionTemplate.executeWithoutResult(status -> {
+                    characterMapper.insertCharacters(characters);
+                    changeBus.publishAll(CharacterChange.Type.CREATE, ids);
+                }));
+        ids.forEach(idFilter::add);
+    }
+
+    private static boolean isCsvHeader(String line) {
+        return line.replace(" ", "").replace("\"", "").equalsIgnoreCase("name,age");
+    }
+
+    //名前はダブルクォートで囲むとカンマや "" (ダブルクォート自体) を含められる
+    private static CreateForm parseCsv(String line) {
+        List<String> fields = new ArrayList<>(2);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("unterminated quoted field");
+        }
+        fields.add(field.toString());
+        if (fields.size() != 2) {
+            throw new IllegalArgumentException("expected 2 columns (name,age) but got " + fields.size());
+        }
+        String age = fields.get(1).trim();
+        return new CreateForm(fields.get(0), age.isEmpty() ? null : parseAge(age));
+    }
+
+    private CreateForm parseJson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("malformed JSON: " + e.getOriginalMessage());
+        }
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("expected a JSON object");
+        }
+        JsonNode name = node.path("name");
+        JsonNode age = node.path("age");
+        if (age.isMissingNode() || age.isNull()) {
+            return new CreateForm(name.isTextual() ? name.textValue() : null, null);
+        }
+        if (!age.isIntegralNumber() || !age.canConvertToInt()) {
+            throw new IllegalArgumentException("age must be an integer");
+        }
+        return new CreateForm(name.isTextual() ? name.textValue() : null, age.intValue());
+    }
+
+    private static Integer parseAge(String value) {
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("age must be an integer");
+        }
+    }
+}
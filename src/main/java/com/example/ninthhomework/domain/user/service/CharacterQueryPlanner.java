@@ -0,0 +1,52 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.domain.user.model.CharacterQuery;
+import com.example.ninthhomework.mapper.CharacterMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+// 一覧検索をメモリ上で処理するか、動的SQLで処理するかを条件ごとに決める
+@Component
+public class CharacterQueryPlanner {
+    private static final Logger log = LoggerFactory.getLogger(CharacterQueryPlanner.class);
+
+    public enum Plan {
+        //結果が必ず空になるため問い合わせない
+        EMPTY,
+        //Mapperが全件をメモリ上に持っているため、その配列を直接絞り込む
+        IN_MEMORY,
+        //絞り込みも件数制限もないため、全件取得の結果をメモリ上で並べ替える
+        FULL_LIST,
+        //動的SQLで絞り込み、年齢・名前の複合インデックスを使う
+        DATABASE
+    }
+
+    private final CharacterMapper characterMapper;
+
+    public CharacterQueryPlanner(CharacterMapper characterMapper) {
+        this.characterMapper = characterMapper;
+    }
+
+    public Plan plan(CharacterQuery query) {
+        Plan plan;
+        String reason;
+        if (query.isUnsatisfiable()) {
+            plan = Plan.EMPTY;
+            reason = "conditions can never match";
+        } else if (characterMapper.isInMemory()) {
+            plan = Plan.IN_MEMORY;
+            reason = "all rows are held in memory";
+        } else if (!query.hasFilter() && query.getLimit() == null
+                && query.getSortKey() != CharacterQuery.SortKey.NAME) {
+            //名前の並び順は列の照合順序に任せるため、数値で並べる時だけ全件取得とまとめる
+            plan = Plan.FULL_LIST;
+            reason = "no filter or limit, sorting the full list by a number";
+        } else {
+            plan = Plan.DATABASE;
+            reason = "filtered or sorted in SQL";
+        }
+        log.debug("query plan {} for {} ({})", plan, query, reason);
+        return plan;
+    }
+}
@@ -1,8 +1,10 @@
 package com.example.ninthhomework.domain.user.service;
 
 import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.model.CharacterQuery;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface CharacterService {
 
@@ -14,8 +16,21 @@ public interface CharacterService {
 
     public Character updateCharacter(int id, String name, Integer age);
 
+    public Character upsertCharacter(int id, String name, Integer age);
+
+    public void upsertCharacters(List<Character> characters);
+
     public Character findById(int id);
 
+    //DBを読まずに、キャッシュにある値だけを返す
+    public Optional<Character> findCachedById(int id);
+
+    public List<Character> findByIds(List<Integer> ids);
+
+    public List<Character> search(CharacterQuery query);
+
+    public long count(Integer age);
+
     public void deleteCharacter(int id);
 
 }
@@ -1,53 +1,312 @@
 package com.example.ninthhomework.domain.user.service;
 
+import com.example.ninthhomework.config.CharacterAsyncProperties;
+import com.example.ninthhomework.config.CharacterBatchProperties;
 import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.model.CharacterChange;
+import com.example.ninthhomework.domain.user.model.CharacterQuery;
 import com.example.ninthhomework.exception.NotFoundException;
 import com.example.ninthhomework.mapper.CharacterMapper;
+import com.example.ninthhomework.mapper.NewCharacter;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 @Service
 public class CharacterServiceImpl implements CharacterService {
+    //割り当てたIDが登録済みだった時に、採番テーブルを進めて登録し直す回数
+    private static final int MAX_ALLOCATED_ID_ATTEMPTS = 3;
+
     private final CharacterMapper characterMapper;
+    private final CharacterIdFilter idFilter;
+    private final CharacterCounter counter;
+    private final CharacterQueryPlanner queryPlanner;
+    private final CharacterCache cache;
+    private final CharacterChangeBus changeBus;
+    private final CharacterIdAllocator idAllocator;
+    private final CharacterHedgedReader hedgedReader;
+    private final TransactionOperations transactionOperations;
+    private final SingleFlight<Integer, Character> findByIdFlight = new SingleFlight<>();
+    private final SingleFlight<String, List<Character>> findListFlight = new SingleFlight<>();
+    private final MicroBatcher<Integer, Character> findByIdBatcher;
+    private final WriteCombiner<Integer, UnaryOperator<Character>, Character> updateCombiner;
 
-    public CharacterServiceImpl(CharacterMapper characterMapper) {
+    public CharacterServiceImpl(CharacterMapper characterMapper, CharacterBatchProperties batchProperties,
+                                CharacterAsyncProperties asyncProperties,
+                                CharacterIdFilter idFilter, CharacterCounter counter,
+                                CharacterQueryPlanner queryPlanner, CharacterCache cache,
+                                CharacterChangeBus changeBus, CharacterIdAllocator idAllocator,
+                                CharacterHedgedReader hedgedReader, TransactionOperations transactionOperations) {
         this.characterMapper = characterMapper;
+        this.idFilter = idFilter;
+        this.counter = counter;
+        this.queryPlanner = queryPlanner;
+        this.cache = cache;
+        this.changeBus = changeBus;
+        this.idAllocator = idAllocator;
+        this.hedgedReader = hedgedReader;
+        this.transactionOperations = transactionOperations;
+        //まとめ読み込みはDBの接続数と同じ数のスレッドで行う
+        this.findByIdBatcher = new MicroBatcher<>(batchProperties.getWindow(),
+                batchProperties.getMaxSize(), asyncProperties.getPoolSize(), this::loadByIds);
+        this.updateCombiner = new WriteCombiner<>(
+                batchProperties.getUpdateWindow(), batchProperties.getUpdateMaxSize(), this::applyUpdates);
+    }
+
+    @PreDestroy
+    public void close() {
+        findByIdBatcher.close();
+    }
+
+    //起動時に存在するIDを読み込み、存在しないIDの検索をDBに問い合わせずに返せるようにする
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIdFilter() {
+        idFilter.rebuild(characterMapper::findAllIds);
     }
 
     @Override
     public List<Character> getCharacters() {
-        return characterMapper.findAll();
+        return findListFlight.execute("all", () -> query(characterMapper::findAll));
     }
 
+    //同じ条件の検索が同時に来た時はDBへの問い合わせを1回にまとめる
     public List<Character> findByAge(Integer age) {
         if (Objects.isNull(age)) {
-            return characterMapper.findAll();
+            return getCharacters();
         } else {
-            return characterMapper.searchByAge(age);
+            return findListFlight.execute("age:" + age, () -> query(() -> characterMapper.searchByAge(age)));
         }
     }
 
+    public List<Character> search(CharacterQuery query) {
+        return switch (queryPlanner.plan(query)) {
+            case EMPTY -> List.of();
+            case FULL_LIST -> query.apply(getCharacters().stream());
+            case IN_MEMORY, DATABASE -> query(() -> characterMapper.searchByQuery(query));
+        };
+    }
+
+    //年齢の指定がない時は全件数、指定ありの時は指定された年齢より年上の件数を返す
+    public long count(Integer age) {
+        if (Objects.isNull(age)) {
+            return counter.total(() -> query(characterMapper::countAll));
+        }
+        return counter.olderThan(age, () -> query(() -> characterMapper.countByAge(age)));
+    }
+
     public Character findById(int id) {
-        return this.characterMapper.searchById(id).orElseThrow(() -> new NotFoundException(id));
+        requireMightExist(id);
+        Character cached = cache.get(id);
+        if (Objects.nonNull(cached)) {
+            return cached;
+        }
+        long stamp = cache.stamp();
+        Character character = findByIdFlight.execute(id,
+                () -> loadById(id).orElseThrow(() -> new NotFoundException(id)));
+        cache.put(character, stamp);
+        idFilter.confirm(id);
+        return character;
+    }
+
+    public Optional<Character> findCachedById(int id) {
+        requireMightExist(id);
+        return Optional.ofNullable(cache.getIfPresent(id));
+    }
+
+    public List<Character> findByIds(List<Integer> ids) {
+        List<Integer> candidates = ids.stream().distinct().filter(this::mightExist).toList();
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        return query(() -> characterMapper.searchByIds(candidates));
     }
 
     public Character createCharacter(String name, Integer age) {
-        Character character = new Character(name, age);
-        characterMapper.createCharacter(character);
-        return character;
+        if (idAllocator.isEnabled()) {
+            return createWithAllocatedId(name, age);
+        }
+        NewCharacter newCharacter = new NewCharacter(name, age);
+        write(() -> {
+            characterMapper.createCharacter(newCharacter);
+            idAllocator.advancePastExistingIds();
+            changeBus.publish(CharacterChange.Type.CREATE, newCharacter.getId());
+            return newCharacter;
+        }, created -> {
+            counter.endInsert(List.of(created.toCharacter()));
+            idFilter.add(created.getId());
+        });
+        return newCharacter.toCharacter();
     }
 
+    //同じIDへの更新が続けて届いた時は、届いた順に項目ごとに後の値で上書きして1回のUPDATEにまとめる
+    //まとめた時はどの呼び出し元にもまとめた後の値を返す
     public Character updateCharacter(int id, String name, Integer age) {
-        Character character = characterMapper.searchById(id).orElseThrow(() -> new NotFoundException(id));
-        character.update(name, age);
-        characterMapper.updateCharacter(character);
+        requireMightExist(id);
+        UnaryOperator<Character> update = current -> current.updated(name, age);
+        if (updateCombiner.isEnabled()) {
+            return updateCombiner.write(id, update);
+        }
+        return applyUpdates(id, List.of(update));
+    }
+
+    private Character applyUpdates(int id, List<UnaryOperator<Character>> updates) {
+        Character current = query(() -> characterMapper.searchById(id)).orElseThrow(() -> new NotFoundException(id));
+        Character merged = current;
+        for (UnaryOperator<Character> update : updates) {
+            merged = update.apply(merged);
+        }
+        Character character = merged;
+        write(() -> {
+            characterMapper.updateCharacter(character);
+            changeBus.publish(CharacterChange.Type.UPDATE, id);
+            return character;
+        }, updated -> {
+            counter.endUpdate(current.getAge(), updated.getAge());
+            cache.evict(id);
+        });
+        return character;
+    }
+
+    //IDを指定した登録・置き換えを、存在確認をせずに1回の問い合わせで行う
+    public Character upsertCharacter(int id, String name, Integer age) {
+        Character character = new Character(id, name, age);
+        upsert(List.of(character), () -> characterMapper.upsertCharacter(character));
         return character;
     }
 
+    public void upsertCharacters(List<Character> characters) {
+        if (characters.isEmpty()) {
+            return;
+        }
+        upsert(characters, () -> characterMapper.upsertCharacters(characters));
+    }
+
     public void deleteCharacter(int id) {
-        characterMapper.searchById(id).orElseThrow(() -> new NotFoundException(id));
-        characterMapper.deleteCharacter(id);
+        requireMightExist(id);
+        Character current = query(() -> characterMapper.searchById(id)).orElseThrow(() -> new NotFoundException(id));
+        write(() -> {
+            int deleted = characterMapper.deleteCharacter(id);
+            if (deleted > 0) {
+                changeBus.publish(CharacterChange.Type.DELETE, id);
+            }
+            return deleted;
+        }, deleted -> {
+            counter.endDelete(deleted, current.getAge());
+            cache.evict(id);
+            idFilter.remove(id);
+        });
+    }
+
+    //登録前に割り当てたIDで登録し、生成されたIDを読み戻さない
+    private Character createWithAllocatedId(String name, Integer age) {
+        for (int attempt = 1; ; attempt++) {
+            Character character = new Character(idAllocator.next(), name, age);
+            try {
+                write(() -> {
+                    characterMapper.insertCharacters(List.of(character));
+                    changeBus.publish(CharacterChange.Type.CREATE, character.getId());
+                    return character;
+                }, created -> {
+                    counter.endInsert(List.of(created));
+                    idFilter.add(created.getId());
+                });
+                return character;
+            } catch (DuplicateKeyException e) {
+                if (attempt >= MAX_ALLOCATED_ID_ATTEMPTS) {
+                    throw e;
+                }
+                idAllocator.resync();
+            }
+        }
+    }
+
+    private void upsert(List<Character> characters, Runnable upsert) {
+        List<Integer> ids = characters.stream().map(Character::getId).toList();
+        write(() -> {
+            upsert.run();
+            idAllocator.advancePastExistingIds();
+            changeBus.publishAll(CharacterChange.Type.UPSERT, ids);
+            return ids;
+        }, upserted -> {
+            //影響行数からは登録と変更のない置き換えを区別できないため、件数は次回DBから読み込む
+            counter.endReplace();
+            for (int id : upserted) {
+                cache.evict(id);
+                idFilter.add(id);
+            }
+        });
+    }
+
+    //書き込みと変更ログの記録を1つのトランザクションで行い、件数・キャッシュ・IDフィルターにはコミット後に反映する
+    private <T> void write(Supplier<T> write, Consumer<T> afterCommit) {
+        RequestDeadline.checkCurrent();
+        counter.beginWrite();
+        T result;
+        try {
+            result = transactionOperations.execute(status -> write.get());
+        } catch (RuntimeException | Error e) {
+            counter.abortWrite();
+            throw e;
+        }
+        TransactionCallbacks.afterCompletion(committed -> {
+            if (committed) {
+                afterCommit.accept(result);
+            } else {
+                counter.abortWrite();
+            }
+        });
+    }
+
+    private void requireMightExist(int id) {
+        if (!mightExist(id)) {
+            throw new NotFoundException(id);
+        }
+    }
+
+    //他のノードが予約したIDは登録順に並ばないため、変更ログが届く前のIDも存在するかもしれないとして扱う
+    private boolean mightExist(int id) {
+        return idFilter.mightExist(id) || idAllocator.mayBeUnsettled(id);
     }
+
+    //リクエストの処理期限が過ぎている時はDBへ問い合わせない
+    private static <T> T query(Supplier<T> query) {
+        RequestDeadline.checkCurrent();
+        return query.get();
+    }
+
+    //同時に届いたID指定の検索はIN句1回の問い合わせにまとめる
+    //まとめた問い合わせは複数のリクエストで共有するため、個々の処理期限はまとめる前に確認する
+    private Optional<Character> loadById(int id) {
+        RequestDeadline.checkCurrent();
+        if (findByIdBatcher.isEnabled()) {
+            return Optional.ofNullable(findByIdBatcher.load(id));
+        }
+        if (hedgedReader.isEnabled()) {
+            return hedgedReader.read("findById", mapper -> mapper.searchById(id), Optional::isPresent);
+        }
+        return characterMapper.searchById(id);
+    }
+
+    //レプリカに複製される前のキャラクターを見つからなかったとしないよう、レプリカの結果は全て見つかった時だけ使う
+    private Map<Integer, Character> loadByIds(List<Integer> ids) {
+        List<Character> found = hedgedReader.isEnabled()
+                ? hedgedReader.read("findById", mapper -> mapper.searchByIds(ids),
+                        characters -> characters.size() == ids.size())
+                : characterMapper.searchByIds(ids);
+        return found.stream().collect(Collectors.toMap(Character::getId, Function.identity()));
+    }
+
 }
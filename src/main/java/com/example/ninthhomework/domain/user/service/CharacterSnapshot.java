@@ -0,0 +1,156 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.domain.user.model.Character;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+// キャラクター全件をまとめて保存・復元するための列ごとのバイナリ形式
+public final class CharacterSnapshot {
+    public static final int VERSION = 1;
+    private static final byte[] MAGIC = {'C', 'H', 'R', 'S'};
+
+    private CharacterSnapshot() {
+    }
+
+    //[CHRS][版][件数]の後にID列・年齢列(nullのビット列付き)・名前列を[列のバイト数][列データ]で並べる
+    public static void write(List<Character> characters, Path path) throws IOException {
+        int count = characters.size();
+        byte[][] names = new byte[count][];
+        int namesBytes = 0;
+        for (int i = 0; i < count; i++) {
+            String name = characters.get(i).getName();
+            names[i] = name == null ? null : name.getBytes(StandardCharsets.UTF_8);
+            namesBytes += Integer.BYTES + (name == null ? 0 : names[i].length);
+        }
+        byte[] ageNulls = new byte[(count + 7) / 8];
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            out.write(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+
+            out.writeInt(count * Integer.BYTES);
+            for (Character character : characters) {
+                out.writeInt(character.getId());
+            }
+
+            out.writeInt(count * Integer.BYTES + ageNulls.length);
+            for (int i = 0; i < count; i++) {
+                Integer age = characters.get(i).getAge();
+                if (age == null) {
+                    ageNulls[i >> 3] |= (byte) (1 << (i & 7));
+                }
+                out.writeInt(age == null ? 0 : age);
+            }
+            out.write(ageNulls);
+
+            out.writeInt(namesBytes);
+            for (byte[] name : names) {
+                out.writeInt(name == null ? -1 : name.length);
+                if (name != null) {
+                    out.write(name);
+                }
+            }
+        }
+    }
+
+    public static List<Character> read(Path path) throws IOException {
+        List<Character> characters = new ArrayList<>();
+        read(path, 1000, characters::addAll);
+        return characters;
+    }
+
+    //ファイルをメモリマップし、chunkSize件ずつ復元してchunkに渡す。全件を一度にヒープへ載せない
+    //壊れたファイルで途中まで渡すことがないよう、列の長さと名前の長さを先に全て確認する
+    public static int read(Path path, int chunkSize, Consumer<List<Character>> chunk) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            byte[] magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            if (!Arrays.equals(magic, MAGIC)) {
+                throw new IllegalArgumentException("not a character snapshot: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("unsupported snapshot version: " + version);
+            }
+            int count = buffer.getInt();
+            //件数が壊れている時は、0件として全件を削除することのないよう列を読む前に止める
+            if (count < 0) {
+                throw new IllegalArgumentException("corrupted snapshot header");
+            }
+            int idsBytes;
+            int agesBytes;
+            try {
+                idsBytes = Math.multiplyExact(count, Integer.BYTES);
+                agesBytes = Math.addExact(idsBytes, (count + 7) / 8);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("corrupted snapshot header", e);
+            }
+
+            ByteBuffer ids = column(buffer, idsBytes);
+            ByteBuffer ages = column(buffer, agesBytes);
+            ByteBuffer names = column(buffer, -1);
+
+            validateNames(names.duplicate(), count);
+
+            int nullsOffset = idsBytes;
+            int size = Math.max(1, chunkSize);
+            List<Character> characters = new ArrayList<>(Math.min(count, size));
+            for (int i = 0; i < count; i++) {
+                boolean ageIsNull = (ages.get(nullsOffset + (i >> 3)) & (1 << (i & 7))) != 0;
+                Integer age = ageIsNull ? null : ages.getInt(i * Integer.BYTES);
+                int nameLength = names.getInt();
+                String name = null;
+                if (nameLength >= 0) {
+                    byte[] nameBytes = new byte[nameLength];
+                    names.get(nameBytes);
+                    name = new String(nameBytes, StandardCharsets.UTF_8);
+                }
+                characters.add(new Character(ids.getInt(i * Integer.BYTES), name, age));
+                if (characters.size() == size) {
+                    chunk.accept(characters);
+                    characters = new ArrayList<>(Math.min(count - i - 1, size));
+                }
+            }
+            if (!characters.isEmpty()) {
+                chunk.accept(characters);
+            }
+            return count;
+        }
+    }
+
+    private static void validateNames(ByteBuffer names, int count) {
+        for (int i = 0; i < count; i++) {
+            int length = names.remaining() >= Integer.BYTES ? names.getInt() : Integer.MIN_VALUE;
+            if (length < -1 || length > names.remaining()) {
+                throw new IllegalArgumentException("corrupted snapshot column");
+            }
+            names.position(names.position() + Math.max(0, length));
+        }
+    }
+
+    //列の長さを確認し、列データだけを切り出す
+    private static ByteBuffer column(ByteBuffer buffer, int expectedBytes) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining() || (expectedBytes >= 0 && length != expectedBytes)) {
+            throw new IllegalArgumentException("corrupted snapshot column");
+        }
+        ByteBuffer column = buffer.slice(buffer.position(), length);
+        buffer.position(buffer.position() + length);
+        return column;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.ninthhomework.domain.user.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.List;
+
+// 起動引数(--snapshot.export・--snapshot.import)でスナップショットの出力・復元を行う
+@Component
+public class CharacterSnapshotRunner implements ApplicationRunner {
+    private static final Logger log = LoggerFactory.getLogger(CharacterSnapshotRunner.class);
+
+    private final CharacterSnapshotService snapshotService;
+
+    public CharacterSnapshotRunner(CharacterSnapshotService snapshotService) {
+        this.snapshotService = snapshotService;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        List<String> imports = args.getOptionValues("snapshot.import");
+        if (imports != null) {
+            for (String path : imports) {
+                int imported = snapshotService.importFrom(Path.of(path));
+                log.info("imported {} characters from {}", imported, path);
+            }
+        }
+        List<String> exports = args.getOptionValues("snapshot.export");
+        if (exports != null) {
+            for (String path : exports) {
+                int exported = snapshotService.exportTo(Path.of(path));
+                log.info("exported {} characters to {}", exported, path);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterSnapshotProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.model.CharacterChange;
+import com.example.ninthhomework.mapper.CharacterMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+@Service
+public class CharacterSnapshotService {
+    private final CharacterMapper characterMapper;
+    private final CharacterIdFilter idFilter;
+    private final CharacterCounter counter;
+    private final CharacterCache cache;
+    private final CharacterChangeBus changeBus;
+    private final CharacterIdAllocator idAllocator;
+    private final int batchSize;
+    private final boolean importEndpointEnabled;
+
+    public CharacterSnapshotService(CharacterMapper characterMapper, CharacterIdFilter idFilter,
+                                    CharacterCounter counter, CharacterCache cache, CharacterChangeBus changeBus,
+                                    CharacterIdAllocator idAllocator, CharacterSnapshotProperties properties) {
+        this.characterMapper = characterMapper;
+        this.idFilter = idFilter;
+        this.counter = counter;
+        this.cache = cache;
+        this.changeBus = changeBus;
+        this.idAllocator = idAllocator;
+        this.batchSize = Math.max(1, properties.getBatchSize());
+        this.importEndpointEnabled = properties.isImportEndpointEnabled();
+    }
+
+    public boolean isImportEndpointEnabled() {
+        return importEndpointEnabled;
+    }
+
+    public int exportTo(Path path) throws IOException {
+        List<Character> characters = characterMapper.findAll();
+        CharacterSnapshot.write(characters, path);
+        return characters.size();
+    }
+
+    //全件をbatch-size件ずつ入れ替える。memoryプロファイルでは途中で失敗した時に途中までの状態が残る
+    @Transactional(rollbackFor = Exception.class)
+    public int importFrom(Path path) throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        int imported;
+        counter.beginWrite();
+        try {
+            imported = replaceAll(path, ids);
+            idAllocator.advancePastExistingIds();
+            changeBus.publish(CharacterChange.Type.RESET, 0);
+        } catch (RuntimeException | Error e) {
+            counter.endReplace();
+            throw e;
+        }
+        //件数はロールバックした時も含めて読み込み直し、IDとキャッシュはコミットした時だけ入れ替える
+        TransactionCallbacks.afterCompletion(committed -> {
+            counter.endReplace();
+            if (committed) {
+                cache.clear();
+                idFilter.rebuild(() -> ids);
+            }
+        });
+        return imported;
+    }
+
+    //IDフィルターを作り直すため、登録したIDだけは全件分を残す
+    private int replaceAll(Path path, List<Integer> ids) throws IOException {
+        boolean[] deleted = {false};
+        int imported = CharacterSnapshot.read(path, batchSize, chunk -> {
+            if (!deleted[0]) {
+                characterMapper.deleteAll();
+                deleted[0] = true;
+            }
+            characterMapper.insertCharacters(chunk);
+            chunk.forEach(character -> ids.add(character.getId()));
+        });
+        if (!deleted[0]) {
+            characterMapper.deleteAll();
+        }
+        return imported;
+    }
+}
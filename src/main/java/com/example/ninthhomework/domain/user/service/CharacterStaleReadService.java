@@ -0,0 +1,190 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterStaleProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.exception.NotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// DBが遅い・止まっている時に、最後に読めた値をmax-staleness以内であれば返す(stale-while-revalidate)
+@Service
+public class CharacterStaleReadService {
+    private static final Logger log = LoggerFactory.getLogger(CharacterStaleReadService.class);
+
+    private final CharacterService characterService;
+    private final CharacterAsyncService asyncService;
+    private final long latencyBudgetNanos;
+    private final long maxStalenessNanos;
+    private final LastKnown<Integer, Character> characters;
+    private final LastKnown<Optional<Integer>, List<Character>> lists;
+
+    public CharacterStaleReadService(CharacterService characterService, CharacterAsyncService asyncService,
+                                     CharacterCache cache, CharacterStaleProperties stale) {
+        this.characterService = characterService;
+        this.asyncService = asyncService;
+        this.latencyBudgetNanos = stale.getLatencyBudget().toNanos();
+        this.maxStalenessNanos = stale.getMaxStaleness().toNanos();
+        this.characters = new LastKnown<>(stale.getMaxEntries());
+        this.lists = new LastKnown<>(stale.getMaxLists());
+        cache.addEvictionListener(new CharacterCache.EvictionListener() {
+            @Override
+            public void evicted(int id) {
+                characters.remove(id);
+                //どの一覧に含まれていたか分からないため、一覧は全て捨てる
+                lists.clear();
+            }
+
+            @Override
+            public void cleared() {
+                characters.clear();
+                lists.clear();
+            }
+        });
+    }
+
+    public Served<Character> findById(int id) {
+        if (latencyBudgetNanos > 0) {
+            //キャッシュにある値は、DBを読むスレッドを使わずにこのスレッドで返す
+            Optional<Character> cached = characterService.findCachedById(id);
+            if (cached.isPresent()) {
+                return Served.fresh(cached.get());
+            }
+        }
+        return read(characters, id, () -> asyncService.findById(id), () -> characterService.findById(id));
+    }
+
+    //年齢の指定がない時(null)は全件
+    public Served<List<Character>> findByAge(Integer age) {
+        return read(lists, Optional.ofNullable(age), () -> asyncService.findByAge(age),
+                () -> characterService.findByAge(age));
+    }
+
+    private <K, T> Served<T> read(LastKnown<K, T> store, K key, Supplier<CompletableFuture<T>> async,
+                                  Supplier<T> direct) {
+        if (latencyBudgetNanos == 0) {
+            return Served.fresh(direct.get());
+        }
+        LastKnown.Entry<T> last = store.get(key, maxStalenessNanos);
+        if (last == null) {
+            long stamp = store.stamp();
+            try {
+                T value = direct.get();
+                store.put(key, value, stamp);
+                return Served.fresh(value);
+            } catch (NotFoundException e) {
+                store.remove(key);
+                throw e;
+            }
+        }
+        CompletableFuture<T> future = store.load(key, async);
+        try {
+            return Served.fresh(future.get(latencyBudgetNanos, TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+            log.debug("no response within the latency budget, serving the last known value of {}", key);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (!(cause instanceof DataAccessException)) {
+                if (cause instanceof Error error) {
+                    throw error;
+                }
+                throw cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+            }
+            log.debug("could not read {}, serving the last known value", key, cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return Served.stale(last.value, Duration.ofNanos(System.nanoTime() - last.storedAt));
+    }
+
+    // キーごとに最後に読めた値と読めた時刻を保持する(LRU)
+    static final class LastKnown<K, T> {
+        static final class Entry<T> {
+            final T value;
+            final long storedAt;
+
+            Entry(T value, long storedAt) {
+                this.value = value;
+                this.storedAt = storedAt;
+            }
+        }
+
+        private final Map<K, Entry<T>> entries;
+        private final Map<K, CompletableFuture<T>> loading = new ConcurrentHashMap<>();
+        //捨てた回数。読み込み中に捨てた時は、読み込んだ値を保持しない
+        private long invalidations;
+
+        LastKnown(int maxEntries) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<T>> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        synchronized Entry<T> get(K key, long maxStalenessNanos) {
+            Entry<T> entry = entries.get(key);
+            return entry == null || System.nanoTime() - entry.storedAt > maxStalenessNanos ? null : entry;
+        }
+
+        synchronized long stamp() {
+            return invalidations;
+        }
+
+        synchronized void put(K key, T value, long stamp) {
+            if (stamp == invalidations) {
+                entries.put(key, new Entry<>(value, System.nanoTime()));
+            }
+        }
+
+        synchronized void remove(K key) {
+            invalidations++;
+            entries.remove(key);
+        }
+
+        synchronized void clear() {
+            invalidations++;
+            entries.clear();
+        }
+
+        //読み込み中のものがあればそれを返し、なければ新しく読み込む。読めた値は最後に読めた値として保持する
+        CompletableFuture<T> load(K key, Supplier<CompletableFuture<T>> loader) {
+            CompletableFuture<T> mine = new CompletableFuture<>();
+            CompletableFuture<T> existing = loading.putIfAbsent(key, mine);
+            if (existing != null) {
+                return existing;
+            }
+            long stamp = stamp();
+            loader.get().whenComplete((value, error) -> {
+                loading.remove(key, mine);
+                if (error == null) {
+                    put(key, value, stamp);
+                    mine.complete(value);
+                    return;
+                }
+                Throwable cause = error instanceof CompletionException && error.getCause() != null
+                        ? error.getCause() : error;
+                if (cause instanceof NotFoundException) {
+                    remove(key);
+                }
+                mine.completeExceptionally(cause);
+            });
+            return mine;
+        }
+    }
+}
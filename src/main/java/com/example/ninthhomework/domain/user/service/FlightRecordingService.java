@@ -0,0 +1,91 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterProfilingProperties;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+// JFRの記録を期間と容量を区切って1つだけ行う
+@Service
+public class FlightRecordingService {
+    private static final String RECORDING_NAME = "characters";
+    private static final String[] EVENTS = {
+            "com.example.ninthhomework.CharacterMapper", "com.example.ninthhomework.CharacterRequest"};
+
+    private final String settings;
+    private final Duration maxDuration;
+    private final long maxSize;
+    private Recording recording;
+
+    public FlightRecordingService(CharacterProfilingProperties profiling) {
+        this.settings = profiling.getSettings();
+        this.maxDuration = profiling.getMaxDuration();
+        this.maxSize = profiling.getMaxSize();
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (Objects.nonNull(recording)) {
+            recording.close();
+            recording = null;
+        }
+    }
+
+    //記録中の時は何もせずにfalseを返す。期間はmaxDurationまでに切り詰め、過ぎると自動で止まる
+    public synchronized boolean start(Duration duration) throws IOException, ParseException {
+        if (Objects.nonNull(recording) && recording.getState() == RecordingState.RUNNING) {
+            return false;
+        }
+        close();
+        Recording started = new Recording(Configuration.getConfiguration(settings));
+        started.setName(RECORDING_NAME);
+        started.setToDisk(true);
+        started.setMaxSize(maxSize);
+        started.setDuration(duration.isZero() || duration.compareTo(maxDuration) > 0 ? maxDuration : duration);
+        for (String event : EVENTS) {
+            started.enable(event).withoutThreshold();
+        }
+        started.start();
+        recording = started;
+        return true;
+    }
+
+    public synchronized boolean stop() {
+        if (Objects.isNull(recording) || recording.getState() != RecordingState.RUNNING) {
+            return false;
+        }
+        return recording.stop();
+    }
+
+    //記録中の時はその時点までの内容を書き出す
+    public synchronized boolean dumpTo(Path file) throws IOException {
+        if (Objects.isNull(recording) || recording.getState() == RecordingState.NEW) {
+            return false;
+        }
+        recording.dump(file);
+        return true;
+    }
+
+    public synchronized Optional<Map<String, String>> status() {
+        if (Objects.isNull(recording)) {
+            return Optional.empty();
+        }
+        Map<String, String> status = new LinkedHashMap<>();
+        status.put("state", recording.getState().name());
+        status.put("startTime", String.valueOf(recording.getStartTime()));
+        status.put("duration", String.valueOf(recording.getDuration()));
+        status.put("size", String.valueOf(recording.getSize()));
+        return Optional.of(status);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterInvalidationProperties;
+import com.example.ninthhomework.domain.user.model.CharacterChange;
+import com.example.ninthhomework.mapper.CharacterChangeMapper;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// character_changesテーブルを使ったCharacterChangeTransport
+@Component
+@Profile("!memory")
+//生成時にcharacter_changesを読むため、移行の後に生成する
+@DependsOn("schemaMigrator")
+public class JdbcCharacterChangeTransport implements CharacterChangeTransport {
+    private final CharacterChangeMapper changeMapper;
+    private final int batchSize;
+    private final long gapTimeoutNanos;
+    private final long retentionSeconds;
+    private final long pruneIntervalNanos;
+    private long highWaterMark;
+    private long gapDetectedAt;
+    private long lastPrunedAt;
+
+    public JdbcCharacterChangeTransport(CharacterChangeMapper changeMapper, CharacterInvalidationProperties invalidation) {
+        this.changeMapper = changeMapper;
+        this.batchSize = invalidation.getBatchSize();
+        this.gapTimeoutNanos = invalidation.getGapTimeout().toNanos();
+        this.retentionSeconds = invalidation.getRetention().toSeconds();
+        this.pruneIntervalNanos = invalidation.getRetention().toNanos() / 4;
+        //起動時点のキャッシュは空のため、それまでの変更は読まない
+        this.highWaterMark = changeMapper.findLatestSeq();
+        this.lastPrunedAt = System.nanoTime();
+    }
+
+    @Override
+    public void publish(CharacterChange.Type type, int characterId, String origin) {
+        changeMapper.insertChange(characterId, type, origin);
+    }
+
+    //1回のINSERTでまとめて記録する
+    @Override
+    public void publishAll(CharacterChange.Type type, List<Integer> characterIds, String origin) {
+        if (!characterIds.isEmpty()) {
+            changeMapper.insertChanges(characterIds, type, origin);
+        }
+    }
+
+    @Override
+    public synchronized List<CharacterChange> poll() {
+        long now = System.nanoTime();
+        pruneIfDue(now);
+        List<CharacterChange> changes = changeMapper.findChangesAfter(highWaterMark, batchSize);
+        for (CharacterChange change : changes) {
+            if (change.getSeq() != highWaterMark + 1) {
+                if (gapDetectedAt == 0) {
+                    gapDetectedAt = now;
+                }
+                //抜けより後の変更も返すが、読み込み済みの位置は進めずに次回も読み直す
+                if (now - gapDetectedAt < gapTimeoutNanos) {
+                    break;
+                }
+            }
+            gapDetectedAt = 0;
+            highWaterMark = change.getSeq();
+        }
+        return changes;
+    }
+
+    @Override
+    public synchronized long position() {
+        return highWaterMark;
+    }
+
+    @Override
+    public synchronized boolean resumeFrom(long position) {
+        if (position < 0 || position > highWaterMark) {
+            return false;
+        }
+        highWaterMark = position;
+        gapDetectedAt = 0;
+        return true;
+    }
+
+    private void pruneIfDue(long now) {
+        if (now - lastPrunedAt < pruneIntervalNanos) {
+            return;
+        }
+        lastPrunedAt = now;
+        changeMapper.deleteChangesOlderThan(retentionSeconds);
+    }
+}
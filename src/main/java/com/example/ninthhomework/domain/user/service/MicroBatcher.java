@@ -0,0 +1,131 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.exception.ServiceUnavailableException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+// 短い待ち時間の間に届いた単一キーの読み込みを集め、1回のまとめ読み込みで処理する
+public class MicroBatcher<K, V> {
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Function<List<K>, Map<K, V>> batchLoader;
+    private final ScheduledExecutorService scheduler;
+    private final ThreadPoolExecutor executor;
+    private Batch<K, V> pending = new Batch<>();
+
+    public MicroBatcher(Duration window, int maxBatchSize, int threads, Function<List<K>, Map<K, V>> batchLoader) {
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.batchLoader = batchLoader;
+        if (isEnabled()) {
+            int poolSize = Math.max(1, threads);
+            this.scheduler = Executors.newSingleThreadScheduledExecutor(daemon("micro-batcher-timer"));
+            //待ち行列が一杯の時は受け付けずに503とする
+            this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(poolSize), daemon("micro-batcher"));
+        } else {
+            this.scheduler = null;
+            this.executor = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return windowNanos > 0;
+    }
+
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            executor.shutdown();
+        }
+    }
+
+    //まとめ読み込みの結果に含まれないキーはnullを返す
+    public V load(K key) {
+        CompletableFuture<V> result;
+        Batch<K, V> full = null;
+        synchronized (this) {
+            pending.join(RequestDeadline.current().orElse(null));
+            result = pending.results.get(key);
+            if (result == null) {
+                result = new CompletableFuture<>();
+                pending.results.put(key, result);
+                if (pending.results.size() == 1) {
+                    Batch<K, V> batch = pending;
+                    scheduler.schedule(() -> flush(batch), windowNanos, TimeUnit.NANOSECONDS);
+                } else if (pending.results.size() >= maxBatchSize) {
+                    full = pending;
+                    pending = new Batch<>();
+                }
+            }
+        }
+        if (full != null) {
+            submit(full);
+        }
+        return RequestDeadline.await(result);
+    }
+
+    //件数が上限に達して既に読み込みを始めたまとまりは何もしない
+    private void flush(Batch<K, V> batch) {
+        synchronized (this) {
+            if (pending != batch) {
+                return;
+            }
+            pending = new Batch<>();
+        }
+        submit(batch);
+    }
+
+    private void submit(Batch<K, V> batch) {
+        try {
+            executor.execute(() -> run(batch));
+        } catch (RejectedExecutionException e) {
+            ServiceUnavailableException rejected = new ServiceUnavailableException("too many pending batches");
+            batch.results.values().forEach(result -> result.completeExceptionally(rejected));
+        }
+    }
+
+    private void run(Batch<K, V> batch) {
+        try {
+            Map<K, V> loaded = RequestDeadline.propagate(batch.deadline,
+                    () -> batchLoader.apply(new ArrayList<>(batch.results.keySet()))).get();
+            batch.results.forEach((key, result) -> result.complete(loaded.get(key)));
+        } catch (RuntimeException | Error e) {
+            batch.results.values().forEach(result -> result.completeExceptionally(e));
+        }
+    }
+
+    // まとめて読み込むキーごとの結果と、まとめ読み込みに使う期限
+    private static final class Batch<K, V> {
+        final Map<K, CompletableFuture<V>> results = new HashMap<>();
+        //待っている呼び出し元のうち最も遅い期限。期限のない呼び出し元がいる時はnull
+        RequestDeadline deadline;
+        boolean joined;
+
+        void join(RequestDeadline callerDeadline) {
+            deadline = joined ? RequestDeadline.latest(deadline, callerDeadline) : callerDeadline;
+            joined = true;
+        }
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
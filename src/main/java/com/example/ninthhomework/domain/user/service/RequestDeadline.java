@@ -0,0 +1,130 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.exception.DeadlineExceededException;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// リクエストごとの処理期限。実行中のスレッドに結び付け、DBへの問い合わせのタイムアウトに使う
+public final class RequestDeadline {
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long expiresAt;
+
+    private RequestDeadline(long expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    public static RequestDeadline after(Duration timeout) {
+        return new RequestDeadline(System.nanoTime() + timeout.toNanos());
+    }
+
+    public static Optional<RequestDeadline> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    //期限が設定されていて既に過ぎている時は、DBへ問い合わせずに例外とする
+    public static void checkCurrent() {
+        RequestDeadline deadline = CURRENT.get();
+        if (deadline != null) {
+            deadline.check();
+        }
+    }
+
+    //リクエストを受け付けたスレッドで呼び、処理の終了時にdetachを呼ぶ
+    public static void attach(RequestDeadline deadline) {
+        CURRENT.set(deadline);
+    }
+
+    public static void detach() {
+        CURRENT.remove();
+    }
+
+    //呼び出し元の期限を別スレッドで実行する処理に引き継ぐ
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        RequestDeadline deadline = CURRENT.get();
+        return deadline == null ? task : propagate(deadline, task);
+    }
+
+    //指定した期限(nullの時は期限なし)で処理を実行し、終わった後に元の期限に戻す。複数の呼び出し元で共有する処理に使う
+    public static <T> Supplier<T> propagate(RequestDeadline deadline, Supplier<T> task) {
+        return () -> {
+            RequestDeadline previous = CURRENT.get();
+            if (deadline == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(deadline);
+            }
+            try {
+                return task.get();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        };
+    }
+
+    //共有する処理は待っている呼び出し元のうち最も遅い期限で実行し、早い期限の呼び出し元に合わせて打ち切らない
+    //期限のない呼び出し元(null)がいる時は期限を設けない
+    public static RequestDeadline latest(RequestDeadline a, RequestDeadline b) {
+        if (a == null || b == null) {
+            return null;
+        }
+        return a.expiresAt - b.expiresAt >= 0 ? a : b;
+    }
+
+    //他のスレッドが行う共有の処理の結果を、このスレッドの期限まで待つ。期限がない時は終わるまで待つ
+    //共有の処理の例外は包まずにスローする
+    public static <T> T await(CompletableFuture<T> future) {
+        RequestDeadline deadline = CURRENT.get();
+        try {
+            if (deadline == null) {
+                return future.join();
+            }
+            return future.get(Math.max(0, deadline.expiresAt - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (CompletionException | ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new CompletionException(cause);
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("request deadline exceeded");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while waiting for a shared result", e);
+        }
+    }
+
+    public Duration remaining() {
+        return Duration.ofNanos(Math.max(0, expiresAt - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return expiresAt - System.nanoTime() <= 0;
+    }
+
+    public void check() {
+        if (isExpired()) {
+            throw new DeadlineExceededException("request deadline exceeded");
+        }
+    }
+
+    //JDBCのタイムアウトは秒単位のため切り上げる。期限が残っている限り0(無制限)にはしない
+    public int remainingSeconds() {
+        long remaining = expiresAt - System.nanoTime();
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, (remaining + 999_999_999L) / 1_000_000_000L));
+    }
+}
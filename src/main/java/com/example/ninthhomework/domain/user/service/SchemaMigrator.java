@@ -0,0 +1,166 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterMigrationProperties;
+import com.example.ninthhomework.mapper.SchemaMigration;
+import com.example.ninthhomework.mapper.SchemaMigrationMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+// db/migration/V<版>__<説明>.sqlを版の順に1回ずつ適用し、適用した版をschema_migrationsに記録する
+@Component
+@Profile("!memory")
+public class SchemaMigrator {
+    private static final String LOCK_NAME = "characters.schema_migrations";
+    private static final Pattern FILE_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+
+    private final SchemaMigrationMapper migrationMapper;
+    private final TransactionOperations transactionOperations;
+    private final CharacterMigrationProperties properties;
+
+    public SchemaMigrator(SchemaMigrationMapper migrationMapper, TransactionOperations transactionOperations,
+                          CharacterMigrationProperties properties) {
+        this.migrationMapper = migrationMapper;
+        this.transactionOperations = transactionOperations;
+        this.properties = properties;
+    }
+
+    //表を読むBeanの初期化より前に適用するため、それらのBeanは@DependsOn("schemaMigrator")を付ける
+    @PostConstruct
+    public void migrateOnStartup() {
+        if (properties.isEnabled()) {
+            migrate();
+        }
+    }
+
+    //適用した版の一覧を返す
+    public List<Integer> migrate() {
+        List<Script> scripts = load();
+        //名前付きロックは接続ごとのため、ロックから解放までを1つの接続で行う
+        //DDLは暗黙にコミットされるため、失敗した時に適用済みの文は戻らない。その版は記録せず、次の起動で最初から適用し直す
+        return transactionOperations.execute(status -> {
+            Integer locked = migrationMapper.acquireLock(LOCK_NAME, properties.getLockTimeout().toSeconds());
+            if (locked == null || locked != 1) {
+                throw new IllegalStateException("timed out waiting for lock " + LOCK_NAME);
+            }
+            try {
+                return applyPending(scripts);
+            } finally {
+                migrationMapper.releaseLock(LOCK_NAME);
+            }
+        });
+    }
+
+    private List<Integer> applyPending(List<Script> scripts) {
+        migrationMapper.createHistoryTable();
+        Map<Integer, SchemaMigration> applied = new HashMap<>();
+        for (SchemaMigration migration : migrationMapper.findApplied()) {
+            applied.put(migration.getVersion(), migration);
+        }
+        for (Script script : scripts) {
+            SchemaMigration migration = applied.get(script.migration.getVersion());
+            if (migration != null && migration.getChecksum() != script.migration.getChecksum()) {
+                throw new IllegalStateException("checksum mismatch for applied migration V"
+                        + migration.getVersion() + "__" + migration.getDescription());
+            }
+        }
+        List<Integer> versions = new ArrayList<>();
+        for (Script script : scripts) {
+            if (applied.containsKey(script.migration.getVersion())) {
+                continue;
+            }
+            for (String statement : script.statements) {
+                migrationMapper.execute(statement);
+            }
+            migrationMapper.insertApplied(script.migration);
+            versions.add(script.migration.getVersion());
+        }
+        return versions;
+    }
+
+    private List<Script> load() {
+        Resource[] resources;
+        try {
+            resources = new PathMatchingResourcePatternResolver().getResources(properties.getLocation() + "V*__*.sql");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<Script> scripts = new ArrayList<>();
+        Map<Integer, String> files = new HashMap<>();
+        for (Resource resource : resources) {
+            Matcher matcher = FILE_NAME.matcher(String.valueOf(resource.getFilename()));
+            if (!matcher.matches()) {
+                continue;
+            }
+            int version = Integer.parseInt(matcher.group(1));
+            String previous = files.put(version, resource.getFilename());
+            if (previous != null) {
+                throw new IllegalStateException("duplicate migration version " + version + ": "
+                        + previous + ", " + resource.getFilename());
+            }
+            String sql;
+            try {
+                sql = resource.getContentAsString(StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(sql.getBytes(StandardCharsets.UTF_8));
+            String description = matcher.group(2).replace('_', ' ');
+            scripts.add(new Script(new SchemaMigration(version, description, crc.getValue()), split(sql)));
+        }
+        scripts.sort(Comparator.comparingInt(script -> script.migration.getVersion()));
+        return scripts;
+    }
+
+    //行末の;で文を区切る。--で始まる行と空行は読み飛ばす
+    static List<String> split(String sql) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : sql.split("\\R")) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("--")) {
+                continue;
+            }
+            if (current.length() > 0) {
+                current.append('\n');
+            }
+            if (trimmed.endsWith(";")) {
+                current.append(trimmed, 0, trimmed.length() - 1);
+                statements.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(trimmed);
+            }
+        }
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString());
+        }
+        return statements;
+    }
+
+    private static final class Script {
+        final SchemaMigration migration;
+        final List<String> statements;
+
+        Script(SchemaMigration migration, List<String> statements) {
+            this.migration = migration;
+            this.statements = statements;
+        }
+    }
+}
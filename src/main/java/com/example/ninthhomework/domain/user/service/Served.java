@@ -0,0 +1,36 @@
+package com.example.ninthhomework.domain.user.service;
+
+import java.time.Duration;
+import java.util.Objects;
+
+// 読み込んだ値と、DBから読めずに最後に読めた値を返したかどうか
+public final class Served<T> {
+    private final T value;
+    private final Duration age;
+
+    private Served(T value, Duration age) {
+        this.value = value;
+        this.age = age;
+    }
+
+    public static <T> Served<T> fresh(T value) {
+        return new Served<>(value, null);
+    }
+
+    public static <T> Served<T> stale(T value, Duration age) {
+        return new Served<>(value, Objects.requireNonNull(age));
+    }
+
+    public T getValue() {
+        return value;
+    }
+
+    public boolean isStale() {
+        return age != null;
+    }
+
+    //最後に読めてからの経過時間。新しい値の時はnull
+    public Duration getAge() {
+        return age;
+    }
+}
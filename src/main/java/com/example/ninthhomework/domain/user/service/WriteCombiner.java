@@ -0,0 +1,88 @@
+package com.example.ninthhomework.domain.user.service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+// 短い待ち時間の間に届いた同じキーへの書き込みを集め、1回の書き込みで処理する
+public class WriteCombiner<K, U, R> {
+    private final long windowNanos;
+    private final int maxSize;
+    private final BiFunction<K, List<U>, R> writer;
+    private final Map<K, Pending<U, R>> pending = new HashMap<>();
+
+    public WriteCombiner(Duration window, int maxSize, BiFunction<K, List<U>, R> writer) {
+        this.windowNanos = window.toNanos();
+        this.maxSize = Math.max(1, maxSize);
+        this.writer = writer;
+    }
+
+    public boolean isEnabled() {
+        return windowNanos > 0;
+    }
+
+    //まとめた書き込みが終わるまで待ち、その結果を返す。失敗した時はまとめられた全ての呼び出し元に同じ例外を返す
+    public R write(K key, U update) {
+        Pending<U, R> batch;
+        boolean leader = false;
+        synchronized (this) {
+            batch = pending.get(key);
+            if (batch == null) {
+                batch = new Pending<>();
+                pending.put(key, batch);
+                leader = true;
+            }
+            batch.join(RequestDeadline.current().orElse(null));
+            batch.updates.add(update);
+            if (batch.updates.size() >= maxSize) {
+                //上限に達した後の書き込みは次のまとまりに入れる
+                pending.remove(key, batch);
+                batch.full.countDown();
+            }
+        }
+        if (leader) {
+            flush(key, batch);
+        }
+        return RequestDeadline.await(batch.result);
+    }
+
+    private void flush(K key, Pending<U, R> batch) {
+        try {
+            batch.full.await(windowNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<U> updates;
+        RequestDeadline deadline;
+        synchronized (this) {
+            pending.remove(key, batch);
+            updates = new ArrayList<>(batch.updates);
+            deadline = batch.deadline;
+        }
+        try {
+            batch.result.complete(RequestDeadline.propagate(deadline, () -> writer.apply(key, updates)).get());
+        } catch (RuntimeException | Error e) {
+            batch.result.completeExceptionally(e);
+        }
+    }
+
+    private static final class Pending<U, R> {
+        final List<U> updates = new ArrayList<>();
+        final CountDownLatch full = new CountDownLatch(1);
+        final CompletableFuture<R> result = new CompletableFuture<>();
+        //まとめた呼び出し元のうち最も遅い期限。期限のない呼び出し元がいる時はnull
+        RequestDeadline deadline;
+        boolean joined;
+
+        void join(RequestDeadline callerDeadline) {
+            deadline = joined ? RequestDeadline.latest(deadline, callerDeadline) : callerDeadline;
+            joined = true;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.ninthhomework.exception;
+
+//期限切れのリクエストは混雑時にまとめて発生するため、スタックトレースを作らずに軽量に生成する
+public class DeadlineExceededException extends RuntimeException {
+    public DeadlineExceededException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.ninthhomework.exception;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+//リクエストの期限切れと、期限に合わせて打ち切られた問い合わせを504とする
+@RestControllerAdvice
+public class DeadlineExceededExceptionHandler {
+    private static final String STATUS = String.valueOf(HttpStatus.GATEWAY_TIMEOUT.value());
+    private static final String ERROR = HttpStatus.GATEWAY_TIMEOUT.getReasonPhrase();
+
+    @ExceptionHandler(value = {DeadlineExceededException.class, QueryTimeoutException.class})
+    public ResponseEntity<Map<String, String>> handlerDeadlineExceeded(
+            RuntimeException ex, HttpServletRequest request) {
+        Map<String, String> body = Map.of(
+                "timestamp", ZonedDateTime.now().toString(),
+                "status", STATUS,
+                "error", ERROR,
+                "message", "request deadline exceeded",
+                "path", request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(body);
+    }
+}
@@ -9,8 +9,9 @@ public class NotFoundException extends RuntimeException {
         super(message);
     }
 
+    //存在しないIDへのアクセスは頻繁に起こるため、スタックトレースを作らずに軽量に生成する
     public NotFoundException(int id) {
-        super("ID:" + id + "は見つかりませんでした");
+        super("ID:" + id + "は見つかりませんでした", null, false, false);
     }
 
     public NotFoundException(String message, Throwable cause) {
@@ -11,13 +11,16 @@ import java.util.Map;
 
 @RestControllerAdvice
 public class NotFoundExceptionHandler {
+    private static final String STATUS = String.valueOf(HttpStatus.NOT_FOUND.value());
+    private static final String ERROR = HttpStatus.NOT_FOUND.getReasonPhrase();
+
     @ExceptionHandler(value = NotFoundException.class)
     public ResponseEntity<Map<String, String>> handlerNotFound(
             NotFoundException ex, HttpServletRequest request) {
         Map<String, String> body = Map.of(
                 "timestamp", ZonedDateTime.now().toString(),
-                "status", String.valueOf(HttpStatus.NOT_FOUND.value()),
-                "error", HttpStatus.NOT_FOUND.getReasonPhrase(),
+                "status", STATUS,
+                "error", ERROR,
                 "message", ex.getMessage(),
                 "path", request.getRequestURI());
         return new ResponseEntity<>(body, HttpStatus.NOT_FOUND);
@@ -0,0 +1,8 @@
+package com.example.ninthhomework.exception;
+
+//混雑時にまとめて発生するため、スタックトレースを作らずに軽量に生成する
+public class ServiceUnavailableException extends RuntimeException {
+    public ServiceUnavailableException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.ninthhomework.exception;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+import java.time.ZonedDateTime;
+import java.util.Map;
+
+@RestControllerAdvice
+public class ServiceUnavailableExceptionHandler {
+    private static final String STATUS = String.valueOf(HttpStatus.SERVICE_UNAVAILABLE.value());
+    private static final String ERROR = HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase();
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    @ExceptionHandler(value = ServiceUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handlerServiceUnavailable(
+            ServiceUnavailableException ex, HttpServletRequest request) {
+        Map<String, String> body = Map.of(
+                "timestamp", ZonedDateTime.now().toString(),
+                "status", STATUS,
+                "error", ERROR,
+                "message", ex.getMessage(),
+                "path", request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS)
+                .body(body);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.ninthhomework.mapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Supplier;
+
+// 実行中のSQLを別のスレッドから取り消すための目印
+public final class CancellableQuery {
+    private static final Logger log = LoggerFactory.getLogger(CancellableQuery.class);
+    private static final ThreadLocal<CancellableQuery> CURRENT = new ThreadLocal<>();
+
+    private Statement statement;
+    private boolean cancelled;
+
+    public <T> T run(Supplier<T> query) {
+        CURRENT.set(this);
+        try {
+            return query.get();
+        } finally {
+            CURRENT.remove();
+            //終わった後に取り消しても、同じ接続で次に実行されるSQLには影響させない
+            synchronized (this) {
+                statement = null;
+            }
+        }
+    }
+
+    public synchronized void cancel() {
+        cancelled = true;
+        if (statement == null) {
+            return;
+        }
+        try {
+            statement.cancel();
+        } catch (SQLException e) {
+            log.debug("could not cancel the statement", e);
+        }
+    }
+
+    public synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    static void prepared(Statement statement) throws SQLException {
+        CancellableQuery current = CURRENT.get();
+        if (current == null) {
+            return;
+        }
+        synchronized (current) {
+            if (current.cancelled) {
+                throw new SQLException("the query was cancelled before it was executed");
+            }
+            current.statement = statement;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.ninthhomework.mapper;
+
+import com.example.ninthhomework.domain.user.model.CharacterChange;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface CharacterChangeMapper {
+    public void insertChange(@Param("characterId") int characterId, @Param("type") CharacterChange.Type type,
+                             @Param("origin") String origin);
+
+    public void insertChanges(@Param("characterIds") List<Integer> characterIds,
+                              @Param("type") CharacterChange.Type type, @Param("origin") String origin);
+
+    public long findLatestSeq();
+
+    public List<CharacterChange> findChangesAfter(@Param("seq") long seq, @Param("limit") int limit);
+
+    //保持期間を過ぎた変更を削除し、削除した行数を返す
+    public int deleteChangesOlderThan(@Param("seconds") long seconds);
+}
@@ -0,0 +1,25 @@
+package com.example.ninthhomework.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface CharacterIdSequenceMapper {
+    //採番テーブルを進めてブロックを予約し、更新した行数を返す。予約したブロックを記録するinsertBlockと同じトランザクションで呼ぶ
+    public int reserve(IdBlockReservation reservation);
+
+    public void insertBlock(@Param("start") long start, @Param("end") long end, @Param("origin") String origin);
+
+    //まだ予約されていない最初のID
+    public long findNextId();
+
+    //指定したノード以外が直近に予約したブロック
+    public List<IdBlock> findBlocksReservedWithin(@Param("millis") long millis, @Param("excludedOrigin") String excludedOrigin);
+
+    public int deleteBlocksOlderThan(@Param("millis") long millis);
+
+    //登録済みの最大のIDより後まで採番テーブルを進める。ID指定の登録と同じトランザクションで呼ぶ
+    public int advancePastExistingIds();
+}
@@ -1,7 +1,9 @@
 package com.example.ninthhomework.mapper;
 
 import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.model.CharacterQuery;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -14,10 +16,38 @@ public interface CharacterMapper {
 
     public Optional<Character> searchById(int id);
 
-    public void createCharacter(Character character);
+    public List<Character> searchByIds(@Param("ids") List<Integer> ids);
+
+    public List<Character> searchByQuery(CharacterQuery query);
+
+    public List<Integer> findAllIds();
+
+    public long countAll();
+
+    public long countByAge(int age);
+
+    public void createCharacter(NewCharacter character);
+
+    //IDが0の行は自動採番、それ以外は指定されたIDで登録する
+    public void insertCharacters(@Param("characters") List<Character> characters);
 
     public void updateCharacter(Character character);
 
-    public void deleteCharacter(int id);
+    //指定したIDがない時は登録、ある時は名前と年齢を置き換える
+    //影響行数はMySQLと同じく、登録と変更のない置き換えで1、変更のある置き換えで2を返す
+    public int upsertCharacter(Character character);
+
+    //まとめて登録・置き換えを行い、影響行数の合計を返す
+    public int upsertCharacters(@Param("characters") List<Character> characters);
+
+    //削除した行数を返す
+    public int deleteCharacter(int id);
+
+    public void deleteAll();
+
+    //全ての行をメモリ上に保持している実装はtrueを返す
+    public default boolean isInMemory() {
+        return false;
+    }
 
 }
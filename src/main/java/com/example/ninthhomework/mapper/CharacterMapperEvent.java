@@ -0,0 +1,23 @@
+package com.example.ninthhomework.mapper;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// マッパーの呼び出し1回分のJFRイベント
+@Name("com.example.ninthhomework.CharacterMapper")
+@Label("Character Mapper Invocation")
+@Category({"Ninthhomework", "Database"})
+@Description("MyBatisのステートメント1回分の実行")
+@StackTrace(false)
+public class CharacterMapperEvent extends Event {
+    @Label("Statement Id")
+    String statement;
+
+    @Label("Rows")
+    @Description("取得した行数、または更新した行数")
+    int rows;
+}
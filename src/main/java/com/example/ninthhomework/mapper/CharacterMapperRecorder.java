@@ -0,0 +1,48 @@
+package com.example.ninthhomework.mapper;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// JFRの記録中だけ、MyBatisのステートメントの実行ごとにCharacterMapperEventを記録する
+@Component
+@Profile("!memory")
+@Intercepts({
+        @Signature(type = Executor.class, method = "query",
+                args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+        @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})})
+public class CharacterMapperRecorder implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        CharacterMapperEvent event = new CharacterMapperEvent();
+        if (!event.isEnabled()) {
+            return invocation.proceed();
+        }
+        event.begin();
+        Object result = invocation.proceed();
+        event.end();
+        if (event.shouldCommit()) {
+            event.statement = ((MappedStatement) invocation.getArgs()[0]).getId();
+            event.rows = rows(result);
+            event.commit();
+        }
+        return result;
+    }
+
+    private static int rows(Object result) {
+        if (result instanceof List<?> list) {
+            return list.size();
+        }
+        return result instanceof Integer count ? count : 0;
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.ninthhomework.mapper;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.session.Configuration;
+import org.mybatis.spring.SqlSessionFactoryBean;
+import org.mybatis.spring.SqlSessionTemplate;
+
+import java.util.List;
+
+// 読み込み専用のレプリカへの接続と、レプリカに問い合わせるCharacterMapper
+public class CharacterReplica implements AutoCloseable {
+    private final HikariDataSource dataSource;
+    private final CharacterMapper mapper;
+
+    CharacterReplica(HikariDataSource dataSource, CharacterMapper mapper) {
+        this.dataSource = dataSource;
+        this.mapper = mapper;
+    }
+
+    //主DBと同じプラグイン(処理期限・JFR・取り消し)を使う
+    public static CharacterReplica connect(String url, String username, String password, int poolSize,
+                                           List<Interceptor> interceptors) throws Exception {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("character-replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(username);
+        dataSource.setPassword(password);
+        dataSource.setMaximumPoolSize(poolSize);
+        dataSource.setReadOnly(true);
+        try {
+            Configuration configuration = new Configuration();
+            configuration.setMapUnderscoreToCamelCase(true);
+            SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
+            factoryBean.setDataSource(dataSource);
+            factoryBean.setConfiguration(configuration);
+            factoryBean.setPlugins(interceptors.toArray(Interceptor[]::new));
+            SqlSessionTemplate template = new SqlSessionTemplate(factoryBean.getObject());
+            template.getConfiguration().addMapper(CharacterMapper.class);
+            return new CharacterReplica(dataSource, template.getMapper(CharacterMapper.class));
+        } catch (Exception e) {
+            dataSource.close();
+            throw e;
+        }
+    }
+
+    public CharacterMapper getMapper() {
+        return mapper;
+    }
+
+    @Override
+    public void close() {
+        dataSource.close();
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.ninthhomework.mapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// メモリマップドファイルへ追記する更新ログ
+class CharacterWriteAheadLog implements AutoCloseable {
+    static final byte INSERT = 1;
+    static final byte UPDATE = 2;
+    static final byte DELETE = 3;
+    static final byte NEXT_ID = 4;
+    static final byte DELETE_ALL = 5;
+    private static final byte NULL_AGE = (byte) 0x80;
+
+    private static final int HEADER_BYTES = Integer.BYTES * 2;
+    private static final int FIXED_PAYLOAD_BYTES = 1 + Integer.BYTES * 3;
+
+    interface Replayer {
+        void apply(byte type, int id, String name, Integer age);
+    }
+
+    private final Path path;
+    private final boolean syncWrites;
+    private final CRC32 crc = new CRC32();
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    CharacterWriteAheadLog(Path path, int initialCapacity, boolean syncWrites) {
+        this.path = path;
+        this.syncWrites = syncWrites;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            open(initialCapacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //先頭から有効なレコードを順に適用し、次の書き込み位置をログの終端に合わせる
+    void replay(Replayer replayer) {
+        buffer.position(0);
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < FIXED_PAYLOAD_BYTES || length > buffer.remaining() || checksum != checksum(start + HEADER_BYTES, length)) {
+                buffer.position(start);
+                break;
+            }
+            byte type = buffer.get();
+            int id = buffer.getInt();
+            Integer age = buffer.getInt();
+            if ((type & NULL_AGE) != 0) {
+                type &= ~NULL_AGE;
+                age = null;
+            }
+            int nameLength = buffer.getInt();
+            String name = null;
+            if (nameLength >= 0) {
+                byte[] nameBytes = new byte[nameLength];
+                buffer.get(nameBytes);
+                name = new String(nameBytes, StandardCharsets.UTF_8);
+            }
+            replayer.apply(type, id, name, age);
+        }
+    }
+
+    //[本体の長さ][CRC32][種別(最上位ビットは年齢がnull)][ID][年齢][名前のバイト数(-1はnull)][名前 UTF-8]
+    void append(byte type, int id, String name, Integer age) {
+        byte[] nameBytes = name == null ? new byte[0] : name.getBytes(StandardCharsets.UTF_8);
+        int length = FIXED_PAYLOAD_BYTES + nameBytes.length;
+        ensureCapacity(HEADER_BYTES + length + HEADER_BYTES);
+        int start = buffer.position();
+        buffer.position(start + HEADER_BYTES);
+        buffer.put(age == null ? (byte) (type | NULL_AGE) : type).putInt(id).putInt(age == null ? 0 : age)
+                .putInt(name == null ? -1 : nameBytes.length).put(nameBytes);
+        int end = buffer.position();
+        //本体を書き終えてから長さを書き込み、途中で止まったレコードを終端として扱えるようにする
+        buffer.putInt(start + Integer.BYTES, checksum(start + HEADER_BYTES, length));
+        buffer.putInt(start, length);
+        buffer.position(end);
+        if (syncWrites) {
+            buffer.force();
+        }
+    }
+
+    //現在の内容だけを書いた新しいログへ置き換える
+    void compact(Consumer<CharacterWriteAheadLog> writer) {
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        try {
+            Files.deleteIfExists(compacted);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        try (CharacterWriteAheadLog target = new CharacterWriteAheadLog(compacted, buffer.capacity(), false)) {
+            writer.accept(target);
+        }
+        try {
+            close();
+            Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            open(0);
+            replay((type, id, name, age) -> {
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (buffer != null) {
+                buffer.force();
+            }
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void open(int capacity) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(capacity, (int) channel.size()));
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        int position = buffer.position();
+        long capacity = Math.max((long) buffer.capacity() * 2, (long) position + bytes);
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IllegalStateException("write-ahead log is full: " + path);
+        }
+        try {
+            buffer.force();
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            buffer.position(position);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int checksum(int offset, int length) {
+        crc.reset();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+}
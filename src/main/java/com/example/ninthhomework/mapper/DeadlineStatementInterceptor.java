@@ -0,0 +1,36 @@
+package com.example.ninthhomework.mapper;
+
+import com.example.ninthhomework.domain.user.service.RequestDeadline;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Optional;
+
+// リクエストの残り時間をJDBCのクエリタイムアウトとして設定する
+@Component
+@Profile("!memory")
+@Intercepts(@Signature(type = StatementHandler.class, method = "prepare", args = {Connection.class, Integer.class}))
+public class DeadlineStatementInterceptor implements Interceptor {
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+        Optional<RequestDeadline> deadline = RequestDeadline.current();
+        deadline.ifPresent(RequestDeadline::check);
+        Object result = invocation.proceed();
+        if (deadline.isPresent() && result instanceof Statement statement) {
+            int remaining = deadline.get().remainingSeconds();
+            int current = statement.getQueryTimeout();
+            if (current == 0 || remaining < current) {
+                statement.setQueryTimeout(remaining);
+            }
+        }
+        return result;
+    }
+}
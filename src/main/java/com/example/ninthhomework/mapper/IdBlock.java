@@ -0,0 +1,39 @@
+package com.example.ninthhomework.mapper;
+
+import java.util.Objects;
+
+//character_id_blocksの1行。startからend(含まない)までのIDを予約したブロック
+public class IdBlock {
+    private final long start;
+    private final long end;
+
+    public IdBlock(long start, long end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public long getStart() {
+        return start;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public boolean contains(long id) {
+        return start <= id && id < end;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IdBlock that = (IdBlock) o;
+        return start == that.start && end == that.end;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(start, end);
+    }
+}
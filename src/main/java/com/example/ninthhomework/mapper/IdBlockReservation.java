@@ -0,0 +1,27 @@
+package com.example.ninthhomework.mapper;
+
+//予約するブロックの大きさを渡し、予約した範囲の終わり(このIDは含まない)をこのクラスで受け取る
+public class IdBlockReservation {
+    private final int size;
+    private long end;
+
+    public IdBlockReservation(int size) {
+        this.size = size;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public long getEnd() {
+        return end;
+    }
+
+    public void setEnd(long end) {
+        this.end = end;
+    }
+
+    public long getStart() {
+        return end - size;
+    }
+}
@@ -0,0 +1,439 @@
+package com.example.ninthhomework.mapper;
+
+import com.example.ninthhomework.config.CharacterMemoryProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.model.CharacterQuery;
+import jakarta.annotation.PreDestroy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Repository;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// MySQLを使わずにメモリ上だけでキャラクターを保持するCharacterMapperの実装(memoryプロファイル用)
+@Repository
+@Profile("memory")
+public class InMemoryCharacterMapper implements CharacterMapper {
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CharacterWriteAheadLog writeAheadLog;
+    private int size;
+    private int[] ids = new int[16];
+    private int[] ages = new int[16];
+    private boolean[] nullAges = new boolean[16];
+    private int[] nameOffsets = new int[16];
+    private int[] nameLengths = new int[16];
+    private char[] namePool = new char[256];
+    private int namePoolSize;
+    private int nextId = 1;
+
+    public InMemoryCharacterMapper(CharacterMemoryProperties memory) {
+        this.writeAheadLog = new CharacterWriteAheadLog(
+                Path.of(memory.getWalPath()), memory.getInitialWalSize(), memory.isSyncWrites());
+        writeAheadLog.replay(this::apply);
+        writeAheadLog.compact(log -> {
+            log.append(CharacterWriteAheadLog.NEXT_ID, nextId, null, null);
+            for (int i = 0; i < size; i++) {
+                log.append(CharacterWriteAheadLog.INSERT, ids[i], name(i), age(i));
+            }
+        });
+        compactNamePool(0);
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            writeAheadLog.close();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Character> findAll() {
+        lock.readLock().lock();
+        try {
+            List<Character> characters = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                characters.add(toCharacter(i));
+            }
+            return characters;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //SQLの age > #{age} と同じく、年齢がnullの行や条件がnullの時は一致しない
+    @Override
+    public List<Character> searchByAge(Integer age) {
+        List<Character> characters = new ArrayList<>();
+        if (Objects.isNull(age)) {
+            return characters;
+        }
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < size; i++) {
+                if (!nullAges[i] && ages[i] > age) {
+                    characters.add(toCharacter(i));
+                }
+            }
+            return characters;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Optional<Character> searchById(int id) {
+        lock.readLock().lock();
+        try {
+            int index = indexOf(id);
+            return index < 0 ? Optional.empty() : Optional.of(toCharacter(index));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public List<Character> searchByIds(List<Integer> targetIds) {
+        int[] sorted = targetIds.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        List<Character> characters = new ArrayList<>(sorted.length);
+        lock.readLock().lock();
+        try {
+            for (int id : sorted) {
+                int index = indexOf(id);
+                if (index >= 0) {
+                    characters.add(toCharacter(index));
+                }
+            }
+            return characters;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //条件に合う行だけを取り出してから並べ替える
+    @Override
+    public List<Character> searchByQuery(CharacterQuery query) {
+        List<Character> characters = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < size; i++) {
+                if (matches(i, query)) {
+                    characters.add(toCharacter(i));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return query.apply(characters.stream());
+    }
+
+    @Override
+    public List<Integer> findAllIds() {
+        lock.readLock().lock();
+        try {
+            List<Integer> result = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                result.add(ids[i]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long countAll() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public long countByAge(int age) {
+        lock.readLock().lock();
+        try {
+            long count = 0;
+            for (int i = 0; i < size; i++) {
+                if (!nullAges[i] && ages[i] > age) {
+                    count++;
+                }
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void createCharacter(NewCharacter character) {
+        lock.writeLock().lock();
+        try {
+            int id = nextId;
+            writeAheadLog.append(CharacterWriteAheadLog.INSERT, id, character.getName(), character.getAge());
+            insert(id, character.getName(), character.getAge());
+            character.setId(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void insertCharacters(List<Character> characters) {
+        lock.writeLock().lock();
+        try {
+            //途中で失敗して一部だけ登録されることがないよう、指定IDの重複を先に確認する
+            Set<Integer> explicitIds = new HashSet<>();
+            for (Character character : characters) {
+                if (character.getId() > 0 && (indexOf(character.getId()) >= 0 || !explicitIds.add(character.getId()))) {
+                    throw new IllegalStateException("duplicate id: " + character.getId());
+                }
+            }
+            for (Character character : characters) {
+                int id = character.getId() > 0 ? character.getId() : nextId;
+                writeAheadLog.append(CharacterWriteAheadLog.INSERT, id, character.getName(), character.getAge());
+                insert(id, character.getName(), character.getAge());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void updateCharacter(Character character) {
+        lock.writeLock().lock();
+        try {
+            int index = indexOf(character.getId());
+            if (index < 0) {
+                return;
+            }
+            writeAheadLog.append(CharacterWriteAheadLog.UPDATE, character.getId(), character.getName(), character.getAge());
+            update(index, character.getName(), character.getAge());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int upsertCharacter(Character character) {
+        lock.writeLock().lock();
+        try {
+            return upsert(character);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int upsertCharacters(List<Character> characters) {
+        lock.writeLock().lock();
+        try {
+            int affected = 0;
+            for (Character character : characters) {
+                affected += upsert(character);
+            }
+            return affected;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int deleteCharacter(int id) {
+        lock.writeLock().lock();
+        try {
+            int index = indexOf(id);
+            if (index < 0) {
+                return 0;
+            }
+            writeAheadLog.append(CharacterWriteAheadLog.DELETE, id, null, null);
+            delete(index);
+            return 1;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean isInMemory() {
+        return true;
+    }
+
+    @Override
+    public void deleteAll() {
+        lock.writeLock().lock();
+        try {
+            writeAheadLog.append(CharacterWriteAheadLog.DELETE_ALL, 0, null, null);
+            size = 0;
+            namePoolSize = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private int upsert(Character character) {
+        int id = character.getId();
+        Integer age = character.getAge();
+        int index = indexOf(id);
+        if (index < 0) {
+            writeAheadLog.append(CharacterWriteAheadLog.INSERT, id, character.getName(), age);
+            insert(id, character.getName(), age);
+            return 1;
+        }
+        if (Objects.equals(age(index), age) && Objects.equals(name(index), character.getName())) {
+            return 1;
+        }
+        writeAheadLog.append(CharacterWriteAheadLog.UPDATE, id, character.getName(), age);
+        update(index, character.getName(), age);
+        return 2;
+    }
+
+    private void apply(byte type, int id, String name, Integer age) {
+        switch (type) {
+            case CharacterWriteAheadLog.INSERT -> insert(id, name, age);
+            case CharacterWriteAheadLog.UPDATE -> {
+                int index = indexOf(id);
+                if (index >= 0) {
+                    update(index, name, age);
+                }
+            }
+            case CharacterWriteAheadLog.DELETE -> {
+                int index = indexOf(id);
+                if (index >= 0) {
+                    delete(index);
+                }
+            }
+            case CharacterWriteAheadLog.NEXT_ID -> nextId = Math.max(nextId, id);
+            case CharacterWriteAheadLog.DELETE_ALL -> {
+                size = 0;
+                namePoolSize = 0;
+            }
+            default -> throw new IllegalStateException("unknown write-ahead log record: " + type);
+        }
+    }
+
+    //IDは採番順に増えるため、通常は末尾への追加となる
+    private void insert(int id, String name, Integer age) {
+        int index = -(indexOf(id) + 1);
+        if (index < 0) {
+            throw new IllegalStateException("duplicate id: " + id);
+        }
+        if (size == ids.length) {
+            int capacity = size * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            nullAges = Arrays.copyOf(nullAges, capacity);
+            nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+            nameLengths = Arrays.copyOf(nameLengths, capacity);
+        }
+        int moved = size - index;
+        System.arraycopy(ids, index, ids, index + 1, moved);
+        System.arraycopy(ages, index, ages, index + 1, moved);
+        System.arraycopy(nullAges, index, nullAges, index + 1, moved);
+        System.arraycopy(nameOffsets, index, nameOffsets, index + 1, moved);
+        System.arraycopy(nameLengths, index, nameLengths, index + 1, moved);
+        ids[index] = id;
+        size++;
+        update(index, name, age);
+        nextId = Math.max(nextId, id + 1);
+    }
+
+    private void update(int index, String name, Integer age) {
+        nullAges[index] = Objects.isNull(age);
+        ages[index] = Objects.isNull(age) ? 0 : age;
+        nameOffsets[index] = -1;
+        nameLengths[index] = 0;
+        if (name == null) {
+            return;
+        }
+        if (namePoolSize + name.length() > namePool.length) {
+            compactNamePool(name.length());
+        }
+        name.getChars(0, name.length(), namePool, namePoolSize);
+        nameOffsets[index] = namePoolSize;
+        nameLengths[index] = name.length();
+        namePoolSize += name.length();
+    }
+
+    private void delete(int index) {
+        int moved = size - index - 1;
+        System.arraycopy(ids, index + 1, ids, index, moved);
+        System.arraycopy(ages, index + 1, ages, index, moved);
+        System.arraycopy(nullAges, index + 1, nullAges, index, moved);
+        System.arraycopy(nameOffsets, index + 1, nameOffsets, index, moved);
+        System.arraycopy(nameLengths, index + 1, nameLengths, index, moved);
+        size--;
+    }
+
+    //更新・削除で使われなくなった名前を取り除き、文字プールを詰め直す
+    private void compactNamePool(int reserve) {
+        int live = 0;
+        for (int i = 0; i < size; i++) {
+            live += nameLengths[i];
+        }
+        char[] compacted = new char[Math.max(256, (live + reserve) * 2)];
+        int used = 0;
+        for (int i = 0; i < size; i++) {
+            if (nameOffsets[i] < 0) {
+                continue;
+            }
+            System.arraycopy(namePool, nameOffsets[i], compacted, used, nameLengths[i]);
+            nameOffsets[i] = used;
+            used += nameLengths[i];
+        }
+        namePool = compacted;
+        namePoolSize = used;
+    }
+
+    private boolean matches(int index, CharacterQuery query) {
+        if (query.getMinAge() != null || query.getMaxAge() != null) {
+            if (nullAges[index]
+                    || (query.getMinAge() != null && ages[index] < query.getMinAge())
+                    || (query.getMaxAge() != null && ages[index] > query.getMaxAge())) {
+                return false;
+            }
+        }
+        String prefix = query.getNamePrefix();
+        if (prefix == null) {
+            return true;
+        }
+        if (nameOffsets[index] < 0 || nameLengths[index] < prefix.length()) {
+            return false;
+        }
+        //名前の文字列を作らずに文字プール上で比較する。MySQLのLIKEと同じく大文字小文字は区別しない
+        for (int i = 0; i < prefix.length(); i++) {
+            if (!CharacterQuery.equalsIgnoreCase(namePool[nameOffsets[index] + i], prefix.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(int id) {
+        return Arrays.binarySearch(ids, 0, size, id);
+    }
+
+    private String name(int index) {
+        return nameOffsets[index] < 0 ? null : new String(namePool, nameOffsets[index], nameLengths[index]);
+    }
+
+    private Integer age(int index) {
+        return nullAges[index] ? null : ages[index];
+    }
+
+    private Character toCharacter(int index) {
+        return new Character(ids[index], name(index), age(index));
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.ninthhomework.mapper;
+
+import com.example.ninthhomework.domain.user.model.Character;
+
+import java.util.Objects;
+
+//Characterは変更できないため、INSERT時に自動採番されたIDはこのクラスで受け取る
+public class NewCharacter {
+    private int id;
+    private final String name;
+    private final Integer age;
+
+    public NewCharacter(String name, Integer age) {
+        this.name = name;
+        this.age = age;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Integer getAge() {
+        return age;
+    }
+
+    public Character toCharacter() {
+        return new Character(id, name, age);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        NewCharacter that = (NewCharacter) o;
+        return id == that.id && Objects.equals(name, that.name) && Objects.equals(age, that.age);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, age);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.ninthhomework.mapper;
+
+import java.util.Objects;
+
+//schema_migrationsに記録する、適用済みの移行
+public class SchemaMigration {
+    private final int version;
+    private final String description;
+    private final long checksum;
+
+    public SchemaMigration(int version, String description, long checksum) {
+        this.version = version;
+        this.description = description;
+        this.checksum = checksum;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public long getChecksum() {
+        return checksum;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        SchemaMigration that = (SchemaMigration) o;
+        return version == that.version && checksum == that.checksum && Objects.equals(description, that.description);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(version, description, checksum);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.ninthhomework.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+//名前付きロックは接続ごとのため、ロックから解放までを同じトランザクション(同じ接続)で呼ぶ
+@Mapper
+public interface SchemaMigrationMapper {
+    public void createHistoryTable();
+
+    public List<SchemaMigration> findApplied();
+
+    public void insertApplied(SchemaMigration migration);
+
+    //移行のSQLを1文ずつ実行する
+    public void execute(@Param("statement") String statement);
+
+    //取れた時は1、待ち時間を過ぎた時は0を返す
+    public Integer acquireLock(@Param("name") String name, @Param("timeoutSeconds") long timeoutSeconds);
+
+    public Integer releaseLock(@Param("name") String name);
+}
@@ -0,0 +1,7 @@
+-- DockerのDBはsql/001で作成済みのため、表がない時だけ作成する
+CREATE TABLE IF NOT EXISTS characters (
+  id int unsigned AUTO_INCREMENT,
+  name VARCHAR(100) NOT NULL,
+  age integer(3),
+  PRIMARY KEY(id)
+);
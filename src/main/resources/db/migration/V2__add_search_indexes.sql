@@ -0,0 +1,4 @@
+-- 年齢での絞り込みと年齢順の一覧(ORDER BY age, id)用。id・nameまで含め、表を読まずにインデックスだけで返す
+CREATE INDEX idx_characters_age_id_name ON characters (age, id, name) ALGORITHM=INPLACE LOCK=NONE;
+-- 名前の前方一致と名前順の一覧(ORDER BY name, id)用
+CREATE INDEX idx_characters_name_id_age ON characters (name, id, age) ALGORITHM=INPLACE LOCK=NONE;
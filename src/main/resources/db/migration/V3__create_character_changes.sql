@@ -0,0 +1,10 @@
+-- 更新・削除と同じトランザクションで書き込む変更ログ。各ノードはseqの読み込み済み位置より後の行を読む
+CREATE TABLE IF NOT EXISTS character_changes (
+  seq bigint unsigned AUTO_INCREMENT,
+  character_id int unsigned NOT NULL,
+  change_type VARCHAR(16) NOT NULL,
+  origin VARCHAR(36) NOT NULL,
+  changed_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+  PRIMARY KEY(seq),
+  INDEX idx_character_changes_changed_at (changed_at)
+);
@@ -0,0 +1,10 @@
+-- 登録前にIDを割り当てるための採番テーブル(hi/lo)。各ノードはnext_idをブロックの大きさだけ進めて使う
+CREATE TABLE IF NOT EXISTS character_id_sequence (
+  name VARCHAR(32) NOT NULL,
+  next_id bigint unsigned NOT NULL,
+  PRIMARY KEY(name)
+);
+-- 登録済みのIDを割り当てないよう、最大のIDより後から始める
+INSERT INTO character_id_sequence(name, next_id)
+SELECT * FROM (SELECT 'characters' AS name, COALESCE(MAX(id), 0) + 1 AS next_id FROM characters) AS seed
+ON DUPLICATE KEY UPDATE next_id = GREATEST(character_id_sequence.next_id, seed.next_id);
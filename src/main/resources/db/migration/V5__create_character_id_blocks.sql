@@ -0,0 +1,9 @@
+-- 各ノードが予約したブロック。他のノードは使われている間のブロックのIDだけを未確定として扱う
+CREATE TABLE IF NOT EXISTS character_id_blocks (
+  start_id bigint unsigned NOT NULL,
+  end_id bigint unsigned NOT NULL,
+  origin VARCHAR(36) NOT NULL,
+  reserved_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+  PRIMARY KEY(start_id),
+  INDEX idx_character_id_blocks_reserved_at (reserved_at)
+);
@@ -0,0 +1,313 @@
+package com.example.ninthhomework.controller;
+
+import com.example.ninthhomework.config.CharacterAsyncProperties;
+import com.example.ninthhomework.config.CharacterBatchProperties;
+import com.example.ninthhomework.config.CharacterCacheProperties;
+import com.example.ninthhomework.config.CharacterCountProperties;
+import com.example.ninthhomework.config.CharacterDeadlineProperties;
+import com.example.ninthhomework.config.CharacterHedgeProperties;
+import com.example.ninthhomework.config.CharacterIdAllocationProperties;
+import com.example.ninthhomework.config.CharacterIdFilterProperties;
+import com.example.ninthhomework.config.CharacterInvalidationProperties;
+import com.example.ninthhomework.config.CharacterStaleProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.model.CharacterQuery;
+import com.example.ninthhomework.domain.user.service.CharacterAsyncService;
+import com.example.ninthhomework.domain.user.service.CharacterCache;
+import com.example.ninthhomework.domain.user.service.CharacterChangeBus;
+import com.example.ninthhomework.domain.user.service.CharacterChangeTransport;
+import com.example.ninthhomework.domain.user.service.CharacterCounter;
+import com.example.ninthhomework.domain.user.service.CharacterFrequencySketch;
+import com.example.ninthhomework.domain.user.service.CharacterHedgedReader;
+import com.example.ninthhomework.domain.user.service.CharacterIdAllocator;
+import com.example.ninthhomework.domain.user.service.CharacterIdFilter;
+import com.example.ninthhomework.domain.user.service.CharacterQueryPlanner;
+import com.example.ninthhomework.domain.user.service.CharacterServiceImpl;
+import com.example.ninthhomework.domain.user.service.CharacterStaleReadService;
+import com.example.ninthhomework.domain.user.service.RequestDeadline;
+import com.example.ninthhomework.exception.NotFoundException;
+import com.example.ninthhomework.exception.NotFoundExceptionHandler;
+import com.example.ninthhomework.mapper.CharacterIdSequenceMapper;
+import com.example.ninthhomework.mapper.CharacterMapper;
+import com.example.ninthhomework.mapper.CharacterReplica;
+import com.example.ninthhomework.mapper.NewCharacter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.ResourcePropertySource;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// リクエスト1回あたりにリクエストのスレッドで確保されるバイト数を測り、予算を超えたら失敗させる
+// DBの代わりに固定の結果を返すマッパーを使い、コントローラーからJSONへの書き出しまでを測る
+// JITの最適化で確保量が変わるため、十分に繰り返してから測る。予算は測った値に余裕を持たせたもの
+// 設定はapplication.propertiesの値(キャッシュ・まとめ読み込み・stale・処理期限)を読み込んで使う
+// 別のスレッドで行う処理は、リクエストのスレッドでは測れないため、その処理を直接呼び出して別に測る
+// ・年齢指定の一覧: stale.latency-budgetがあるため、2回目以降のDBの読み込みはCharacterAsyncServiceのスレッドで行う
+// ・ID指定の検索: キャッシュにある値はリクエストのスレッドで返す。batch.windowは0のため、まとめ読み込みのスレッドは使わない
+class CharacterAllocationBudgetTest {
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 10_000;
+
+    //確保量を増やす変更をした時は、理由を確認してから予算を見直す
+    private static final long FIND_BY_ID_BUDGET = 2 * 1024;
+    private static final long FIND_BY_AGE_BUDGET = 4 * 1024;
+    private static final long SELECT_CHARACTERS_BUDGET = 4 * 1024;
+    private static final long NOT_FOUND_BUDGET = 6 * 1024;
+    private static final long FIND_BY_AGE_DB_THREAD_BUDGET = 2 * 1024;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MockHttpServletRequest notFoundRequest = new MockHttpServletRequest("GET", "/characters/99");
+    private final NotFoundExceptionHandler notFoundExceptionHandler = new NotFoundExceptionHandler();
+    private Binder binder;
+    private CharacterServiceImpl characterService;
+    private CharacterAsyncService asyncService;
+    private CharacterListController controller;
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(THREADS.isThreadAllocatedMemorySupported());
+        THREADS.setThreadAllocatedMemoryEnabled(true);
+
+        binder = applicationProperties();
+        CharacterCacheProperties cacheProperties = bind("cache", CharacterCacheProperties.class);
+        CharacterBatchProperties batchProperties = bind("batch", CharacterBatchProperties.class);
+        CharacterAsyncProperties asyncProperties = bind("async", CharacterAsyncProperties.class);
+        CharacterInvalidationProperties invalidationProperties =
+                bind("invalidation", CharacterInvalidationProperties.class);
+        assertThat(cacheProperties.getMaxSize()).isPositive();
+        assertThat(batchProperties.getWindow()).isZero();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        CharacterMapper mapper = new StubCharacterMapper();
+        CharacterIdFilter idFilter = new CharacterIdFilter(bind("id-filter", CharacterIdFilterProperties.class));
+        CharacterCounter counter = new CharacterCounter(bind("count", CharacterCountProperties.class));
+        CharacterCache cache = new CharacterCache(cacheProperties, new CharacterFrequencySketch(cacheProperties));
+        CharacterChangeBus changeBus = new CharacterChangeBus(beanFactory.getBeanProvider(CharacterChangeTransport.class),
+                mapper, cache, idFilter, counter, invalidationProperties);
+        characterService = new CharacterServiceImpl(mapper, batchProperties, asyncProperties, idFilter, counter,
+                new CharacterQueryPlanner(mapper), cache, changeBus,
+                new CharacterIdAllocator(beanFactory.getBeanProvider(CharacterIdSequenceMapper.class),
+                        TransactionOperations.withoutTransaction(),
+                        bind("id-allocation", CharacterIdAllocationProperties.class), invalidationProperties),
+                new CharacterHedgedReader(mapper, beanFactory.getBeanProvider(CharacterReplica.class), cache,
+                        bind("hedge", CharacterHedgeProperties.class), asyncProperties,
+                        beanFactory.getBeanProvider(MeterRegistry.class)),
+                TransactionOperations.withoutTransaction());
+        characterService.rebuildIdFilter();
+        asyncService = new CharacterAsyncService(characterService, asyncProperties,
+                beanFactory.getBeanProvider(MeterRegistry.class));
+        controller = new CharacterListController(characterService,
+                new CharacterStaleReadService(characterService, asyncService, cache,
+                        bind("stale", CharacterStaleProperties.class)));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (asyncService != null) {
+            asyncService.close();
+        }
+        if (characterService != null) {
+            characterService.close();
+        }
+    }
+
+    @Test
+    public void ID指定の検索の確保量が予算内であること() {
+        long allocated = bytesPerRequest(defaultTimeout(), () -> write(controller.findCharacterById(1)));
+
+        assertThat(allocated).as("findCharacterById bytes/request").isLessThanOrEqualTo(FIND_BY_ID_BUDGET);
+    }
+
+    @Test
+    public void 年齢指定の一覧の確保量が予算内であること() {
+        SearchForm searchForm = new SearchForm(6, null, null, null, null, null);
+
+        //@RequestTimeout("5s")の期限で処理する
+        long allocated = bytesPerRequest(Duration.ofSeconds(5), () -> write(controller.findCharacterByAge(searchForm)));
+
+        assertThat(allocated).as("findCharacterByAge bytes/request").isLessThanOrEqualTo(FIND_BY_AGE_BUDGET);
+    }
+
+    @Test
+    public void 年齢指定の一覧のDBを読むスレッドでの確保量が予算内であること() {
+        assertThat(bind("stale", CharacterStaleProperties.class).getLatencyBudget()).isPositive();
+
+        //CharacterAsyncServiceのスレッドで行う処理を、このスレッドで直接呼び出して測る
+        long allocated = bytesPerRequest(Duration.ofSeconds(5), () -> characterService.findByAge(6));
+
+        assertThat(allocated).as("findByAge on the db thread bytes/request")
+                .isLessThanOrEqualTo(FIND_BY_AGE_DB_THREAD_BUDGET);
+    }
+
+    @Test
+    public void ID以外の一覧の確保量が予算内であること() {
+        long allocated = bytesPerRequest(defaultTimeout(), () -> write(controller.selectCharacters()));
+
+        assertThat(allocated).as("selectCharacters bytes/request").isLessThanOrEqualTo(SELECT_CHARACTERS_BUDGET);
+    }
+
+    @Test
+    public void 存在しないIDの404の確保量が予算内であること() {
+        long allocated = bytesPerRequest(defaultTimeout(), () -> {
+            try {
+                controller.findCharacterById(99);
+                throw new AssertionError("NotFoundException was not thrown");
+            } catch (NotFoundException e) {
+                write(notFoundExceptionHandler.handlerNotFound(e, notFoundRequest));
+            }
+        });
+
+        assertThat(allocated).as("not found bytes/request").isLessThanOrEqualTo(NOT_FOUND_BUDGET);
+    }
+
+    //RequestDeadlineInterceptorと同じく、リクエストごとに期限を作ってスレッドに結び付ける
+    private long bytesPerRequest(Duration timeout, Runnable request) {
+        assertThat(timeout).isPositive();
+        Runnable withDeadline = () -> {
+            RequestDeadline.attach(RequestDeadline.after(timeout));
+            try {
+                request.run();
+            } finally {
+                RequestDeadline.detach();
+            }
+        };
+        for (int i = 0; i < WARMUP; i++) {
+            withDeadline.run();
+        }
+        long before = THREADS.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) {
+            withDeadline.run();
+        }
+        return (THREADS.getCurrentThreadAllocatedBytes() - before) / ITERATIONS;
+    }
+
+    private Duration defaultTimeout() {
+        return bind("deadline", CharacterDeadlineProperties.class).getDefaultTimeout();
+    }
+
+    private <T> T bind(String name, Class<T> type) {
+        return binder.bindOrCreate("characters." + name, type);
+    }
+
+    private static Binder applicationProperties() {
+        StandardEnvironment environment = new StandardEnvironment();
+        try {
+            environment.getPropertySources()
+                    .addFirst(new ResourcePropertySource(new ClassPathResource("application.properties")));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Binder.get(environment);
+    }
+
+    private void write(ResponseEntity<?> response) {
+        try {
+            objectMapper.writeValue(OutputStream.nullOutputStream(), response.getBody());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //DBの代わりに、あらかじめ作っておいた結果を返す
+    private static final class StubCharacterMapper implements CharacterMapper {
+        private final List<Character> characters = List.of(
+                new Character(1, "mei", 5), new Character(2, "satuki", 10), new Character(3, "tatuo", 32));
+        private final List<Character> olderThanSix = List.of(characters.get(1), characters.get(2));
+
+        @Override
+        public List<Character> findAll() {
+            return characters;
+        }
+
+        @Override
+        public List<Character> searchByAge(Integer age) {
+            return olderThanSix;
+        }
+
+        @Override
+        public Optional<Character> searchById(int id) {
+            return characters.stream().filter(character -> character.getId() == id).findFirst();
+        }
+
+        @Override
+        public List<Character> searchByIds(List<Integer> ids) {
+            return characters.stream().filter(character -> ids.contains(character.getId())).toList();
+        }
+
+        @Override
+        public List<Character> searchByQuery(CharacterQuery query) {
+            return query.apply(characters.stream());
+        }
+
+        @Override
+        public List<Integer> findAllIds() {
+            return List.of(1, 2, 3);
+        }
+
+        @Override
+        public long countAll() {
+            return characters.size();
+        }
+
+        @Override
+        public long countByAge(int age) {
+            return olderThanSix.size();
+        }
+
+        @Override
+        public void createCharacter(NewCharacter character) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void insertCharacters(List<Character> characters) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void updateCharacter(Character character) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int upsertCharacter(Character character) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int upsertCharacters(List<Character> characters) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public int deleteCharacter(int id) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void deleteAll() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.ninthhomework.controller;
+
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.service.CharacterAsyncService;
+import com.example.ninthhomework.exception.NotFoundException;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(CharacterAsyncController.class)
+class CharacterAsyncControllerTest {
+    @MockBean
+    private CharacterAsyncService characterAsyncService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        doReturn(Duration.ofSeconds(2)).when(characterAsyncService).getTimeout();
+    }
+
+    @Test
+    public void 指定IDの情報を非同期で返すこと() throws Exception {
+        doReturn(CompletableFuture.completedFuture(new Character(1, "mei", 5)))
+                .when(characterAsyncService).findById(1);
+
+        MvcResult result = mockMvc.perform(get("/async/characters/1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().json("""
+                        {
+                            "id" : 1,
+                            "name": "mei",
+                            "age" : 5
+                        }
+                        """));
+    }
+
+    @Test
+    public void 指定年齢より年上のデータを非同期で返すこと() throws Exception {
+        doReturn(CompletableFuture.completedFuture(List.of(new Character(3, "tatuo", 32))))
+                .when(characterAsyncService).findByAge(30);
+
+        MvcResult result = mockMvc.perform(get("/async/characters?age=30"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("tatuo"));
+    }
+
+    @Test
+    public void IDが存在しない時は404を返すこと() throws Exception {
+        doReturn(CompletableFuture.failedFuture(new NotFoundException(99)))
+                .when(characterAsyncService).findById(99);
+
+        MvcResult result = mockMvc.perform(get("/async/characters/99"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("ID:99は見つかりませんでした"));
+    }
+
+    @Test
+    public void 指定したIDが上限を超える時は400を返すこと() throws Exception {
+        String ids = String.join(",", Collections.nCopies(1001, "1"));
+
+        mockMvc.perform(get("/async/characters").param("ids", ids))
+                .andExpect(status().isBadRequest());
+        verify(characterAsyncService, never()).findByIds(any());
+    }
+
+    @Test
+    public void 時間内に終わらない時は503を返し処理をキャンセルすること() throws Exception {
+        CompletableFuture<Character> pending = new CompletableFuture<>();
+        doReturn(pending).when(characterAsyncService).findById(1);
+
+        MvcResult result = mockMvc.perform(get("/async/characters/1"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(null);
+        }
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.status").value("503"));
+        assertThat(pending).isCancelled();
+    }
+}
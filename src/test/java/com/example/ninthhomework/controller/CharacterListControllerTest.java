@@ -1,7 +1,10 @@
 package com.example.ninthhomework.controller;
 
 import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.model.CharacterQuery;
 import com.example.ninthhomework.domain.user.service.CharacterServiceImpl;
+import com.example.ninthhomework.domain.user.service.CharacterStaleReadService;
+import com.example.ninthhomework.domain.user.service.Served;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectWriter;
 import org.junit.jupiter.api.Test;
@@ -18,16 +21,24 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -41,6 +52,9 @@ class CharacterListControllerTest {
     @MockBean
     private CharacterServiceImpl characterServiceImpl;
 
+    @MockBean
+    private CharacterStaleReadService staleReadService;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -48,9 +62,10 @@ class CharacterListControllerTest {
     public void 指定IDの情報を返すこと() throws Exception {
         Character character = new Character(1, "mei", 5);
 
-        doReturn(character).when(characterServiceImpl).findById(1);
+        doReturn(Served.fresh(character)).when(staleReadService).findById(1);
         mockMvc.perform(get("/characters/1").contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Warning"))
                 .andExpect(MockMvcResultMatchers.content().json("""
                         {
                             "id" : 1,
@@ -90,11 +105,36 @@ class CharacterListControllerTest {
 
     }
 
+    @Test
+    public void DBから読めずに最後に読めた値を返す時はWarningとAgeヘッダーを付けること() throws Exception {
+        doReturn(Served.stale(new Character(1, "mei", 5), Duration.ofMillis(42_500)))
+                .when(staleReadService).findById(1);
+
+        mockMvc.perform(get("/characters/1").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Warning", "110 - \"Response is Stale\""))
+                .andExpect(header().string("Age", "42"))
+                .andExpect(jsonPath("$.name").value("mei"));
+    }
+
+    @Test
+    public void 最後に読めた一覧を返す時は件数もその一覧の件数とすること() throws Exception {
+        doReturn(Served.stale(List.of(new Character(1, "mei", 5), new Character(2, "satuki", 10)), Duration.ofSeconds(3)))
+                .when(staleReadService).findByAge(null);
+
+        mockMvc.perform(get("/characters").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "2"))
+                .andExpect(header().string("Age", "3"))
+                .andExpect(jsonPath("$", hasSize(2)));
+        verify(characterServiceImpl, never()).count(null);
+    }
+
     @Test
     public void クエリで指定した年齢以上のデータを返すこと() throws Exception {
         List<Character> characters = new ArrayList<>();
         characters.add(new Character(3, "tatuo", 32));
-        doReturn(characters).when(characterServiceImpl).findByAge(30);
+        doReturn(Served.fresh(characters)).when(staleReadService).findByAge(30);
 
         mockMvc.perform(get("/characters?age=30").contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
@@ -117,9 +157,11 @@ class CharacterListControllerTest {
         characters.add(new Character(2, "satuki", 10));
         characters.add(new Character(3, "tatuo", 32));
 
-        doReturn(characters).when(characterServiceImpl).findByAge(null);
+        doReturn(Served.fresh(characters)).when(staleReadService).findByAge(null);
+        doReturn(3L).when(characterServiceImpl).count(null);
         mockMvc.perform(get("/characters").contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "3"))
                 .andExpect(jsonPath("$", hasSize(3)))
                 .andExpect(MockMvcResultMatchers.content().json("""
                         [
@@ -142,6 +184,41 @@ class CharacterListControllerTest {
                          """));
     }
 
+    @Test
+    public void 複数ID指定の時は指定IDのデータをまとめて返すこと() throws Exception {
+        List<Character> characters = new ArrayList<>();
+        characters.add(new Character(1, "mei", 5));
+        characters.add(new Character(3, "tatuo", 32));
+        doReturn(characters).when(characterServiceImpl).findByIds(List.of(1, 3));
+
+        mockMvc.perform(get("/characters?ids=1,3").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(MockMvcResultMatchers.content().json("""
+                        [
+                          {
+                            "id": 1,
+                            "name": "mei",
+                            "age": 5
+                          },
+                          {
+                            "id": 3,
+                            "name": "tatuo",
+                            "age": 32
+                          }
+                        ]
+                        """));
+    }
+
+    @Test
+    public void 指定したIDが上限を超える時は400を返すこと() throws Exception {
+        String ids = String.join(",", Collections.nCopies(1001, "1"));
+
+        mockMvc.perform(get("/characters").param("ids", ids).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+        verify(characterServiceImpl, never()).findByIds(any());
+    }
+
     @Test
     public void 新規のデータが登録できること() throws Exception {
         CreateForm inputData = new CreateForm("mei", 5);
@@ -186,6 +263,72 @@ class CharacterListControllerTest {
                 """, response, JSONCompareMode.STRICT);
     }
 
+    @Test
+    public void 指定されたIDで登録または置き換えできること() throws Exception {
+        doReturn(new Character(10, "kanta", 11)).when(characterServiceImpl).upsertCharacter(10, "kanta", 11);
+
+        String response = mockMvc.perform(put("/characters/10")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"name": "kanta", "age": 11}
+                                """))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        JSONAssert.assertEquals("""
+                {
+                    "message" : "character successfully saved"
+                }
+                """, response, JSONCompareMode.STRICT);
+        verify(characterServiceImpl).upsertCharacter(10, "kanta", 11);
+        verify(characterServiceImpl, never()).findById(10);
+    }
+
+    @Test
+    public void IDが1未満の時は登録または置き換えしないこと() throws Exception {
+        mockMvc.perform(put("/characters/0")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"name": "kanta", "age": 11}
+                                """))
+                .andExpect(status().isBadRequest());
+        verify(characterServiceImpl, never()).upsertCharacter(anyInt(), any(), any());
+    }
+
+    @Test
+    public void まとめて登録または置き換えできること() throws Exception {
+        String response = mockMvc.perform(put("/characters")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"characters": [
+                                    {"id": 1, "name": "mei", "age": 6},
+                                    {"id": 10, "name": "kanta", "age": 11}
+                                ]}
+                                """))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        JSONAssert.assertEquals("""
+                {
+                    "message" : "characters successfully saved",
+                    "saved" : "2"
+                }
+                """, response, JSONCompareMode.STRICT);
+        verify(characterServiceImpl).upsertCharacters(List.of(new Character(1, "mei", 6), new Character(10, "kanta", 11)));
+    }
+
+    @Test
+    public void まとめて登録する内容に不備がある時は何も登録しないこと() throws Exception {
+        mockMvc.perform(put("/characters")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"characters": [
+                                    {"id": 1, "name": "mei", "age": 6},
+                                    {"id": 0, "name": "kanta", "age": 11}
+                                ]}
+                                """))
+                .andExpect(status().isBadRequest());
+        verify(characterServiceImpl, never()).upsertCharacters(any());
+    }
+
     @Test
     public void 指定されたIDのデータが削除できること() throws Exception {
         doNothing().when(characterServiceImpl).deleteCharacter(1);
@@ -199,5 +342,32 @@ class CharacterListControllerTest {
                 }
                 """, response, JSONCompareMode.STRICT);
     }
-}
 
+    @Test
+    public void 指定年齢より年上の件数を返すこと() throws Exception {
+        doReturn(2L).when(characterServiceImpl).count(5);
+        mockMvc.perform(get("/characters/count?age=5").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(MockMvcResultMatchers.content().json("""
+                        {
+                            "count": 2
+                        }
+                        """));
+    }
+
+    @Test
+    public void 複数の条件を組み合わせて検索できること() throws Exception {
+        doReturn(List.of(new Character(3, "tatuo", 32), new Character(2, "satuki", 10)))
+                .when(characterServiceImpl).search(CharacterQuery.of(6, 40, null, "-age", 10));
+        mockMvc.perform(get("/characters?age=5&maxAge=40&sort=-age&limit=10").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].name").value("tatuo"));
+    }
+
+    @Test
+    public void 検索条件が不正な時は400を返すこと() throws Exception {
+        mockMvc.perform(get("/characters?sort=password&limit=0").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.ninthhomework.controller;
+
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CharacterRequestRecorderTest {
+    private static final String EVENT = "com.example.ninthhomework.CharacterRequest";
+
+    @TempDir
+    Path dir;
+
+    CharacterRequestRecorder recorder = new CharacterRequestRecorder();
+
+    @Test
+    public void APIのパターンとステータスと書き込んだバイト数を記録すること() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/characters/1");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        Path file = dir.resolve("request.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(EVENT).withoutThreshold();
+            recording.start();
+            recorder.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+                @Override
+                protected void service(HttpServletRequest req, HttpServletResponse res) throws IOException {
+                    req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/characters/{id}");
+                    res.setStatus(HttpServletResponse.SC_NOT_FOUND);
+                    res.getWriter().write("{\"name\":\"めい\"}");
+                }
+            }));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(EVENT))
+                .toList();
+        assertThat(events).hasSize(1);
+        assertThat(events.get(0).getString("endpoint")).isEqualTo("GET /characters/{id}");
+        assertThat(events.get(0).getInt("status")).isEqualTo(404);
+        //UTF-8では「めい」が6バイトとなる
+        assertThat(events.get(0).getLong("bytesWritten")).isEqualTo(16);
+        assertThat(response.getContentAsString(StandardCharsets.UTF_8)).isEqualTo("{\"name\":\"めい\"}");
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.ninthhomework.controller;
+
+import com.example.ninthhomework.config.CharacterCacheProperties;
+import com.example.ninthhomework.domain.user.service.CharacterCache;
+import com.example.ninthhomework.domain.user.service.CharacterFrequencySketch;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotCharactersEndpointTest {
+    @Test
+    public void よく読まれるIDを推定回数の多い順に返すこと() {
+        CharacterCacheProperties properties = new CharacterCacheProperties();
+        CharacterFrequencySketch sketch = new CharacterFrequencySketch(properties);
+        CharacterCache cache = new CharacterCache(properties, sketch);
+        cache.get(1);
+        cache.get(2);
+        cache.get(2);
+
+        Map<String, Object> body = new HotCharactersEndpoint(sketch, cache).hotCharacters();
+
+        assertThat(body.get("characters")).isEqualTo(List.of(
+                Map.of("id", 2, "count", 2),
+                Map.of("id", 1, "count", 1)));
+        assertThat(body).containsEntry("cacheSize", 0);
+    }
+}
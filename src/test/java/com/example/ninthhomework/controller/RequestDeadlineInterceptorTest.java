@@ -0,0 +1,110 @@
+package com.example.ninthhomework.controller;
+
+import com.example.ninthhomework.domain.user.service.RequestDeadline;
+import com.example.ninthhomework.exception.DeadlineExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class RequestDeadlineInterceptorTest {
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.detach();
+    }
+
+    @Test
+    public void 既定の期限とヘッダーの短い方を使うこと() throws Exception {
+        RequestDeadlineInterceptor interceptor = new RequestDeadlineInterceptor(Duration.ofSeconds(10));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(RequestDeadlineInterceptor.TIMEOUT_HEADER, "3000");
+
+        interceptor.preHandle(request, response, handler("withoutTimeout"));
+
+        assertThat(remainingSeconds()).isEqualTo(3);
+    }
+
+    @Test
+    public void ヘッダーでは期限を延ばせないこと() throws Exception {
+        RequestDeadlineInterceptor interceptor = new RequestDeadlineInterceptor(Duration.ofSeconds(10));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(RequestDeadlineInterceptor.TIMEOUT_HEADER, "1m");
+
+        interceptor.preHandle(request, response, handler("withTimeout"));
+
+        assertThat(remainingSeconds()).isEqualTo(2);
+    }
+
+    @Test
+    public void 期限なしのAPIはヘッダーの指定がない時は期限を設けないこと() throws Exception {
+        RequestDeadlineInterceptor interceptor = new RequestDeadlineInterceptor(Duration.ofSeconds(10));
+
+        interceptor.preHandle(new MockHttpServletRequest(), response, new HandlerMethod(new Unlimited(), "handle"));
+
+        assertThat(RequestDeadline.current()).isEmpty();
+    }
+
+    @Test
+    public void 期限が過ぎたリクエストは受け付けないこと() {
+        RequestDeadlineInterceptor interceptor = new RequestDeadlineInterceptor(Duration.ZERO);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(RequestDeadlineInterceptor.TIMEOUT_HEADER, "0");
+
+        assertThatExceptionOfType(DeadlineExceededException.class)
+                .isThrownBy(() -> interceptor.preHandle(request, response, handler("withoutTimeout")));
+        assertThat(RequestDeadline.current()).isEmpty();
+    }
+
+    @Test
+    public void 不正なヘッダーは400とすること() {
+        RequestDeadlineInterceptor interceptor = new RequestDeadlineInterceptor(Duration.ZERO);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader(RequestDeadlineInterceptor.TIMEOUT_HEADER, "soon");
+
+        assertThatExceptionOfType(ResponseStatusException.class)
+                .isThrownBy(() -> interceptor.preHandle(request, response, handler("withoutTimeout")));
+    }
+
+    @Test
+    public void 処理の終了後は期限を外すこと() throws Exception {
+        RequestDeadlineInterceptor interceptor = new RequestDeadlineInterceptor(Duration.ofSeconds(10));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        interceptor.preHandle(request, response, handler("withoutTimeout"));
+
+        interceptor.afterCompletion(request, response, handler("withoutTimeout"), null);
+
+        assertThat(RequestDeadline.current()).isEmpty();
+    }
+
+    private static int remainingSeconds() {
+        return RequestDeadline.current().orElseThrow().remainingSeconds();
+    }
+
+    private static HandlerMethod handler(String name) throws NoSuchMethodException {
+        return new HandlerMethod(new Endpoints(), Endpoints.class.getMethod(name));
+    }
+
+    static class Endpoints {
+        public void withoutTimeout() {
+        }
+
+        @RequestTimeout("2s")
+        public void withTimeout() {
+        }
+    }
+
+    @RequestTimeout("0")
+    static class Unlimited {
+        public void handle() {
+        }
+    }
+}
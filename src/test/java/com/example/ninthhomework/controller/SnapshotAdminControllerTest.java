@@ -0,0 +1,33 @@
+package com.example.ninthhomework.controller;
+
+import com.example.ninthhomework.domain.user.service.CharacterSnapshotService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SnapshotAdminControllerTest {
+    @Mock
+    CharacterSnapshotService snapshotService;
+
+    @Test
+    public void 復元APIが無効な時は全件を入れ替えずに403を返すこと() throws Exception {
+        SnapshotAdminController controller = new SnapshotAdminController(snapshotService);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent(new byte[]{'C', 'H', 'R', 'S'});
+
+        assertThatExceptionOfType(ResponseStatusException.class)
+                .isThrownBy(() -> controller.importSnapshot(request))
+                .satisfies(e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN));
+        verify(snapshotService, never()).importFrom(any());
+    }
+}
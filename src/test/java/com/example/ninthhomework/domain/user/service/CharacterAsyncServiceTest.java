@@ -0,0 +1,114 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterAsyncProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CharacterAsyncServiceTest {
+    @Mock
+    CharacterService characterService;
+
+    @Mock
+    ObjectProvider<MeterRegistry> meterRegistry;
+
+    CharacterAsyncService asyncService;
+
+    @BeforeEach
+    void setUp() {
+        CharacterAsyncProperties properties = new CharacterAsyncProperties();
+        properties.setPoolSize(1);
+        properties.setQueueCapacity(1);
+        asyncService = new CharacterAsyncService(characterService, properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        asyncService.close();
+    }
+
+    @Test
+    public void 呼び出し元とは別のスレッドで検索すること() throws Exception {
+        doAnswer(invocation -> new Character(1, Thread.currentThread().getName(), 5))
+                .when(characterService).findById(1);
+
+        Character character = asyncService.findById(1).get(5, TimeUnit.SECONDS);
+
+        assertThat(character.getName()).startsWith("character-db-");
+    }
+
+    @Test
+    public void 待ち行列が一杯の時は受け付けずに例外で完了すること() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 1L;
+        }).when(characterService).count(null);
+        try {
+            CompletableFuture<Long> running = asyncService.count(null);
+            CompletableFuture<Long> queued = asyncService.count(null);
+            CompletableFuture<Long> rejected = asyncService.count(null);
+
+            assertThatExceptionOfType(ExecutionException.class)
+                    .isThrownBy(() -> rejected.get(5, TimeUnit.SECONDS))
+                    .withCauseInstanceOf(ServiceUnavailableException.class);
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void 実行前にキャンセルされた検索はDBへ問い合わせないこと() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return 1L;
+        }).when(characterService).count(null);
+        CompletableFuture<Long> running = asyncService.count(null);
+        CompletableFuture<Character> queued = asyncService.findById(1);
+
+        queued.cancel(false);
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        asyncService.count(null).get(5, TimeUnit.SECONDS);
+
+        verify(characterService, never()).findById(1);
+    }
+
+    @Test
+    public void 呼び出し元の処理期限を実行するスレッドに引き継ぐこと() throws Exception {
+        doAnswer(invocation -> RequestDeadline.current().isPresent() ? 1L : 0L).when(characterService).count(null);
+
+        RequestDeadline.attach(RequestDeadline.after(Duration.ofMinutes(1)));
+        CompletableFuture<Long> withDeadline;
+        try {
+            withDeadline = asyncService.count(null);
+        } finally {
+            RequestDeadline.detach();
+        }
+
+        assertThat(withDeadline.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+        assertThat(asyncService.count(null).get(5, TimeUnit.SECONDS)).isEqualTo(0);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterCacheProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CharacterCacheTest {
+    CharacterCache cache = cache(properties(2, false));
+
+    private static CharacterCacheProperties properties(int maxSize, boolean admission) {
+        CharacterCacheProperties properties = new CharacterCacheProperties();
+        properties.setMaxSize(maxSize);
+        properties.setAdmission(admission);
+        return properties;
+    }
+
+    private static CharacterCache cache(CharacterCacheProperties properties) {
+        return new CharacterCache(properties, new CharacterFrequencySketch(properties));
+    }
+
+    @Test
+    public void 保持した値を返すこと() {
+        cache.put(new Character(1, "mei", 5), cache.stamp());
+
+        assertThat(cache.get(1)).isEqualTo(new Character(1, "mei", 5));
+        assertThat(cache.get(2)).isNull();
+    }
+
+    @Test
+    public void 上限を超えた時は最も長く使われていない値を捨てること() {
+        cache.put(new Character(1, "mei", 5), cache.stamp());
+        cache.put(new Character(2, "satuki", 10), cache.stamp());
+        cache.get(1);
+        cache.put(new Character(3, "tatuo", 32), cache.stamp());
+
+        assertThat(cache.get(1)).isNotNull();
+        assertThat(cache.get(2)).isNull();
+        assertThat(cache.get(3)).isNotNull();
+    }
+
+    @Test
+    public void 読み込み中に無効化された時は読み込んだ値を保持しないこと() {
+        long stamp = cache.stamp();
+        cache.evict(1);
+        cache.put(new Character(1, "mei", 5), stamp);
+
+        assertThat(cache.get(1)).isNull();
+    }
+
+    @Test
+    public void 全件を捨てられること() {
+        cache.put(new Character(1, "mei", 5), cache.stamp());
+        cache.clear();
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void 上限が0の時は保持しないこと() {
+        CharacterCache disabled = cache(properties(0, false));
+        disabled.put(new Character(1, "mei", 5), disabled.stamp());
+
+        assertThat(disabled.isEnabled()).isFalse();
+        assertThat(disabled.get(1)).isNull();
+    }
+
+    @Test
+    public void admissionが有効な時は一度しか読まれないIDでよく読まれる値を追い出さないこと() {
+        CharacterCache tinyLfu = cache(properties(2, true));
+        for (int i = 0; i < 5; i++) {
+            tinyLfu.get(1);
+            tinyLfu.get(2);
+        }
+        tinyLfu.put(new Character(1, "mei", 5), tinyLfu.stamp());
+        tinyLfu.put(new Character(2, "satuki", 10), tinyLfu.stamp());
+
+        for (int id = 100; id < 200; id++) {
+            tinyLfu.get(id);
+            tinyLfu.put(new Character(id, "crawler", 1), tinyLfu.stamp());
+        }
+
+        assertThat(tinyLfu.get(1)).isNotNull();
+        assertThat(tinyLfu.get(2)).isNotNull();
+        assertThat(tinyLfu.getRejections()).isEqualTo(100);
+    }
+
+    @Test
+    public void admissionが有効な時は追い出される値より多く読まれるIDを保持すること() {
+        CharacterCache tinyLfu = cache(properties(1, true));
+        tinyLfu.get(1);
+        tinyLfu.put(new Character(1, "mei", 5), tinyLfu.stamp());
+        for (int i = 0; i < 3; i++) {
+            tinyLfu.get(2);
+        }
+        tinyLfu.put(new Character(2, "satuki", 10), tinyLfu.stamp());
+
+        assertThat(tinyLfu.get(2)).isNotNull();
+        assertThat(tinyLfu.get(1)).isNull();
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterCacheProperties;
+import com.example.ninthhomework.config.CharacterCountProperties;
+import com.example.ninthhomework.config.CharacterIdFilterProperties;
+import com.example.ninthhomework.config.CharacterInvalidationProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.model.CharacterChange;
+import com.example.ninthhomework.mapper.CharacterMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CharacterCacheWarmerTest {
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    CharacterChangeTransport transport;
+
+    @Mock
+    ObjectProvider<CharacterChangeTransport> transportProvider;
+
+    @Mock
+    CharacterMapper characterMapper;
+
+    CharacterCacheProperties cacheProperties = new CharacterCacheProperties();
+    CharacterInvalidationProperties invalidationProperties = new CharacterInvalidationProperties();
+
+    @BeforeEach
+    void setUp() {
+        cacheProperties.setMaxSize(10);
+        cacheProperties.setSnapshotPath(tempDir.resolve("cache.snapshot").toString());
+    }
+
+    //再起動をまたぐ1ノード分の構成
+    private class Node {
+        final CharacterFrequencySketch sketch = new CharacterFrequencySketch(cacheProperties);
+        final CharacterCache cache = new CharacterCache(cacheProperties, sketch);
+        final CharacterChangeBus changeBus = new CharacterChangeBus(transportProvider, characterMapper, cache,
+                new CharacterIdFilter(new CharacterIdFilterProperties()),
+                new CharacterCounter(new CharacterCountProperties()), invalidationProperties);
+        final CharacterCacheWarmer warmer = new CharacterCacheWarmer(cache, sketch, changeBus, cacheProperties,
+                invalidationProperties);
+    }
+
+    private Node saveTwoCharacters() throws Exception {
+        doReturn(transport).when(transportProvider).getIfAvailable();
+        doReturn(10L).when(transport).position();
+        Node node = new Node();
+        for (int i = 0; i < 3; i++) {
+            node.cache.get(1);
+        }
+        node.cache.get(2);
+        node.cache.put(new Character(1, "mei", 5), node.cache.stamp());
+        node.cache.put(new Character(2, null, null), node.cache.stamp());
+        assertThat(node.warmer.save()).isEqualTo(2);
+        return node;
+    }
+
+    @Test
+    public void 保存したキャッシュを起動時に読み込み保存時点の位置から変更ログを読み直すこと() throws Exception {
+        saveTwoCharacters();
+        doReturn(true).when(transport).resumeFrom(10);
+        doReturn(List.of()).when(transport).poll();
+
+        Node restarted = new Node();
+        restarted.warmer.restore();
+
+        assertThat(restarted.cache.values()).containsExactly(new Character(1, "mei", 5), new Character(2, null, null));
+        assertThat(restarted.sketch.frequency(1)).isEqualTo(3);
+        verify(transport).resumeFrom(10);
+    }
+
+    @Test
+    public void 停止中に他のノードで更新された値は読み込み後に取り除くこと() throws Exception {
+        saveTwoCharacters();
+        doReturn(true).when(transport).resumeFrom(10);
+        doReturn(List.of(new CharacterChange(11, 1, CharacterChange.Type.UPDATE, "other"))).when(transport).poll();
+
+        Node restarted = new Node();
+        restarted.warmer.restore();
+
+        assertThat(restarted.cache.values()).containsExactly(new Character(2, null, null));
+    }
+
+    @Test
+    public void 変更ログの保持期間より古いファイルは読み込まないこと() throws Exception {
+        doReturn(transport).when(transportProvider).getIfAvailable();
+        doReturn(10L).when(transport).position();
+        Instant savedAt = Instant.now().minus(invalidationProperties.getRetention()).minus(Duration.ofMinutes(1));
+        new CharacterCacheSnapshot(savedAt, 5, List.of(new Character(1, "mei", 5)), new int[]{3})
+                .write(Path.of(cacheProperties.getSnapshotPath()));
+
+        Node restarted = new Node();
+        restarted.warmer.restore();
+
+        assertThat(restarted.cache.size()).isZero();
+        verify(transport, never()).resumeFrom(anyLong());
+    }
+
+    @Test
+    public void 変更ログを読めない構成では保存しないこと() throws Exception {
+        Node node = new Node();
+        node.cache.put(new Character(1, "mei", 5), node.cache.stamp());
+
+        assertThat(node.warmer.save()).isZero();
+        assertThat(Files.exists(Path.of(cacheProperties.getSnapshotPath()))).isFalse();
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterCacheProperties;
+import com.example.ninthhomework.config.CharacterCountProperties;
+import com.example.ninthhomework.config.CharacterIdFilterProperties;
+import com.example.ninthhomework.config.CharacterInvalidationProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.model.CharacterChange;
+import com.example.ninthhomework.mapper.CharacterMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CharacterChangeBusTest {
+    @Mock
+    CharacterChangeTransport transport;
+
+    @Mock
+    ObjectProvider<CharacterChangeTransport> transportProvider;
+
+    @Mock
+    CharacterMapper characterMapper;
+
+    CharacterCacheProperties cacheProperties = new CharacterCacheProperties();
+    CharacterInvalidationProperties invalidationProperties = new CharacterInvalidationProperties();
+    CharacterIdFilter idFilter = new CharacterIdFilter(new CharacterIdFilterProperties());
+    CharacterCache cache;
+    CharacterCounter counter;
+    CharacterChangeBus changeBus;
+
+    @BeforeEach
+    void setUp() {
+        cacheProperties.setMaxSize(10);
+        invalidationProperties.setMaxLag(Duration.ZERO);
+        cache = new CharacterCache(cacheProperties, new CharacterFrequencySketch(cacheProperties));
+        counter = new CharacterCounter(new CharacterCountProperties());
+        doReturn(transport).when(transportProvider).getIfAvailable();
+        changeBus = new CharacterChangeBus(transportProvider, characterMapper, cache, idFilter, counter,
+                invalidationProperties);
+        idFilter.rebuild(() -> List.of(1, 2, 3));
+        cache.put(new Character(1, "mei", 5), cache.stamp());
+        cache.put(new Character(2, "satuki", 10), cache.stamp());
+    }
+
+    private CharacterChange change(long seq, int id, CharacterChange.Type type, String origin) {
+        return new CharacterChange(seq, id, type, origin);
+    }
+
+    @Test
+    public void 他のノードで更新削除されたIDをキャッシュから取り除くこと() {
+        changeBus.apply(List.of(
+                change(1, 1, CharacterChange.Type.UPDATE, "other"),
+                change(2, 2, CharacterChange.Type.DELETE, "other")));
+
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.get(2)).isNull();
+        assertThat(idFilter.mightExist(1)).isTrue();
+        assertThat(idFilter.mightExist(2)).isFalse();
+    }
+
+    @Test
+    public void 他のノードで登録されたIDをIDフィルターに追加すること() {
+        idFilter.remove(2);
+
+        changeBus.apply(List.of(change(1, 2, CharacterChange.Type.CREATE, "other")));
+
+        assertThat(idFilter.mightExist(2)).isTrue();
+    }
+
+    @Test
+    public void 他のノードで登録置き換えされたIDはキャッシュから取り除きIDフィルターに追加すること() {
+        idFilter.remove(2);
+
+        changeBus.apply(List.of(
+                change(1, 1, CharacterChange.Type.UPSERT, "other"),
+                change(2, 2, CharacterChange.Type.UPSERT, "other")));
+
+        assertThat(cache.get(1)).isNull();
+        assertThat(idFilter.mightExist(2)).isTrue();
+    }
+
+    @Test
+    public void 自分のノードの変更は反映済みのため無視すること() {
+        changeBus.apply(List.of(change(1, 1, CharacterChange.Type.DELETE, changeBus.getNodeId())));
+
+        assertThat(cache.get(1)).isNotNull();
+        assertThat(idFilter.mightExist(1)).isTrue();
+    }
+
+    @Test
+    public void 件数が追えない変更の後はキャッシュを捨ててIDフィルターを読み込み直すこと() {
+        doReturn(List.of(5)).when(characterMapper).findAllIds();
+
+        changeBus.apply(List.of(change(1, 0, CharacterChange.Type.RESET, "other")));
+
+        assertThat(cache.size()).isZero();
+        assertThat(idFilter.mightExist(1)).isFalse();
+        assertThat(idFilter.mightExist(5)).isTrue();
+    }
+
+    @Test
+    public void 他のノードの変更があった時は件数をDBから読み込み直すこと() {
+        doReturn(3L, 4L).when(characterMapper).countAll();
+        assertThat(counter.total(characterMapper::countAll)).isEqualTo(3);
+
+        changeBus.apply(List.of(change(1, 4, CharacterChange.Type.CREATE, "other")));
+
+        assertThat(counter.total(characterMapper::countAll)).isEqualTo(4);
+    }
+
+    @Test
+    public void 書き込みと同じトランザクションで変更を記録すること() {
+        changeBus.publish(CharacterChange.Type.UPDATE, 1);
+
+        verify(transport).publish(CharacterChange.Type.UPDATE, 1, changeBus.getNodeId());
+    }
+
+    @Test
+    public void 変更を読めない状態が続いた時はキャッシュを捨てること() {
+        doThrow(new IllegalStateException("db is down")).when(transport).poll();
+
+        changeBus.poll();
+
+        assertThat(cache.size()).isZero();
+    }
+
+    @Test
+    public void 変更の受け渡し先がない時は何もしないこと() {
+        doReturn(null).when(transportProvider).getIfAvailable();
+        CharacterChangeBus standalone = new CharacterChangeBus(
+                transportProvider, characterMapper, cache, idFilter, counter, invalidationProperties);
+
+        standalone.publish(CharacterChange.Type.UPDATE, 1);
+        standalone.poll();
+
+        assertThat(cache.get(1)).isNotNull();
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterCountProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class CharacterCounterTest {
+    CharacterCounter counter = new CharacterCounter(new CharacterCountProperties());
+
+    @Test
+    public void 読み込んだ全件数を保持し次回は読み込まないこと() {
+        AtomicInteger loads = new AtomicInteger();
+        assertThat(counter.total(() -> loads.incrementAndGet() * 10L)).isEqualTo(10);
+        assertThat(counter.total(() -> loads.incrementAndGet() * 10L)).isEqualTo(10);
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    public void 登録した年齢より若い条件の件数だけを増やすこと() {
+        counter.total(() -> 3);
+        counter.olderThan(10, () -> 1);
+        counter.olderThan(20, () -> 0);
+
+        counter.recordInsert(List.of(new Character("shizuku", 14), new Character("umi", null)), () -> {
+        });
+
+        assertThat(counter.total(() -> -1)).isEqualTo(5);
+        assertThat(counter.olderThan(10, () -> -1)).isEqualTo(2);
+        assertThat(counter.olderThan(20, () -> -1)).isZero();
+    }
+
+    @Test
+    public void 削除した行数だけ全件数を減らし削除した年齢が影響する件数だけを読み込み直すこと() {
+        counter.total(() -> 3);
+        counter.olderThan(10, () -> 1);
+        counter.olderThan(20, () -> 0);
+
+        counter.beginWrite();
+        counter.endDelete(1, 14);
+
+        assertThat(counter.total(() -> -1)).isEqualTo(2);
+        assertThat(counter.olderThan(10, () -> 0)).isZero();
+        assertThat(counter.olderThan(20, () -> -1)).isZero();
+    }
+
+    @Test
+    public void 変更前と変更後の年齢の間にある件数だけを読み込み直すこと() {
+        counter.olderThan(5, () -> 2);
+        counter.olderThan(10, () -> 1);
+        counter.olderThan(20, () -> 0);
+
+        counter.beginWrite();
+        counter.endUpdate(14, 8);
+
+        assertThat(counter.olderThan(5, () -> -1)).isEqualTo(2);
+        assertThat(counter.olderThan(10, () -> 0)).isZero();
+        assertThat(counter.olderThan(20, () -> -1)).isZero();
+    }
+
+    @Test
+    public void 年齢がnullから変わった時は変更後の年齢より若い条件の件数を読み込み直すこと() {
+        counter.olderThan(10, () -> 1);
+        counter.olderThan(20, () -> 0);
+
+        counter.beginWrite();
+        counter.endUpdate(null, 14);
+
+        assertThat(counter.olderThan(10, () -> 2)).isEqualTo(2);
+        assertThat(counter.olderThan(20, () -> -1)).isZero();
+    }
+
+    @Test
+    public void 書き込み中に読み込んだ件数はその書き込みが終わると読み込み直すこと() {
+        counter.recordInsert(List.of(new Character("shizuku", 14)), () ->
+                assertThat(counter.total(() -> 3)).isEqualTo(3));
+
+        assertThat(counter.total(() -> 4)).isEqualTo(4);
+        assertThat(counter.total(() -> -1)).isEqualTo(4);
+    }
+
+    @Test
+    public void 書き込み中に読み込んだ件数でも影響しない書き込みの後は保持すること() {
+        counter.beginWrite();
+        counter.olderThan(20, () -> 1);
+        counter.endInsert(List.of(new Character("shizuku", 14)));
+
+        assertThat(counter.olderThan(20, () -> -1)).isEqualTo(1);
+    }
+
+    @Test
+    public void 書き込みが全て終わった後は書き込み中に読み込んだ件数も増減させること() {
+        counter.beginWrite();
+        counter.total(() -> 3);
+        counter.endUpdate(14, 14);
+
+        counter.recordInsert(List.of(new Character("shizuku", 14)), () -> {
+        });
+
+        assertThat(counter.total(() -> -1)).isEqualTo(4);
+    }
+
+    @Test
+    public void 読み込み中に書き込みが終わった時は保持しないこと() {
+        counter.beginWrite();
+        assertThat(counter.total(() -> {
+            counter.endInsert(List.of(new Character("shizuku", 14)));
+            return 3;
+        })).isEqualTo(3);
+
+        assertThat(counter.total(() -> 4)).isEqualTo(4);
+    }
+
+    @Test
+    public void 書き込みに失敗した時は件数を変えないこと() {
+        counter.total(() -> 3);
+        assertThatExceptionOfType(IllegalStateException.class)
+                .isThrownBy(() -> counter.recordInsert(List.of(new Character("shizuku", 14)), () -> {
+                    throw new IllegalStateException("db down");
+                }));
+        assertThat(counter.total(() -> -1)).isEqualTo(3);
+    }
+
+    @Test
+    public void 全件を入れ替えた後は読み込み直すこと() {
+        counter.total(() -> 3);
+        counter.beginWrite();
+        counter.endReplace();
+        assertThat(counter.total(() -> 7)).isEqualTo(7);
+    }
+
+    @Test
+    public void 他のノードで変更があった時は読み込み直すこと() {
+        counter.total(() -> 3);
+        counter.olderThan(10, () -> 1);
+
+        counter.invalidate();
+
+        assertThat(counter.total(() -> 4)).isEqualTo(4);
+        assertThat(counter.olderThan(10, () -> 2)).isEqualTo(2);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterCacheProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CharacterFrequencySketchTest {
+    private static CharacterFrequencySketch sketch(int topK) {
+        CharacterCacheProperties properties = new CharacterCacheProperties();
+        properties.setTopK(topK);
+        return new CharacterFrequencySketch(properties);
+    }
+
+    @Test
+    public void 記録した回数を推定値として返すこと() {
+        CharacterFrequencySketch sketch = sketch(10);
+        for (int i = 0; i < 5; i++) {
+            sketch.record(1);
+        }
+        sketch.record(2);
+
+        assertThat(sketch.frequency(1)).isEqualTo(5);
+        assertThat(sketch.frequency(2)).isEqualTo(1);
+        assertThat(sketch.frequency(3)).isZero();
+    }
+
+    @Test
+    public void 推定回数の多い順に上位のIDを返すこと() {
+        CharacterFrequencySketch sketch = sketch(2);
+        for (int id = 1; id <= 3; id++) {
+            for (int i = 0; i < id * 2; i++) {
+                sketch.record(id);
+            }
+        }
+        for (int id = 100; id < 110; id++) {
+            sketch.record(id);
+        }
+
+        assertThat(sketch.hottest()).containsExactly(Map.entry(3, 6), Map.entry(2, 4));
+    }
+
+    @Test
+    public void 記録回数が一定数に達したら全ての推定値を半分にすること() {
+        CharacterFrequencySketch sketch = sketch(10);
+        for (int i = 0; i < 8; i++) {
+            sketch.record(1);
+        }
+        for (int i = 0; i < sketch.getSampleSize() - 8; i++) {
+            sketch.record(2);
+        }
+
+        assertThat(sketch.frequency(1)).isEqualTo(4);
+        assertThat(sketch.frequency(2)).isEqualTo((sketch.getSampleSize() - 8) / 2);
+        assertThat(sketch.hottest()).containsEntry(1, 4);
+    }
+}
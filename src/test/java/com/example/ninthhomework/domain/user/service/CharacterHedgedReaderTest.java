@@ -0,0 +1,156 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterAsyncProperties;
+import com.example.ninthhomework.config.CharacterCacheProperties;
+import com.example.ninthhomework.config.CharacterHedgeProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.mapper.CharacterMapper;
+import com.example.ninthhomework.mapper.CharacterReplica;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CharacterHedgedReaderTest {
+    @Mock
+    CharacterMapper primaryMapper;
+
+    @Mock
+    CharacterMapper replicaMapper;
+
+    @Mock
+    CharacterReplica replica;
+
+    @Mock
+    ObjectProvider<CharacterReplica> replicaProvider;
+
+    CharacterCacheProperties cacheProperties = new CharacterCacheProperties();
+    CharacterHedgeProperties hedgeProperties = new CharacterHedgeProperties();
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    CharacterCache cache;
+    CharacterHedgedReader hedgedReader;
+
+    @BeforeEach
+    void setUp() {
+        cacheProperties.setMaxSize(10);
+        hedgeProperties.setMinDelay(Duration.ofMillis(20));
+        cache = new CharacterCache(cacheProperties, new CharacterFrequencySketch(cacheProperties));
+        lenient().doReturn(replicaMapper).when(replica).getMapper();
+        //id:99だけ主DBの応答が遅い
+        lenient().doAnswer(invocation -> {
+            int id = invocation.getArgument(0);
+            if (id == 99) {
+                Thread.sleep(500);
+            }
+            return Optional.of(new Character(id, "primary", 5));
+        }).when(primaryMapper).searchById(anyInt());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (hedgedReader != null) {
+            hedgedReader.close();
+        }
+    }
+
+    private CharacterHedgedReader hedgedReader(CharacterReplica replica) {
+        doReturn(replica).when(replicaProvider).getIfAvailable();
+        ObjectProvider<MeterRegistry> registry = new StaticListableBeanFactory(Map.of("meterRegistry", meterRegistry))
+                .getBeanProvider(MeterRegistry.class);
+        hedgedReader = new CharacterHedgedReader(primaryMapper, replicaProvider, cache, hedgeProperties,
+                new CharacterAsyncProperties(), registry);
+        return hedgedReader;
+    }
+
+    private Optional<Character> findById(int id) {
+        return hedgedReader.read("findById", mapper -> mapper.searchById(id), Optional::isPresent);
+    }
+
+    //応答時間は結果を返した後に記録されることがあるため、95パーセンタイルを求める件数より多めに読む
+    private void warmUp() {
+        for (int i = 0; i < 150; i++) {
+            findById(1);
+        }
+    }
+
+    @Test
+    public void 主DBの応答が遅い時はレプリカの結果を返すこと() {
+        hedgedReader(replica);
+        doReturn(Optional.of(new Character(99, "replica", 5))).when(replicaMapper).searchById(99);
+        warmUp();
+        long stamp = cache.stamp();
+
+        long startedAt = System.nanoTime();
+        Optional<Character> actual = findById(99);
+
+        assertThat(actual).contains(new Character(99, "replica", 5));
+        assertThat(Duration.ofNanos(System.nanoTime() - startedAt)).isLessThan(Duration.ofMillis(400));
+        assertThat(hedgedReader.getHedged("findById")).isEqualTo(1);
+        assertThat(hedgedReader.getWon("findById")).isEqualTo(1);
+        assertThat(meterRegistry.get("characters.hedge.won").tag("query", "findById").functionCounter().count())
+                .isEqualTo(1);
+        //レプリカの結果は古い可能性があるため、読み込み前のstampでは保持しない
+        cache.put(actual.get(), stamp);
+        assertThat(cache.get(99)).isNull();
+    }
+
+    @Test
+    public void レプリカで見つからない時は主DBの結果を待つこと() {
+        hedgedReader(replica);
+        doReturn(Optional.empty()).when(replicaMapper).searchById(99);
+        warmUp();
+
+        Optional<Character> actual = findById(99);
+
+        assertThat(actual).contains(new Character(99, "primary", 5));
+        assertThat(hedgedReader.getHedged("findById")).isEqualTo(1);
+        assertThat(hedgedReader.getWon("findById")).isZero();
+    }
+
+    @Test
+    public void 枠がない時はレプリカに送らないこと() {
+        hedgeProperties.setBudgetPercent(0);
+        hedgedReader(replica);
+        warmUp();
+
+        assertThat(findById(99)).contains(new Character(99, "primary", 5));
+        assertThat(hedgedReader.getSkipped("findById")).isEqualTo(1);
+        verifyNoInteractions(replicaMapper);
+    }
+
+    @Test
+    public void 応答時間が集まるまではレプリカに送らないこと() {
+        hedgedReader(replica);
+
+        assertThat(findById(99)).contains(new Character(99, "primary", 5));
+        assertThat(hedgedReader.getHedged("findById")).isZero();
+        verifyNoInteractions(replicaMapper);
+    }
+
+    @Test
+    public void レプリカがない時は呼び出したスレッドで主DBに問い合わせること() {
+        hedgedReader(null);
+        Thread caller = Thread.currentThread();
+        doAnswer(invocation -> {
+            assertThat(Thread.currentThread()).isSameAs(caller);
+            return Optional.of(new Character(2, "primary", 5));
+        }).when(primaryMapper).searchById(2);
+
+        assertThat(hedgedReader.isEnabled()).isFalse();
+        assertThat(findById(2)).contains(new Character(2, "primary", 5));
+    }
+}
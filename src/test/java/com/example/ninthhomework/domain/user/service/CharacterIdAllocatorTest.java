@@ -0,0 +1,202 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterIdAllocationProperties;
+import com.example.ninthhomework.config.CharacterInvalidationProperties;
+import com.example.ninthhomework.mapper.CharacterIdSequenceMapper;
+import com.example.ninthhomework.mapper.IdBlock;
+import com.example.ninthhomework.mapper.IdBlockReservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CharacterIdAllocatorTest {
+    @Mock
+    ObjectProvider<CharacterIdSequenceMapper> sequenceMapperProvider;
+
+    @Mock
+    CharacterIdSequenceMapper sequenceMapper;
+
+    CharacterIdAllocationProperties properties = new CharacterIdAllocationProperties();
+    CharacterInvalidationProperties invalidationProperties = new CharacterInvalidationProperties();
+    AtomicLong sequence = new AtomicLong(1);
+
+    @BeforeEach
+    void setUp() {
+        properties.setBlockSize(3);
+        invalidationProperties.setMaxLag(Duration.ZERO);
+    }
+
+    //採番テーブルと同じく、ブロックの大きさだけ進めた後の値を返す
+    private CharacterIdAllocator allocator() {
+        doReturn(sequenceMapper).when(sequenceMapperProvider).getIfAvailable();
+        lenient().doAnswer(invocation -> {
+            IdBlockReservation reservation = invocation.getArgument(0);
+            reservation.setEnd(sequence.addAndGet(reservation.getSize()));
+            return 1;
+        }).when(sequenceMapper).reserve(any());
+        return new CharacterIdAllocator(sequenceMapperProvider, TransactionOperations.withoutTransaction(), properties,
+                invalidationProperties);
+    }
+
+    @Test
+    public void ブロック内のIDを順に割り当て使い切った時だけ予約し直すこと() {
+        CharacterIdAllocator allocator = allocator();
+
+        List<Integer> ids = allocator.next(7);
+
+        assertThat(ids).containsExactly(1, 2, 3, 4, 5, 6, 7);
+        verify(sequenceMapper, times(3)).reserve(any());
+    }
+
+    @Test
+    public void 同時に割り当ててもIDが重複せず予約したIDを使い残さないこと() throws Exception {
+        properties.setBlockSize(10);
+        CharacterIdAllocator allocator = allocator();
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 1000; j++) {
+                        ids.add(allocator.next());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(ids).hasSize(8000);
+        assertThat(ids.stream().mapToInt(Integer::intValue).max()).hasValue(8000);
+        verify(sequenceMapper, times(800)).reserve(any());
+    }
+
+    @Test
+    public void 期限が過ぎたブロックの残りは使わないこと() throws Exception {
+        properties.setBlockLifetime(Duration.ofMillis(20));
+        CharacterIdAllocator allocator = allocator();
+
+        assertThat(allocator.next()).isEqualTo(1);
+        Thread.sleep(50);
+
+        assertThat(allocator.next()).isEqualTo(4);
+    }
+
+    @Test
+    public void 割り当てたIDが登録済みだった時は採番テーブルを進めて残りのブロックを捨てること() {
+        CharacterIdAllocator allocator = allocator();
+        assertThat(allocator.next()).isEqualTo(1);
+        //他の経路で100までのIDが登録された
+        doAnswer(invocation -> {
+            sequence.accumulateAndGet(101, Math::max);
+            return 1;
+        }).when(sequenceMapper).advancePastExistingIds();
+
+        allocator.resync();
+
+        assertThat(allocator.next()).isEqualTo(101);
+        assertThat(allocator.next()).isEqualTo(102);
+    }
+
+    @Test
+    public void 採番テーブルに行がない時は例外をスローすること() {
+        CharacterIdAllocator allocator = allocator();
+        doReturn(0).when(sequenceMapper).reserve(any());
+
+        assertThatIllegalStateException().isThrownBy(allocator::next);
+    }
+
+    @Test
+    public void 予約したブロックを他のノードが読めるよう記録すること() {
+        CharacterIdAllocator allocator = allocator();
+
+        allocator.next();
+
+        verify(sequenceMapper).insertBlock(eq(1L), eq(4L), anyString());
+    }
+
+    @Test
+    public void 他のノードが使っている間のブロックと読んだ後に予約されたIDだけを未確定として扱うこと() {
+        CharacterIdAllocator allocator = allocator();
+        doReturn(200L).when(sequenceMapper).findNextId();
+        doReturn(List.of(new IdBlock(100, 110))).when(sequenceMapper).findBlocksReservedWithin(anyLong(), anyString());
+
+        allocator.refresh();
+
+        assertThat(allocator.mayBeUnsettled(5)).isFalse();
+        assertThat(allocator.mayBeUnsettled(99)).isFalse();
+        assertThat(allocator.mayBeUnsettled(100)).isTrue();
+        assertThat(allocator.mayBeUnsettled(109)).isTrue();
+        assertThat(allocator.mayBeUnsettled(110)).isFalse();
+        assertThat(allocator.mayBeUnsettled(200)).isTrue();
+        verify(sequenceMapper).deleteBlocksOlderThan(anyLong());
+    }
+
+    @Test
+    public void 起動時に採番テーブルを読み検索では読まないこと() throws Exception {
+        properties.setBlockLifetime(Duration.ofMillis(10));
+        CharacterIdAllocator allocator = allocator();
+        doReturn(4L).when(sequenceMapper).findNextId();
+        doReturn(List.of()).when(sequenceMapper).findBlocksReservedWithin(anyLong(), anyString());
+
+        allocator.start();
+        try {
+            //起動の直後から未確定として扱うのは、読んだ時のnext_id以上のIDだけ
+            assertThat(allocator.mayBeUnsettled(2)).isFalse();
+            assertThat(allocator.mayBeUnsettled(4)).isTrue();
+            verify(sequenceMapper, timeout(1000).atLeast(4)).findNextId();
+        } finally {
+            allocator.stop();
+        }
+        verify(sequenceMapper, never()).reserve(any());
+    }
+
+    @Test
+    public void 採番テーブルを一度も読めていない時は未確定のIDとして扱うこと() {
+        CharacterIdAllocator allocator = allocator();
+        doThrow(new IllegalStateException("db down")).when(sequenceMapper).findNextId();
+
+        allocator.refresh();
+
+        assertThat(allocator.mayBeUnsettled(1)).isTrue();
+    }
+
+    @Test
+    public void 採番テーブルがない構成では使わないこと() {
+        CharacterIdAllocator allocator = new CharacterIdAllocator(sequenceMapperProvider,
+                TransactionOperations.withoutTransaction(), properties, invalidationProperties);
+
+        allocator.start();
+
+        assertThat(allocator.isEnabled()).isFalse();
+        assertThat(allocator.mayBeUnsettled(1)).isFalse();
+    }
+}
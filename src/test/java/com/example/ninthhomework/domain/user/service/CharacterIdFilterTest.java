@@ -0,0 +1,85 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterIdFilterProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CharacterIdFilterTest {
+
+    @Test
+    public void 構築前は全てのIDが存在するかもしれないと判定すること() {
+        CharacterIdFilter filter = new CharacterIdFilter(new CharacterIdFilterProperties());
+        assertThat(filter.isReady()).isFalse();
+        assertThat(filter.mightExist(99)).isTrue();
+    }
+
+    @Test
+    public void 構築後は存在しないIDを判定できること() {
+        CharacterIdFilter filter = new CharacterIdFilter(new CharacterIdFilterProperties());
+        filter.rebuild(() -> List.of(1, 2, 5));
+
+        assertThat(filter.mightExist(1)).isTrue();
+        assertThat(filter.mightExist(5)).isTrue();
+        assertThat(filter.mightExist(3)).isFalse();
+    }
+
+    @Test
+    public void 把握している最大IDより大きいIDは存在するかもしれないと判定すること() {
+        CharacterIdFilter filter = new CharacterIdFilter(new CharacterIdFilterProperties());
+        filter.rebuild(() -> List.of(1, 2, 5));
+        assertThat(filter.mightExist(6)).isTrue();
+    }
+
+    @Test
+    public void 登録と削除を反映すること() {
+        CharacterIdFilter filter = new CharacterIdFilter(new CharacterIdFilterProperties());
+        filter.rebuild(() -> List.of(1, 2, 5));
+
+        filter.add(3);
+        filter.remove(5);
+
+        assertThat(filter.mightExist(3)).isTrue();
+        assertThat(filter.mightExist(5)).isFalse();
+    }
+
+    @Test
+    public void 構築中に登録されたIDを失わないこと() {
+        CharacterIdFilter filter = new CharacterIdFilter(new CharacterIdFilterProperties());
+        filter.rebuild(() -> {
+            filter.add(10);
+            return List.of(1, 2);
+        });
+
+        assertThat(filter.mightExist(10)).isTrue();
+        assertThat(filter.mightExist(5)).isFalse();
+    }
+
+    @Test
+    public void 上限より大きいIDは保持せず存在するかもしれないと判定すること() {
+        CharacterIdFilterProperties properties = new CharacterIdFilterProperties();
+        properties.setMaxId(100);
+        CharacterIdFilter filter = new CharacterIdFilter(properties);
+        filter.rebuild(() -> List.of(1, 2, 2_000_000_000));
+
+        filter.add(2_000_000_000);
+
+        assertThat(filter.mightExist(2_000_000_000)).isTrue();
+        assertThat(filter.mightExist(1_999_999_999)).isTrue();
+        assertThat(filter.mightExist(50)).isFalse();
+    }
+
+    @Test
+    public void DBで確認したIDは把握している最大IDを引き上げないこと() {
+        CharacterIdFilter filter = new CharacterIdFilter(new CharacterIdFilterProperties());
+        filter.rebuild(() -> List.of(1, 2, 5));
+
+        filter.confirm(11);
+
+        assertThat(filter.mightExist(11)).isTrue();
+        assertThat(filter.mightExist(10)).isTrue();
+        assertThat(filter.mightExist(3)).isFalse();
+    }
+}
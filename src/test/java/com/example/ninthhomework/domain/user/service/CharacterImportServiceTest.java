@@ -0,0 +1,146 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterBulkImportProperties;
+import com.example.ninthhomework.config.CharacterCountProperties;
+import com.example.ninthhomework.config.CharacterIdFilterProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.model.CharacterChange;
+import com.example.ninthhomework.mapper.CharacterMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CharacterImportServiceTest {
+    @Mock
+    CharacterMapper characterMapper;
+
+    @Mock
+    PlatformTransactionManager transactionManager;
+
+    @Mock
+    CharacterChangeBus changeBus;
+
+    @Mock
+    CharacterIdAllocator idAllocator;
+
+    CharacterIdFilter idFilter = new CharacterIdFilter(new CharacterIdFilterProperties());
+
+    CharacterImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        CharacterBulkImportProperties properties = new CharacterBulkImportProperties();
+        properties.setChunkSize(2);
+        importService = new CharacterImportService(characterMapper,
+                Validation.buildDefaultValidatorFactory().getValidator(),
+                new TransactionTemplate(transactionManager), new ObjectMapper(),
+                new CharacterCounter(new CharacterCountProperties()), changeBus, idFilter, idAllocator, properties);
+    }
+
+    @Test
+    public void CSVの行を指定件数ずつまとめて登録すること() throws Exception {
+        CharacterImportResult result = importService.importFrom(reader("""
+                name,age
+                mei,5
+                "satuki, kusakabe",10
+                tatuo,32
+                """), CharacterImportService.Format.CSV);
+
+        assertThat(result.getAccepted()).isEqualTo(3);
+        assertThat(result.getRejected()).isZero();
+        verify(characterMapper).insertCharacters(List.of(
+                new Character("mei", 5), new Character("satuki, kusakabe", 10)));
+        verify(characterMapper).insertCharacters(List.of(new Character("tatuo", 32)));
+        verify(transactionManager, times(2)).commit(any());
+        verify(changeBus, times(2)).publish(CharacterChange.Type.BULK_INSERT, 0);
+    }
+
+    @Test
+    public void 入力チェックに合わない行は登録せず行番号とともに返すこと() throws Exception {
+        CharacterImportResult result = importService.importFrom(reader("""
+                mei,5
+                ,10
+                tatuo,
+                satuki,ten
+                chihiro
+                """), CharacterImportService.Format.CSV);
+
+        assertThat(result.getAccepted()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(4);
+        assertThat(result.getErrors()).extracting(CharacterImportResult.LineError::getLine)
+                .containsExactly(2L, 3L, 4L, 5L);
+        verify(characterMapper).insertCharacters(List.of(new Character("mei", 5)));
+    }
+
+    @Test
+    public void NDJSONの行を登録できること() throws Exception {
+        CharacterImportResult result = importService.importFrom(reader("""
+                {"name": "mei", "age": 5}
+                {"name": "satuki"}
+                {"name": "tatuo", "age": "32"}
+                {broken
+                """), CharacterImportService.Format.NDJSON);
+
+        assertThat(result.getAccepted()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(3);
+        verify(characterMapper).insertCharacters(List.of(new Character("mei", 5)));
+    }
+
+    @Test
+    public void 登録に失敗したまとまりは不合格として数え残りの処理を続けること() throws Exception {
+        doThrow(new DataIntegrityViolationException("Data too long for column 'name'"))
+                .doNothing()
+                .when(characterMapper).insertCharacters(anyList());
+
+        CharacterImportResult result = importService.importFrom(reader("""
+                mei,5
+                satuki,10
+                tatuo,32
+                """), CharacterImportService.Format.CSV);
+
+        assertThat(result.getAccepted()).isEqualTo(1);
+        assertThat(result.getRejected()).isEqualTo(2);
+        assertThat(result.getErrors()).hasSize(1);
+        verify(transactionManager).rollback(any());
+    }
+
+    @Test
+    public void 採番テーブルから割り当てたIDで登録し登録したIDを通知すること() throws Exception {
+        doReturn(true).when(idAllocator).isEnabled();
+        doReturn(List.of(101, 102)).when(idAllocator).next(2);
+        idFilter.rebuild(() -> List.of(200));
+
+        CharacterImportResult result = importService.importFrom(reader("""
+                mei,5
+                satuki,10
+                """), CharacterImportService.Format.CSV);
+
+        assertThat(result.getAccepted()).isEqualTo(2);
+        verify(characterMapper).insertCharacters(List.of(
+                new Character(101, "mei", 5), new Character(102, "satuki", 10)));
+        verify(changeBus).publishAll(CharacterChange.Type.CREATE, List.of(101, 102));
+        verify(changeBus, never()).publish(CharacterChange.Type.BULK_INSERT, 0);
+        assertThat(idFilter.mightExist(101)).isTrue();
+        assertThat(idFilter.mightExist(103)).isFalse();
+    }
+
+    private static BufferedReader reader(String content) {
+        return new BufferedReader(new StringReader(content));
+    }
+}
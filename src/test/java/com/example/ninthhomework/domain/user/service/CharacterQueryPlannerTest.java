@@ -0,0 +1,56 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.domain.user.model.CharacterQuery;
+import com.example.ninthhomework.mapper.CharacterMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+
+@ExtendWith(MockitoExtension.class)
+class CharacterQueryPlannerTest {
+    @InjectMocks
+    CharacterQueryPlanner queryPlanner;
+
+    @Mock
+    CharacterMapper characterMapper;
+
+    @Test
+    public void 年齢の範囲が矛盾する時や件数が0の時は問い合わせないこと() {
+        assertThat(queryPlanner.plan(CharacterQuery.of(30, 10, null, null, null)))
+                .isEqualTo(CharacterQueryPlanner.Plan.EMPTY);
+        assertThat(queryPlanner.plan(CharacterQuery.of(null, null, null, null, 0)))
+                .isEqualTo(CharacterQueryPlanner.Plan.EMPTY);
+    }
+
+    @Test
+    public void 全件をメモリに持つMapperの時はメモリ上で絞り込むこと() {
+        doReturn(true).when(characterMapper).isInMemory();
+        assertThat(queryPlanner.plan(CharacterQuery.of(10, null, "sa", null, 5)))
+                .isEqualTo(CharacterQueryPlanner.Plan.IN_MEMORY);
+    }
+
+    @Test
+    public void 絞り込みも件数制限もない時は全件取得の結果を使うこと() {
+        assertThat(queryPlanner.plan(CharacterQuery.of(null, null, null, "-age", null)))
+                .isEqualTo(CharacterQueryPlanner.Plan.FULL_LIST);
+    }
+
+    @Test
+    public void 絞り込みか件数制限がある時はSQLで絞り込むこと() {
+        assertThat(queryPlanner.plan(CharacterQuery.of(10, null, null, null, null)))
+                .isEqualTo(CharacterQueryPlanner.Plan.DATABASE);
+        assertThat(queryPlanner.plan(CharacterQuery.of(null, null, null, "name", 10)))
+                .isEqualTo(CharacterQueryPlanner.Plan.DATABASE);
+    }
+
+    @Test
+    public void 名前順の時は照合順序に合わせてSQLで並べ替えること() {
+        assertThat(queryPlanner.plan(CharacterQuery.of(null, null, null, "-name", null)))
+                .isEqualTo(CharacterQueryPlanner.Plan.DATABASE);
+    }
+}
@@ -1,18 +1,36 @@
 package com.example.ninthhomework.domain.user.service;
 
+import com.example.ninthhomework.config.CharacterAsyncProperties;
+import com.example.ninthhomework.config.CharacterBatchProperties;
+import com.example.ninthhomework.config.CharacterCacheProperties;
+import com.example.ninthhomework.config.CharacterCountProperties;
+import com.example.ninthhomework.config.CharacterIdFilterProperties;
 import com.example.ninthhomework.controller.CreateForm;
 import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.model.CharacterChange;
+import com.example.ninthhomework.domain.user.model.CharacterQuery;
+import com.example.ninthhomework.exception.DeadlineExceededException;
 import com.example.ninthhomework.exception.NotFoundException;
 import com.example.ninthhomework.mapper.CharacterMapper;
+import com.example.ninthhomework.mapper.NewCharacter;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
@@ -26,6 +44,42 @@ class CharacterServiceImplTest {
     @Mock
     CharacterMapper characterMapper;
 
+    @Spy
+    CharacterBatchProperties batchProperties = new CharacterBatchProperties();
+
+    @Spy
+    CharacterAsyncProperties asyncProperties = new CharacterAsyncProperties();
+
+    @Spy
+    CharacterIdFilter characterIdFilter = new CharacterIdFilter(new CharacterIdFilterProperties());
+
+    @Spy
+    CharacterCounter characterCounter = new CharacterCounter(new CharacterCountProperties());
+
+    @Mock
+    CharacterQueryPlanner queryPlanner;
+
+    @Spy
+    CharacterCache characterCache = new CharacterCache(cacheProperties(), new CharacterFrequencySketch(cacheProperties()));
+
+    @Mock
+    CharacterChangeBus changeBus;
+
+    @Mock
+    CharacterIdAllocator idAllocator;
+
+    @Mock
+    CharacterHedgedReader hedgedReader;
+
+    @Spy
+    TransactionOperations transactionOperations = TransactionOperations.withoutTransaction();
+
+    private static CharacterCacheProperties cacheProperties() {
+        CharacterCacheProperties properties = new CharacterCacheProperties();
+        properties.setMaxSize(10);
+        return properties;
+    }
+
     @Test
     public void 全てのキャラクターの情報を返すこと() {
         List<Character> characters = new ArrayList<>();
@@ -90,6 +144,91 @@ class CharacterServiceImplTest {
         verify(characterMapper, times(1)).searchById(1);
     }
 
+    @Test
+    public void 一度取得したIDは2回目以降DBに問い合わせないこと() {
+        doReturn(Optional.of(new Character(1, "mei", 5))).when(characterMapper).searchById(1);
+
+        charactersServiceImpl.findById(1);
+        Character actual = charactersServiceImpl.findById(1);
+
+        assertThat(actual).isEqualTo(new Character(1, "mei", 5));
+        verify(characterMapper, times(1)).searchById(1);
+    }
+
+    @Test
+    public void 更新したIDはキャッシュから取り除かれ次回はDBから読み込むこと() {
+        doReturn(Optional.of(new Character(1, "mei", 5)), Optional.of(new Character(1, "mei", 5)),
+                Optional.of(new Character(1, "satuki", 5))).when(characterMapper).searchById(1);
+
+        charactersServiceImpl.findById(1);
+        charactersServiceImpl.updateCharacter(1, "satuki", null);
+        Character actual = charactersServiceImpl.findById(1);
+
+        assertThat(actual).isEqualTo(new Character(1, "satuki", 5));
+        verify(characterMapper, times(3)).searchById(1);
+    }
+
+    @Test
+    public void 書き込みは同じトランザクションで変更ログに記録すること() {
+        doAnswer(invocation -> {
+            invocation.<NewCharacter>getArgument(0).setId(4);
+            return null;
+        }).when(characterMapper).createCharacter(any());
+        doReturn(Optional.of(new Character(4, "shizuku", 14))).when(characterMapper).searchById(4);
+        doReturn(1).when(characterMapper).deleteCharacter(4);
+
+        charactersServiceImpl.createCharacter("shizuku", 14);
+        charactersServiceImpl.updateCharacter(4, null, 15);
+        charactersServiceImpl.deleteCharacter(4);
+
+        InOrder inOrder = inOrder(changeBus);
+        inOrder.verify(changeBus).publish(CharacterChange.Type.CREATE, 4);
+        inOrder.verify(changeBus).publish(CharacterChange.Type.UPDATE, 4);
+        inOrder.verify(changeBus).publish(CharacterChange.Type.DELETE, 4);
+        verify(transactionOperations, times(3)).execute(any());
+    }
+
+    @Test
+    public void 登録置き換えは存在を確認せずに1回の問い合わせで行うこと() {
+        characterIdFilter.rebuild(() -> List.of(1, 2, 3));
+        doReturn(Optional.of(new Character(3, "tatuo", 32))).when(characterMapper).searchById(3);
+        charactersServiceImpl.findById(3);
+
+        Character character = charactersServiceImpl.upsertCharacter(3, "草壁タツオ", 34);
+        charactersServiceImpl.upsertCharacter(10, "kanta", 11);
+
+        assertThat(character).isEqualTo(new Character(3, "草壁タツオ", 34));
+        verify(characterMapper).upsertCharacter(new Character(3, "草壁タツオ", 34));
+        verify(characterMapper).upsertCharacter(new Character(10, "kanta", 11));
+        verify(characterMapper, times(1)).searchById(anyInt());
+        verify(changeBus).publishAll(CharacterChange.Type.UPSERT, List.of(3));
+        verify(changeBus).publishAll(CharacterChange.Type.UPSERT, List.of(10));
+        assertThat(characterCache.get(3)).isNull();
+        assertThat(characterIdFilter.mightExist(10)).isTrue();
+    }
+
+    @Test
+    public void まとめて登録置き換えを行うこと() {
+        List<Character> characters = List.of(new Character(1, "mei", 6), new Character(10, "kanta", 11));
+
+        charactersServiceImpl.upsertCharacters(characters);
+        charactersServiceImpl.upsertCharacters(List.of());
+
+        verify(characterMapper).upsertCharacters(characters);
+        verify(changeBus).publishAll(CharacterChange.Type.UPSERT, List.of(1, 10));
+        verify(transactionOperations, times(1)).execute(any());
+    }
+
+    @Test
+    public void 書き込みに失敗した時は変更ログに記録しないこと() {
+        doReturn(Optional.of(new Character(1, "mei", 5))).when(characterMapper).searchById(1);
+        doThrow(new IllegalStateException("failed")).when(characterMapper).updateCharacter(any());
+
+        assertThatExceptionOfType(IllegalStateException.class)
+                .isThrownBy(() -> charactersServiceImpl.updateCharacter(1, "satuki", 10));
+        verifyNoInteractions(changeBus);
+    }
+
     @Test
     public void 指定IDが存在しない時例外をスローすること() {
         doReturn(Optional.empty()).when(characterMapper).searchById(99);
@@ -100,16 +239,120 @@ class CharacterServiceImplTest {
         verify(characterMapper, times(1)).searchById(99);
     }
 
+    @Test
+    public void 存在しないと判定できるIDはDBに問い合わせずに例外をスローすること() {
+        characterIdFilter.rebuild(() -> List.of(1, 2, 3, 5));
+
+        assertThatExceptionOfType(NotFoundException.class)
+                .isThrownBy(() -> charactersServiceImpl.findById(4))
+                .withMessageMatching("ID:4は見つかりませんでした")
+                .satisfies(e -> assertThat(e.getStackTrace()).isEmpty());
+        verifyNoInteractions(characterMapper);
+    }
+
+    @Test
+    public void 他のノードで登録されたばかりかもしれないIDはDBに問い合わせること() {
+        characterIdFilter.rebuild(() -> List.of(1, 2, 3, 5));
+        doReturn(true).when(idAllocator).mayBeUnsettled(4);
+        doReturn(Optional.of(new Character(4, "shizuku", 14))).when(characterMapper).searchById(4);
+
+        assertThat(charactersServiceImpl.findById(4)).isEqualTo(new Character(4, "shizuku", 14));
+    }
+
+    @Test
+    public void レプリカがある時はID指定の検索をヘッジ読み込みで行うこと() {
+        doReturn(true).when(hedgedReader).isEnabled();
+        doReturn(Optional.of(new Character(1, "mei", 5))).when(hedgedReader).read(eq("findById"), any(), any());
+
+        assertThat(charactersServiceImpl.findById(1)).isEqualTo(new Character(1, "mei", 5));
+        verify(characterMapper, never()).searchById(anyInt());
+    }
+
+    @Test
+    public void レプリカがある時も年齢指定の検索は主DBで行うこと() {
+        lenient().doReturn(true).when(hedgedReader).isEnabled();
+        doReturn(List.of(new Character(3, "tatuo", 32))).when(characterMapper).searchByAge(30);
+
+        assertThat(charactersServiceImpl.findByAge(30)).containsExactly(new Character(3, "tatuo", 32));
+        verify(hedgedReader, never()).read(any(), any(), any());
+    }
+
+    @Test
+    public void 削除したIDはDBに問い合わせずに例外をスローすること() {
+        characterIdFilter.rebuild(() -> List.of(1, 2, 3));
+        doReturn(Optional.of(new Character(3, "tatuo", 32))).when(characterMapper).searchById(3);
+        charactersServiceImpl.deleteCharacter(3);
+
+        assertThatExceptionOfType(NotFoundException.class)
+                .isThrownBy(() -> charactersServiceImpl.findById(3));
+        verify(characterMapper, times(1)).searchById(3);
+    }
+
+    @Test
+    public void 指定した複数IDのデータをまとめて返すこと() {
+        List<Character> characters = List.of(new Character(1, "mei", 5), new Character(3, "tatuo", 32));
+        doReturn(characters).when(characterMapper).searchByIds(List.of(1, 3));
+        List<Character> actual = charactersServiceImpl.findByIds(List.of(1, 3, 1));
+        assertThat(actual).isEqualTo(characters);
+        verify(characterMapper, times(1)).searchByIds(List.of(1, 3));
+        verify(characterMapper, never()).searchById(anyInt());
+    }
+
+    @Test
+    public void 複数ID指定が空の時は問い合わせずに空で返すこと() {
+        List<Character> actual = charactersServiceImpl.findByIds(List.of());
+        assertThat(actual).isEmpty();
+        verifyNoInteractions(characterMapper);
+    }
+
     @Test
     public void 自動採番されたIDに入力データが登録できること() {
         CreateForm createdCharacter = new CreateForm("mei", 5);
-        Character character = new Character(createdCharacter.getName(), createdCharacter.getAge());
+        NewCharacter character = new NewCharacter(createdCharacter.getName(), createdCharacter.getAge());
         doNothing().when(characterMapper).createCharacter(character);
         charactersServiceImpl.createCharacter(createdCharacter.getName(), createdCharacter.getAge());
 
         verify(characterMapper, times(1)).createCharacter(character);
     }
 
+    @Test
+    public void 採番テーブルから割り当てたIDで登録できること() {
+        doReturn(true).when(idAllocator).isEnabled();
+        doReturn(101).when(idAllocator).next();
+
+        Character created = charactersServiceImpl.createCharacter("mei", 5);
+
+        assertThat(created).isEqualTo(new Character(101, "mei", 5));
+        verify(characterMapper).insertCharacters(List.of(new Character(101, "mei", 5)));
+        verify(characterMapper, never()).createCharacter(any());
+        verify(changeBus).publish(CharacterChange.Type.CREATE, 101);
+        assertThat(characterIdFilter.mightExist(101)).isTrue();
+    }
+
+    @Test
+    public void 割り当てたIDが登録済みの時は採番テーブルを進めて別のIDで登録し直すこと() {
+        doReturn(true).when(idAllocator).isEnabled();
+        doReturn(101, 102).when(idAllocator).next();
+        doThrow(new DuplicateKeyException("duplicate"))
+                .when(characterMapper).insertCharacters(List.of(new Character(101, "mei", 5)));
+
+        Character created = charactersServiceImpl.createCharacter("mei", 5);
+
+        assertThat(created.getId()).isEqualTo(102);
+        verify(characterMapper).insertCharacters(List.of(new Character(102, "mei", 5)));
+        verify(changeBus, never()).publish(CharacterChange.Type.CREATE, 101);
+        verify(idAllocator).resync();
+    }
+
+    @Test
+    public void ID指定の登録と同じトランザクションで採番テーブルを進めること() {
+        charactersServiceImpl.upsertCharacter(500, "mei", 5);
+
+        InOrder inOrder = inOrder(characterMapper, idAllocator);
+        inOrder.verify(characterMapper).upsertCharacter(new Character(500, "mei", 5));
+        inOrder.verify(idAllocator).advancePastExistingIds();
+    }
+
     @Test
     public void 指定されたIDのデータ更新ができること() {
         doReturn(Optional.of(new Character("mei", 5))).when(characterMapper).searchById(1);
@@ -122,6 +365,30 @@ class CharacterServiceImplTest {
         verify(characterMapper, times(1)).updateCharacter(updateCharacter);
     }
 
+    @Test
+    public void 待ち時間内に届いた同じIDの更新を1回のUPDATEにまとめること() throws Exception {
+        CharacterBatchProperties properties = new CharacterBatchProperties();
+        properties.setUpdateWindow(Duration.ofMillis(200));
+        CharacterServiceImpl service = new CharacterServiceImpl(characterMapper, properties, asyncProperties,
+                characterIdFilter,
+                characterCounter, queryPlanner, characterCache, changeBus, idAllocator, hedgedReader,
+                transactionOperations);
+        doReturn(Optional.of(new Character(1, "mei", 5))).when(characterMapper).searchById(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Character> renamed = executor.submit(() -> service.updateCharacter(1, "satuki", null));
+            Future<Character> aged = executor.submit(() -> service.updateCharacter(1, null, 10));
+
+            assertThat(renamed.get(5, TimeUnit.SECONDS)).isEqualTo(new Character(1, "satuki", 10));
+            assertThat(aged.get(5, TimeUnit.SECONDS)).isEqualTo(new Character(1, "satuki", 10));
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(characterMapper, times(1)).searchById(1);
+        verify(characterMapper, times(1)).updateCharacter(new Character(1, "satuki", 10));
+        verify(changeBus, times(1)).publish(CharacterChange.Type.UPDATE, 1);
+    }
+
     @Test
     public void 年齢の入力がなくとも更新作業を実施できること() {
         doReturn(Optional.of(new Character("mei", 5))).when(characterMapper).searchById(1);
@@ -181,4 +448,79 @@ class CharacterServiceImplTest {
         verify(characterMapper, times(1)).searchById(99);
         verify(characterMapper, never()).deleteCharacter(1);
     }
+
+    @Test
+    public void 件数は初回のみDBから取得し登録と削除に合わせて増減すること() {
+        doReturn(3L).when(characterMapper).countAll();
+        doReturn(Optional.of(new Character(1, "mei", 5))).when(characterMapper).searchById(1);
+        doReturn(1).when(characterMapper).deleteCharacter(1);
+
+        assertThat(charactersServiceImpl.count(null)).isEqualTo(3);
+        charactersServiceImpl.createCharacter("shizuku", 14);
+        assertThat(charactersServiceImpl.count(null)).isEqualTo(4);
+        charactersServiceImpl.deleteCharacter(1);
+        assertThat(charactersServiceImpl.count(null)).isEqualTo(3);
+        verify(characterMapper, times(1)).countAll();
+    }
+
+    @Test
+    public void 指定年齢より年上の件数は登録された年齢に合わせて増えること() {
+        doReturn(2L).when(characterMapper).countByAge(10);
+
+        assertThat(charactersServiceImpl.count(10)).isEqualTo(2);
+        charactersServiceImpl.createCharacter("shizuku", 14);
+        charactersServiceImpl.createCharacter("mei", 5);
+        assertThat(charactersServiceImpl.count(10)).isEqualTo(3);
+        verify(characterMapper, times(1)).countByAge(10);
+    }
+
+    @Test
+    public void 絞り込み条件がある検索はSQLで絞り込むこと() {
+        CharacterQuery query = CharacterQuery.of(6, null, null, null, 10);
+        doReturn(CharacterQueryPlanner.Plan.DATABASE).when(queryPlanner).plan(query);
+        doReturn(List.of(new Character(2, "satuki", 10))).when(characterMapper).searchByQuery(query);
+
+        assertThat(charactersServiceImpl.search(query)).containsExactly(new Character(2, "satuki", 10));
+        verify(characterMapper, never()).findAll();
+    }
+
+    @Test
+    public void 全件を並べ替えるだけの検索は全件取得の結果を並べ替えること() {
+        CharacterQuery query = CharacterQuery.of(null, null, null, "-age", null);
+        doReturn(CharacterQueryPlanner.Plan.FULL_LIST).when(queryPlanner).plan(query);
+        doReturn(List.of(new Character(1, "mei", 5), new Character(2, "satuki", null), new Character(3, "tatuo", 32)))
+                .when(characterMapper).findAll();
+
+        assertThat(charactersServiceImpl.search(query)).containsExactly(
+                new Character(3, "tatuo", 32),
+                new Character(1, "mei", 5),
+                new Character(2, "satuki", null));
+        verify(characterMapper, never()).searchByQuery(query);
+    }
+
+    @Test
+    public void 結果が必ず空になる検索は問い合わせないこと() {
+        CharacterQuery query = CharacterQuery.of(30, 10, null, null, null);
+        doReturn(CharacterQueryPlanner.Plan.EMPTY).when(queryPlanner).plan(query);
+
+        assertThat(charactersServiceImpl.search(query)).isEmpty();
+        verifyNoInteractions(characterMapper);
+    }
+
+    @Test
+    public void 処理期限を過ぎたリクエストはDBへ問い合わせずに例外とすること() {
+        RequestDeadline.attach(RequestDeadline.after(Duration.ZERO));
+        try {
+            assertThatExceptionOfType(DeadlineExceededException.class)
+                    .isThrownBy(() -> charactersServiceImpl.findById(1));
+            assertThatExceptionOfType(DeadlineExceededException.class)
+                    .isThrownBy(() -> charactersServiceImpl.count(null));
+            assertThatExceptionOfType(DeadlineExceededException.class)
+                    .isThrownBy(() -> charactersServiceImpl.createCharacter("mei", 5));
+        } finally {
+            RequestDeadline.detach();
+        }
+        verifyNoInteractions(characterMapper);
+        verify(transactionOperations, never()).execute(any());
+    }
 }
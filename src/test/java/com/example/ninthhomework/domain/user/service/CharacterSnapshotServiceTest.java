@@ -0,0 +1,142 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterCacheProperties;
+import com.example.ninthhomework.config.CharacterCountProperties;
+import com.example.ninthhomework.config.CharacterIdFilterProperties;
+import com.example.ninthhomework.config.CharacterMemoryProperties;
+import com.example.ninthhomework.config.CharacterSnapshotProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.model.CharacterChange;
+import com.example.ninthhomework.mapper.CharacterMapper;
+import com.example.ninthhomework.mapper.InMemoryCharacterMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CharacterSnapshotServiceTest {
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    CharacterMapper characterMapper;
+
+    @Mock
+    CharacterChangeBus changeBus;
+
+    @Mock
+    CharacterIdAllocator idAllocator;
+
+    CharacterIdFilter idFilter = new CharacterIdFilter(new CharacterIdFilterProperties());
+
+    CharacterCache cache;
+
+    CharacterSnapshotService snapshotService;
+
+    @BeforeEach
+    void setUp() {
+        CharacterSnapshotProperties properties = new CharacterSnapshotProperties();
+        properties.setBatchSize(2);
+        CharacterCacheProperties cacheProperties = new CharacterCacheProperties();
+        cacheProperties.setMaxSize(10);
+        cache = new CharacterCache(cacheProperties, new CharacterFrequencySketch(cacheProperties));
+        snapshotService = new CharacterSnapshotService(characterMapper, idFilter,
+                new CharacterCounter(new CharacterCountProperties()), cache, changeBus, idAllocator, properties);
+    }
+
+    @Test
+    public void 全件をスナップショットに書き出せること() throws Exception {
+        List<Character> characters = List.of(new Character(1, "mei", 5), new Character(2, "satuki", 10));
+        doReturn(characters).when(characterMapper).findAll();
+        Path file = tempDir.resolve("characters.snapshot");
+
+        int exported = snapshotService.exportTo(file);
+
+        assertThat(exported).isEqualTo(2);
+        assertThat(CharacterSnapshot.read(file)).isEqualTo(characters);
+    }
+
+    @Test
+    public void 全件を削除してから指定件数ずつまとめて登録すること() throws Exception {
+        List<Character> characters = List.of(
+                new Character(1, "mei", 5),
+                new Character(2, "satuki", 10),
+                new Character(3, "tatuo", 32));
+        Path file = tempDir.resolve("characters.snapshot");
+        CharacterSnapshot.write(characters, file);
+
+        int imported = snapshotService.importFrom(file);
+
+        assertThat(imported).isEqualTo(3);
+        InOrder inOrder = inOrder(characterMapper);
+        inOrder.verify(characterMapper).deleteAll();
+        inOrder.verify(characterMapper).insertCharacters(characters.subList(0, 2));
+        inOrder.verify(characterMapper).insertCharacters(characters.subList(2, 3));
+        assertThat(idFilter.mightExist(3)).isTrue();
+        assertThat(idFilter.mightExist(0)).isFalse();
+        verify(idAllocator).advancePastExistingIds();
+    }
+
+    @Test
+    public void 壊れたスナップショットの時は削除せずに例外をスローすること() throws Exception {
+        Path file = tempDir.resolve("characters.snapshot");
+        Files.writeString(file, "name,age\nmei,5\n");
+
+        assertThatIllegalArgumentException().isThrownBy(() -> snapshotService.importFrom(file));
+        verify(characterMapper, never()).deleteAll();
+    }
+
+    @Test
+    public void 件数が壊れたスナップショットの時は登録済みの行を残すこと() throws Exception {
+        CharacterMemoryProperties properties = new CharacterMemoryProperties();
+        properties.setWalPath(tempDir.resolve("characters.wal").toString());
+        properties.setInitialWalSize(64);
+        InMemoryCharacterMapper memoryMapper = new InMemoryCharacterMapper(properties);
+        try {
+            List<Character> existing = List.of(new Character(1, "mei", 5), new Character(2, "satuki", 10));
+            memoryMapper.insertCharacters(existing);
+            CharacterSnapshotService service = new CharacterSnapshotService(memoryMapper, idFilter,
+                    new CharacterCounter(new CharacterCountProperties()), cache, changeBus, idAllocator,
+                    new CharacterSnapshotProperties());
+            Path file = tempDir.resolve("characters.snapshot");
+            CharacterSnapshot.write(List.of(new Character(3, "tatuo", 32)), file);
+            byte[] bytes = Files.readAllBytes(file);
+
+            //負の件数と、列の長さが溢れる件数
+            for (int count : new int[]{-1, Integer.MAX_VALUE}) {
+                ByteBuffer.wrap(bytes).putInt(8, count);
+                Files.write(file, bytes);
+
+                assertThatIllegalArgumentException().isThrownBy(() -> service.importFrom(file));
+                assertThat(memoryMapper.findAll()).isEqualTo(existing);
+            }
+        } finally {
+            memoryMapper.close();
+        }
+    }
+
+    @Test
+    public void 入れ替えた後はキャッシュを捨てて他のノードにも通知すること() throws Exception {
+        Path file = tempDir.resolve("characters.snapshot");
+        CharacterSnapshot.write(List.of(new Character(1, "satuki", 10)), file);
+        cache.put(new Character(1, "mei", 5), cache.stamp());
+
+        snapshotService.importFrom(file);
+
+        assertThat(cache.get(1)).isNull();
+        verify(changeBus).publish(CharacterChange.Type.RESET, 0);
+    }
+}
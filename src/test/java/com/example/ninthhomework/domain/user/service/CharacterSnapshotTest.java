@@ -0,0 +1,78 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.domain.user.model.Character;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class CharacterSnapshotTest {
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void 書き出したスナップショットから同じデータを読み込めること() throws Exception {
+        List<Character> characters = List.of(
+                new Character(1, "月島雫", 14),
+                new Character(2, "satuki", null),
+                new Character(10, "tatuo", 32));
+        Path file = tempDir.resolve("characters.snapshot");
+
+        CharacterSnapshot.write(characters, file);
+
+        assertThat(CharacterSnapshot.read(file)).containsExactlyElementsOf(characters);
+    }
+
+    @Test
+    public void データが空の時は空で読み込めること() throws Exception {
+        Path file = tempDir.resolve("empty.snapshot");
+        CharacterSnapshot.write(List.of(), file);
+        assertThat(CharacterSnapshot.read(file)).isEmpty();
+    }
+
+    @Test
+    public void 指定件数ずつ分けて読み込めること() throws Exception {
+        List<Character> characters = List.of(
+                new Character(1, "mei", 5),
+                new Character(2, "satuki", 10),
+                new Character(3, "tatuo", 32));
+        Path file = tempDir.resolve("characters.snapshot");
+        CharacterSnapshot.write(characters, file);
+        List<List<Character>> chunks = new ArrayList<>();
+
+        int count = CharacterSnapshot.read(file, 2, chunks::add);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(chunks).containsExactly(characters.subList(0, 2), characters.subList(2, 3));
+    }
+
+    @Test
+    public void 名前列が壊れている時は1件も渡さないこと() throws Exception {
+        Path file = tempDir.resolve("characters.snapshot");
+        CharacterSnapshot.write(List.of(new Character(1, "mei", 5), new Character(2, "satuki", 10)), file);
+        //最後の名前("satuki")の長さを列の外まで伸ばす
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(bytes.length - "satuki".length() - Integer.BYTES, 100);
+        Files.write(file, bytes);
+        List<List<Character>> chunks = new ArrayList<>();
+
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> CharacterSnapshot.read(file, 1, chunks::add));
+        assertThat(chunks).isEmpty();
+    }
+
+    @Test
+    public void スナップショット形式でないファイルは読み込まないこと() throws Exception {
+        Path file = tempDir.resolve("characters.csv");
+        Files.writeString(file, "name,age\nmei,5\n");
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> CharacterSnapshot.read(file));
+    }
+}
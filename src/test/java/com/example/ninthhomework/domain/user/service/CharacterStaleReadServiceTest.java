@@ -0,0 +1,195 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterCacheProperties;
+import com.example.ninthhomework.config.CharacterStaleProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.exception.NotFoundException;
+import com.example.ninthhomework.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CharacterStaleReadServiceTest {
+    @Mock
+    CharacterService characterService;
+
+    @Mock
+    CharacterAsyncService asyncService;
+
+    CharacterStaleProperties properties = new CharacterStaleProperties();
+
+    CharacterCacheProperties cacheProperties = new CharacterCacheProperties();
+
+    CharacterCache cache = new CharacterCache(cacheProperties, new CharacterFrequencySketch(cacheProperties));
+
+    CharacterStaleReadService staleReadService;
+
+    @BeforeEach
+    void setUp() {
+        properties.setLatencyBudget(Duration.ofMillis(50));
+        staleReadService = new CharacterStaleReadService(characterService, asyncService, cache, properties);
+    }
+
+    //最後に読めた値として id:1 を保持させる
+    private void readOnce() {
+        doReturn(new Character(1, "mei", 5)).when(characterService).findById(1);
+        assertThat(staleReadService.findById(1).isStale()).isFalse();
+    }
+
+    @Test
+    public void 最後に読めた値がない時はその場で読み込むこと() {
+        readOnce();
+
+        verify(characterService).findById(1);
+        verifyNoInteractions(asyncService);
+    }
+
+    @Test
+    public void 予算内に読めた時は新しい値を返すこと() {
+        readOnce();
+        doReturn(CompletableFuture.completedFuture(new Character(1, "satuki", 10))).when(asyncService).findById(1);
+
+        Served<Character> served = staleReadService.findById(1);
+
+        assertThat(served.isStale()).isFalse();
+        assertThat(served.getValue()).isEqualTo(new Character(1, "satuki", 10));
+    }
+
+    @Test
+    public void 予算内に応答がない時は最後に読めた値を返し読み込みが終わったら入れ替えること() {
+        readOnce();
+        CompletableFuture<Character> slow = new CompletableFuture<>();
+        doReturn(slow).when(asyncService).findById(1);
+
+        Served<Character> served = staleReadService.findById(1);
+        assertThat(served.isStale()).isTrue();
+        assertThat(served.getValue()).isEqualTo(new Character(1, "mei", 5));
+        assertThat(served.getAge()).isNotNegative();
+
+        //読み込み中の間は同じ読み込みを待ち、新しく読み込まない
+        assertThat(staleReadService.findById(1).isStale()).isTrue();
+        verify(asyncService, times(1)).findById(1);
+
+        slow.complete(new Character(1, "satuki", 10));
+        doReturn(new CompletableFuture<>()).when(asyncService).findById(1);
+        assertThat(staleReadService.findById(1).getValue()).isEqualTo(new Character(1, "satuki", 10));
+    }
+
+    @Test
+    public void DBのエラーの時は最後に読めた値を返すこと() {
+        readOnce();
+        doReturn(CompletableFuture.failedFuture(new QueryTimeoutException("slow"))).when(asyncService).findById(1);
+
+        assertThat(staleReadService.findById(1).isStale()).isTrue();
+    }
+
+    @Test
+    public void スレッドが足りない時は最後に読めた値を返さずに例外をスローすること() {
+        readOnce();
+        doReturn(CompletableFuture.failedFuture(new ServiceUnavailableException("too many pending requests")))
+                .when(asyncService).findById(1);
+
+        assertThatExceptionOfType(ServiceUnavailableException.class)
+                .isThrownBy(() -> staleReadService.findById(1));
+    }
+
+    @Test
+    public void キャッシュにある値はDBを読まずにその場で返すこと() {
+        doReturn(Optional.of(new Character(1, "mei", 5))).when(characterService).findCachedById(1);
+
+        Served<Character> served = staleReadService.findById(1);
+
+        assertThat(served.isStale()).isFalse();
+        assertThat(served.getValue()).isEqualTo(new Character(1, "mei", 5));
+        verify(characterService, never()).findById(1);
+        verifyNoInteractions(asyncService);
+    }
+
+    @Test
+    public void キャッシュから捨てたIDと一覧は最後に読めた値を返さないこと() {
+        readOnce();
+        doReturn(List.of(new Character(1, "mei", 5))).when(characterService).findByAge(null);
+        staleReadService.findByAge(null);
+
+        cache.evict(1);
+
+        staleReadService.findById(1);
+        staleReadService.findByAge(null);
+        verify(characterService, times(2)).findById(1);
+        verify(characterService, times(2)).findByAge(null);
+        verifyNoInteractions(asyncService);
+    }
+
+    @Test
+    public void 読み込み中にキャッシュから捨てた時は読み込んだ値を保持しないこと() {
+        readOnce();
+        CompletableFuture<Character> slow = new CompletableFuture<>();
+        doReturn(slow).when(asyncService).findById(1);
+        assertThat(staleReadService.findById(1).isStale()).isTrue();
+
+        cache.clear();
+        slow.complete(new Character(1, "mei", 5));
+
+        doReturn(new Character(1, "satuki", 10)).when(characterService).findById(1);
+        assertThat(staleReadService.findById(1).getValue()).isEqualTo(new Character(1, "satuki", 10));
+        verify(characterService, times(2)).findById(1);
+    }
+
+    @Test
+    public void 削除されたIDは最後に読めた値を返さずに例外をスローすること() {
+        readOnce();
+        doReturn(CompletableFuture.failedFuture(new NotFoundException(1))).when(asyncService).findById(1);
+
+        assertThatExceptionOfType(NotFoundException.class).isThrownBy(() -> staleReadService.findById(1));
+        staleReadService.findById(1);
+        verify(characterService, times(2)).findById(1);
+    }
+
+    @Test
+    public void max_stalenessを過ぎた値は返さずにその場で読み込むこと() {
+        properties.setMaxStaleness(Duration.ZERO);
+        staleReadService = new CharacterStaleReadService(characterService, asyncService, cache, properties);
+        readOnce();
+        doThrow(new QueryTimeoutException("slow")).when(characterService).findById(1);
+
+        assertThatExceptionOfType(QueryTimeoutException.class).isThrownBy(() -> staleReadService.findById(1));
+        verifyNoInteractions(asyncService);
+    }
+
+    @Test
+    public void 年齢ごとの一覧も最後に読めた値を返せること() {
+        List<Character> characters = List.of(new Character(3, "tatuo", 32));
+        doReturn(characters).when(characterService).findByAge(null);
+        staleReadService.findByAge(null);
+        doReturn(new CompletableFuture<>()).when(asyncService).findByAge(null);
+
+        Served<List<Character>> served = staleReadService.findByAge(null);
+
+        assertThat(served.isStale()).isTrue();
+        assertThat(served.getValue()).isEqualTo(characters);
+    }
+
+    @Test
+    public void latency_budgetが0の時は常にその場で読み込むこと() {
+        properties.setLatencyBudget(Duration.ZERO);
+        staleReadService = new CharacterStaleReadService(characterService, asyncService, cache, properties);
+        readOnce();
+        staleReadService.findById(1);
+
+        verify(characterService, times(2)).findById(1);
+        verifyNoInteractions(asyncService);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterProfilingProperties;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FlightRecordingServiceTest {
+    @TempDir
+    Path dir;
+
+    FlightRecordingService recordingService = new FlightRecordingService(properties());
+
+    private static CharacterProfilingProperties properties() {
+        CharacterProfilingProperties properties = new CharacterProfilingProperties();
+        properties.setSettings("default");
+        properties.setMaxDuration(Duration.ofMinutes(1));
+        return properties;
+    }
+
+    @AfterEach
+    void tearDown() {
+        recordingService.close();
+    }
+
+    @Test
+    public void 記録中は新しい記録を始めないこと() throws Exception {
+        assertThat(recordingService.start(Duration.ofSeconds(30))).isTrue();
+
+        assertThat(recordingService.start(Duration.ofSeconds(30))).isFalse();
+        assertThat(recordingService.status()).hasValueSatisfying(status ->
+                assertThat(status).containsEntry("state", "RUNNING").containsEntry("duration", "PT30S"));
+    }
+
+    @Test
+    public void 最長時間を超える期間は切り詰めること() throws Exception {
+        recordingService.start(Duration.ofHours(1));
+
+        assertThat(recordingService.status()).hasValueSatisfying(status ->
+                assertThat(status).containsEntry("duration", "PT1M"));
+    }
+
+    @Test
+    public void 停止した記録を書き出して読み込めること() throws Exception {
+        Path file = dir.resolve("characters.jfr");
+        assertThat(recordingService.dumpTo(file)).isFalse();
+        recordingService.start(Duration.ZERO);
+
+        assertThat(recordingService.stop()).isTrue();
+        assertThat(recordingService.dumpTo(file)).isTrue();
+
+        assertThat(RecordingFile.readAllEvents(file)).isNotEmpty();
+        assertThat(recordingService.start(Duration.ZERO)).isTrue();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterInvalidationProperties;
+import com.example.ninthhomework.domain.user.model.CharacterChange;
+import com.example.ninthhomework.mapper.CharacterChangeMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JdbcCharacterChangeTransportTest {
+    @Mock
+    CharacterChangeMapper changeMapper;
+
+    private JdbcCharacterChangeTransport transport(Duration gapTimeout) {
+        CharacterInvalidationProperties properties = new CharacterInvalidationProperties();
+        properties.setGapTimeout(gapTimeout);
+        return new JdbcCharacterChangeTransport(changeMapper, properties);
+    }
+
+    private static CharacterChange change(long seq) {
+        return new CharacterChange(seq, (int) seq, CharacterChange.Type.UPDATE, "other");
+    }
+
+    @Test
+    public void 起動時点より後の変更だけを読むこと() {
+        doReturn(10L).when(changeMapper).findLatestSeq();
+        doReturn(List.of(change(11), change(12))).when(changeMapper).findChangesAfter(10, 500);
+        JdbcCharacterChangeTransport transport = transport(Duration.ofSeconds(5));
+
+        assertThat(transport.poll()).containsExactly(change(11), change(12));
+        assertThat(transport.position()).isEqualTo(12);
+    }
+
+    @Test
+    public void seqに抜けがある時は抜けの手前で読み込み位置を止めること() {
+        doReturn(10L).when(changeMapper).findLatestSeq();
+        doReturn(List.of(change(11), change(13))).when(changeMapper).findChangesAfter(10, 500);
+        doReturn(List.of(change(12), change(13))).when(changeMapper).findChangesAfter(11, 500);
+        JdbcCharacterChangeTransport transport = transport(Duration.ofSeconds(5));
+
+        assertThat(transport.poll()).containsExactly(change(11), change(13));
+        assertThat(transport.position()).isEqualTo(11);
+        assertThat(transport.poll()).containsExactly(change(12), change(13));
+        assertThat(transport.position()).isEqualTo(13);
+    }
+
+    @Test
+    public void 抜けがgap_timeoutを過ぎても埋まらない時は読み飛ばすこと() {
+        doReturn(10L).when(changeMapper).findLatestSeq();
+        doReturn(List.of(change(12))).when(changeMapper).findChangesAfter(10, 500);
+        JdbcCharacterChangeTransport transport = transport(Duration.ZERO);
+
+        transport.poll();
+
+        assertThat(transport.position()).isEqualTo(12);
+    }
+
+    @Test
+    public void 変更は発生元のノードIDと一緒に記録すること() {
+        JdbcCharacterChangeTransport transport = transport(Duration.ofSeconds(5));
+
+        transport.publish(CharacterChange.Type.DELETE, 3, "node-a");
+
+        verify(changeMapper).insertChange(3, CharacterChange.Type.DELETE, "node-a");
+    }
+
+    @Test
+    public void 複数の変更は1回でまとめて記録すること() {
+        JdbcCharacterChangeTransport transport = transport(Duration.ofSeconds(5));
+
+        transport.publishAll(CharacterChange.Type.UPSERT, List.of(3, 10), "node-a");
+        transport.publishAll(CharacterChange.Type.UPSERT, List.of(), "node-a");
+
+        verify(changeMapper).insertChanges(List.of(3, 10), CharacterChange.Type.UPSERT, "node-a");
+        verify(changeMapper, never()).insertChange(anyInt(), any(), any());
+    }
+
+    @Test
+    public void 指定した位置から読み直せること() {
+        doReturn(10L).when(changeMapper).findLatestSeq();
+        doReturn(List.of(change(8), change(9), change(10))).when(changeMapper).findChangesAfter(7, 500);
+        JdbcCharacterChangeTransport transport = transport(Duration.ofSeconds(5));
+
+        assertThat(transport.resumeFrom(7)).isTrue();
+        assertThat(transport.poll()).containsExactly(change(8), change(9), change(10));
+        assertThat(transport.position()).isEqualTo(10);
+    }
+
+    @Test
+    public void 現在より後の位置からは読み直さないこと() {
+        doReturn(10L).when(changeMapper).findLatestSeq();
+        JdbcCharacterChangeTransport transport = transport(Duration.ofSeconds(5));
+
+        assertThat(transport.resumeFrom(11)).isFalse();
+        assertThat(transport.position()).isEqualTo(10);
+    }
+}
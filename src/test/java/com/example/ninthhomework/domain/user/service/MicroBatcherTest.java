@@ -0,0 +1,166 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.exception.DeadlineExceededException;
+import com.example.ninthhomework.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class MicroBatcherTest {
+
+    @Test
+    public void 待ち時間内に届いた読み込みを1回のまとめ読み込みで処理すること() throws Exception {
+        List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+        MicroBatcher<Integer, String> batcher = new MicroBatcher<>(Duration.ofMillis(200), 100, 2, ids -> {
+            batches.add(ids);
+            return ids.stream().collect(Collectors.toMap(Function.identity(), id -> "name" + id));
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int id = 1; id <= 3; id++) {
+                int key = id;
+                results.add(executor.submit(() -> batcher.load(key)));
+            }
+
+            assertThat(results.get(0).get(5, TimeUnit.SECONDS)).isEqualTo("name1");
+            assertThat(results.get(1).get(5, TimeUnit.SECONDS)).isEqualTo("name2");
+            assertThat(results.get(2).get(5, TimeUnit.SECONDS)).isEqualTo("name3");
+            assertThat(batches).hasSize(1);
+            assertThat(batches.get(0)).containsExactlyInAnyOrder(1, 2, 3);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void まとめ読み込みの結果に含まれないキーはnullを返すこと() {
+        MicroBatcher<Integer, String> batcher = new MicroBatcher<>(Duration.ofMillis(1), 100, 2, ids -> Map.of());
+        assertThat(batcher.load(99)).isNull();
+    }
+
+    @Test
+    public void まとめ読み込みの例外を呼び出し元に伝えること() {
+        MicroBatcher<Integer, String> batcher = new MicroBatcher<>(Duration.ofMillis(1), 100, 2, ids -> {
+            throw new IllegalStateException("db down");
+        });
+        assertThatExceptionOfType(IllegalStateException.class)
+                .isThrownBy(() -> batcher.load(1))
+                .withMessage("db down");
+    }
+
+    @Test
+    public void 待ち時間が0の時は無効となること() {
+        MicroBatcher<Integer, String> batcher = new MicroBatcher<>(Duration.ZERO, 100, 2, ids -> Map.of());
+        assertThat(batcher.isEnabled()).isFalse();
+    }
+
+    @Test
+    public void 件数が上限に達したまとまりは前のまとめ読み込みを待たずに読み込むこと() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        MicroBatcher<Integer, String> batcher = new MicroBatcher<>(Duration.ofMillis(1), 2, 2, ids -> {
+            if (ids.contains(1)) {
+                await(release);
+            }
+            return ids.stream().collect(Collectors.toMap(Function.identity(), id -> "name" + id));
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<String> slow = executor.submit(() -> batcher.load(1));
+            Thread.sleep(50);
+            Future<String> second = executor.submit(() -> batcher.load(2));
+            Future<String> third = executor.submit(() -> batcher.load(3));
+
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo("name2");
+            assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo("name3");
+            assertThat(slow.isDone()).isFalse();
+            release.countDown();
+            assertThat(slow.get(5, TimeUnit.SECONDS)).isEqualTo("name1");
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+            batcher.close();
+        }
+    }
+
+    @Test
+    public void まとめ読み込みのスレッドが空いていない時は503とすること() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        MicroBatcher<Integer, String> batcher = new MicroBatcher<>(Duration.ofMillis(1), 1, 1, ids -> {
+            await(release);
+            return Map.of();
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            //1つ目は読み込み中、2つ目は待ち行列に入る
+            executor.submit(() -> batcher.load(1));
+            Thread.sleep(20);
+            executor.submit(() -> batcher.load(2));
+            Thread.sleep(20);
+
+            assertThatExceptionOfType(ServiceUnavailableException.class).isThrownBy(() -> batcher.load(3));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+            batcher.close();
+        }
+    }
+
+    @Test
+    public void まとめ読み込みは最も遅い期限で行い各呼び出し元は自分の期限までだけ待つこと() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Duration> remaining = new CopyOnWriteArrayList<>();
+        MicroBatcher<Integer, String> batcher = new MicroBatcher<>(Duration.ofMillis(100), 100, 2, ids -> {
+            remaining.add(RequestDeadline.current().orElseThrow().remaining());
+            await(release);
+            return ids.stream().collect(Collectors.toMap(Function.identity(), id -> "name" + id));
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> early = executor.submit(() -> loadWithin(batcher, 1, Duration.ofMillis(300)));
+            Future<String> late = executor.submit(() -> loadWithin(batcher, 2, Duration.ofSeconds(10)));
+
+            assertThatExceptionOfType(ExecutionException.class)
+                    .isThrownBy(() -> early.get(5, TimeUnit.SECONDS))
+                    .withCauseInstanceOf(DeadlineExceededException.class);
+            release.countDown();
+            assertThat(late.get(5, TimeUnit.SECONDS)).isEqualTo("name2");
+            assertThat(remaining).hasSize(1);
+            assertThat(remaining.get(0)).isGreaterThan(Duration.ofSeconds(5));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String loadWithin(MicroBatcher<Integer, String> batcher, int key, Duration timeout) {
+        RequestDeadline.attach(RequestDeadline.after(timeout));
+        try {
+            return batcher.load(key);
+        } finally {
+            RequestDeadline.detach();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
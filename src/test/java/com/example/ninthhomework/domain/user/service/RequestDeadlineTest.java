@@ -0,0 +1,87 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.exception.DeadlineExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class RequestDeadlineTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.detach();
+    }
+
+    @Test
+    public void 残り時間は秒単位に切り上げ期限までは1秒未満にならないこと() {
+        assertThat(RequestDeadline.after(Duration.ofMillis(1500)).remainingSeconds()).isEqualTo(2);
+        assertThat(RequestDeadline.after(Duration.ofMillis(1)).remainingSeconds()).isEqualTo(1);
+        assertThat(RequestDeadline.after(Duration.ZERO).remainingSeconds()).isEqualTo(1);
+    }
+
+    @Test
+    public void 期限を過ぎた時だけ例外とすること() {
+        assertThatCode(() -> RequestDeadline.after(Duration.ofMinutes(1)).check()).doesNotThrowAnyException();
+        assertThat(RequestDeadline.after(Duration.ofMinutes(1)).isExpired()).isFalse();
+
+        RequestDeadline expired = RequestDeadline.after(Duration.ofMillis(-1));
+
+        assertThat(expired.isExpired()).isTrue();
+        assertThat(expired.remaining()).isEqualTo(Duration.ZERO);
+        assertThatExceptionOfType(DeadlineExceededException.class).isThrownBy(expired::check);
+    }
+
+    @Test
+    public void 期限が設定されていない時は確認しないこと() {
+        assertThat(RequestDeadline.current()).isEmpty();
+        assertThatCode(RequestDeadline::checkCurrent).doesNotThrowAnyException();
+    }
+
+    @Test
+    public void 引き継いだ期限は実行後に元に戻すこと() throws Exception {
+        RequestDeadline deadline = RequestDeadline.after(Duration.ofMinutes(1));
+        RequestDeadline.attach(deadline);
+        Supplier<Optional<RequestDeadline>> task = RequestDeadline.propagate(RequestDeadline::current);
+        RequestDeadline.detach();
+
+        Optional<RequestDeadline>[] seen = new Optional[2];
+        Thread thread = new Thread(() -> {
+            seen[0] = task.get();
+            seen[1] = RequestDeadline.current();
+        });
+        thread.start();
+        thread.join();
+
+        assertThat(seen[0]).contains(deadline);
+        assertThat(seen[1]).isEmpty();
+    }
+
+    @Test
+    public void 共有する処理には最も遅い期限を使い期限のない呼び出し元がいる時は期限を設けないこと() {
+        RequestDeadline early = RequestDeadline.after(Duration.ofSeconds(1));
+        RequestDeadline late = RequestDeadline.after(Duration.ofSeconds(10));
+
+        assertThat(RequestDeadline.latest(early, late)).isSameAs(late);
+        assertThat(RequestDeadline.latest(late, early)).isSameAs(late);
+        assertThat(RequestDeadline.latest(early, null)).isNull();
+    }
+
+    @Test
+    public void 共有する処理の結果は自分の期限までだけ待ち例外は包まずにスローすること() {
+        RequestDeadline.attach(RequestDeadline.after(Duration.ofMillis(20)));
+
+        assertThatExceptionOfType(DeadlineExceededException.class)
+                .isThrownBy(() -> RequestDeadline.await(new CompletableFuture<>()));
+        assertThat(RequestDeadline.await(CompletableFuture.completedFuture("mei"))).isEqualTo("mei");
+        assertThatExceptionOfType(OutOfMemoryError.class)
+                .isThrownBy(() -> RequestDeadline.await(CompletableFuture.failedFuture(new OutOfMemoryError("full"))));
+    }
+}
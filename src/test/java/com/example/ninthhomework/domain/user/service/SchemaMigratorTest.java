@@ -0,0 +1,114 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.config.CharacterMigrationProperties;
+import com.example.ninthhomework.mapper.SchemaMigration;
+import com.example.ninthhomework.mapper.SchemaMigrationMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SchemaMigratorTest {
+    @Mock
+    SchemaMigrationMapper migrationMapper;
+
+    CharacterMigrationProperties properties = new CharacterMigrationProperties();
+    SchemaMigrator migrator;
+
+    @BeforeEach
+    void setUp() {
+        properties.setLocation("classpath*:db/test-migration/");
+        migrator = new SchemaMigrator(migrationMapper, TransactionOperations.withoutTransaction(), properties);
+        lenient().doReturn(1).when(migrationMapper).acquireLock(anyString(), anyLong());
+    }
+
+    @Test
+    public void 未適用の移行を版の順に1文ずつ適用して記録すること() {
+        doReturn(List.of()).when(migrationMapper).findApplied();
+
+        assertThat(migrator.migrate()).containsExactly(1, 2);
+
+        InOrder inOrder = inOrder(migrationMapper);
+        inOrder.verify(migrationMapper).acquireLock("characters.schema_migrations", 60);
+        inOrder.verify(migrationMapper).createHistoryTable();
+        inOrder.verify(migrationMapper).execute("CREATE TABLE items (\nid int unsigned NOT NULL,\nPRIMARY KEY(id)\n)");
+        inOrder.verify(migrationMapper).insertApplied(argThat(migration -> migration.getVersion() == 1
+                && migration.getDescription().equals("create items")));
+        inOrder.verify(migrationMapper).execute("ALTER TABLE items ADD COLUMN name VARCHAR(20)");
+        inOrder.verify(migrationMapper).execute("CREATE INDEX idx_items_name ON items (name)");
+        inOrder.verify(migrationMapper).insertApplied(argThat(migration -> migration.getVersion() == 2));
+        inOrder.verify(migrationMapper).releaseLock("characters.schema_migrations");
+    }
+
+    @Test
+    public void 適用済みの移行は適用しないこと() throws IOException {
+        doReturn(List.of(appliedV1())).when(migrationMapper).findApplied();
+
+        assertThat(migrator.migrate()).containsExactly(2);
+
+        verify(migrationMapper, never()).execute(startsWith("CREATE TABLE"));
+        verify(migrationMapper, times(2)).execute(anyString());
+    }
+
+    @Test
+    public void 適用済みの移行が書き換えられた時は何も適用せずに例外をスローすること() {
+        doReturn(List.of(new SchemaMigration(1, "create items", 0))).when(migrationMapper).findApplied();
+
+        assertThatIllegalStateException().isThrownBy(migrator::migrate)
+                .withMessageContaining("V1__create items");
+
+        verify(migrationMapper, never()).execute(anyString());
+        verify(migrationMapper).releaseLock("characters.schema_migrations");
+    }
+
+    @Test
+    public void ロックを取れない時は何も適用せずに例外をスローすること() {
+        doReturn(0).when(migrationMapper).acquireLock(anyString(), anyLong());
+
+        assertThatIllegalStateException().isThrownBy(migrator::migrate);
+
+        verify(migrationMapper, never()).createHistoryTable();
+        verify(migrationMapper, never()).releaseLock(anyString());
+    }
+
+    @Test
+    public void 移行が失敗した時はその版を記録しないこと() throws IOException {
+        doReturn(List.of(appliedV1())).when(migrationMapper).findApplied();
+        doThrow(new IllegalStateException("syntax error")).when(migrationMapper).execute(startsWith("CREATE INDEX"));
+
+        assertThatIllegalStateException().isThrownBy(migrator::migrate);
+
+        verify(migrationMapper, never()).insertApplied(any());
+        verify(migrationMapper).releaseLock("characters.schema_migrations");
+    }
+
+    @Test
+    public void 行末のセミコロンで文を区切りコメント行を読み飛ばすこと() {
+        String sql = "-- comment\nSET @a = 'x;y';\n\nSELECT 1\n  FROM dual;\nDO 0";
+
+        assertThat(SchemaMigrator.split(sql)).containsExactly("SET @a = 'x;y'", "SELECT 1\nFROM dual", "DO 0");
+    }
+
+    //V1のファイルと同じチェックサムで記録された移行
+    private SchemaMigration appliedV1() throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(new ClassPathResource("db/test-migration/V1__create_items.sql").getContentAsByteArray());
+        return new SchemaMigration(1, "create items", crc.getValue());
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.exception.DeadlineExceededException;
+import com.example.ninthhomework.exception.NotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class SingleFlightTest {
+    private static final int CALLERS = 8;
+
+    @Test
+    public void 同じキーの同時呼び出しは読み込みを1回だけ実行し結果を共有すること() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(executor.submit(() -> singleFlight.execute(1, () -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return "mei";
+                })));
+            }
+            waitUntilInFlight(singleFlight);
+            Thread.sleep(50);
+            release.countDown();
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("mei");
+            }
+            assertThat(loads.get()).isEqualTo(1);
+            assertThat(singleFlight.inFlightCount()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void 読み込み中の例外を待っている呼び出し元にも伝えること() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute(99, () -> {
+                await(release);
+                throw new NotFoundException(99);
+            }));
+            waitUntilInFlight(singleFlight);
+            Future<String> follower = executor.submit(() -> singleFlight.execute(99, () -> "unused"));
+            Thread.sleep(50);
+            release.countDown();
+
+            assertThatExceptionOfType(ExecutionException.class)
+                    .isThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                    .withCauseInstanceOf(NotFoundException.class)
+                    .withMessageContaining("ID:99は見つかりませんでした");
+            assertThatExceptionOfType(ExecutionException.class)
+                    .isThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                    .withCauseInstanceOf(NotFoundException.class);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void 後から来た呼び出し元は自分の期限を過ぎると待つのをやめること() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> singleFlight.execute(1, () -> {
+                await(release);
+                return "mei";
+            }));
+            waitUntilInFlight(singleFlight);
+            Future<String> follower = executor.submit(() -> {
+                RequestDeadline.attach(RequestDeadline.after(Duration.ofMillis(50)));
+                try {
+                    return singleFlight.execute(1, () -> "unused");
+                } finally {
+                    RequestDeadline.detach();
+                }
+            });
+
+            assertThatExceptionOfType(ExecutionException.class)
+                    .isThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                    .withCauseInstanceOf(DeadlineExceededException.class);
+            release.countDown();
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("mei");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void 完了後の呼び出しは再度読み込みを行うこと() {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute(1, () -> "mei" + loads.incrementAndGet());
+        String actual = singleFlight.execute(1, () -> "mei" + loads.incrementAndGet());
+
+        assertThat(actual).isEqualTo("mei2");
+        assertThat(loads.get()).isEqualTo(2);
+    }
+
+    private static void waitUntilInFlight(SingleFlight<?, ?> singleFlight) throws InterruptedException {
+        while (singleFlight.inFlightCount() == 0) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
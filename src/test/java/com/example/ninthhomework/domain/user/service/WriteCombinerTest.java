@@ -0,0 +1,172 @@
+package com.example.ninthhomework.domain.user.service;
+
+import com.example.ninthhomework.exception.DeadlineExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class WriteCombinerTest {
+
+    @Test
+    public void 待ち時間内に届いた同じキーへの書き込みを1回にまとめ全ての呼び出し元に結果を返すこと() throws Exception {
+        List<List<String>> writes = new CopyOnWriteArrayList<>();
+        WriteCombiner<Integer, String, String> combiner = new WriteCombiner<>(Duration.ofMillis(200), 100,
+                (key, updates) -> {
+                    writes.add(updates);
+                    return key + ":" + String.join(",", updates);
+                });
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (String update : List.of("a", "b", "c")) {
+                results.add(executor.submit(() -> combiner.write(1, update)));
+            }
+
+            for (Future<String> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).startsWith("1:").hasSize(7);
+            }
+            assertThat(writes).hasSize(1);
+            assertThat(writes.get(0)).containsExactlyInAnyOrder("a", "b", "c");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void 違うキーへの書き込みはまとめないこと() {
+        List<Integer> keys = new CopyOnWriteArrayList<>();
+        WriteCombiner<Integer, String, String> combiner = new WriteCombiner<>(Duration.ofMillis(1), 100,
+                (key, updates) -> {
+                    keys.add(key);
+                    return String.join(",", updates);
+                });
+
+        assertThat(combiner.write(1, "a")).isEqualTo("a");
+        assertThat(combiner.write(2, "b")).isEqualTo("b");
+        assertThat(keys).containsExactly(1, 2);
+    }
+
+    @Test
+    public void 件数が上限に達した時は待ち時間を待たずに書き込むこと() throws Exception {
+        CountDownLatch written = new CountDownLatch(1);
+        WriteCombiner<Integer, String, String> combiner = new WriteCombiner<>(Duration.ofSeconds(30), 2,
+                (key, updates) -> {
+                    written.countDown();
+                    return String.join(",", updates);
+                });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> first = executor.submit(() -> combiner.write(1, "a"));
+            Future<String> second = executor.submit(() -> combiner.write(1, "b"));
+
+            assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(first.get(5, TimeUnit.SECONDS)).isIn("a,b", "b,a");
+            assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(first.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void 書き込みの例外を呼び出し元に伝えること() {
+        WriteCombiner<Integer, String, String> combiner = new WriteCombiner<>(Duration.ofMillis(1), 100,
+                (key, updates) -> {
+                    throw new IllegalStateException("db down");
+                });
+
+        assertThatExceptionOfType(IllegalStateException.class)
+                .isThrownBy(() -> combiner.write(1, "a"))
+                .withMessage("db down");
+    }
+
+    @Test
+    public void 書き込みのErrorも包まずに呼び出し元に伝えること() {
+        WriteCombiner<Integer, String, String> combiner = new WriteCombiner<>(Duration.ofMillis(1), 100,
+                (key, updates) -> {
+                    throw new OutOfMemoryError("full");
+                });
+
+        assertThatExceptionOfType(OutOfMemoryError.class).isThrownBy(() -> combiner.write(1, "a"));
+    }
+
+    @Test
+    public void まとめた書き込みは最も遅い期限で行い後から来た呼び出し元は自分の期限までだけ待つこと() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Optional<RequestDeadline>> deadlines = new CopyOnWriteArrayList<>();
+        WriteCombiner<Integer, String, String> combiner = new WriteCombiner<>(Duration.ofMillis(100), 100,
+                (key, updates) -> {
+                    deadlines.add(RequestDeadline.current());
+                    await(release);
+                    return String.join(",", updates);
+                });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> writeWithin(combiner, "a", Duration.ofSeconds(10)));
+            Thread.sleep(20);
+            Future<String> follower = executor.submit(() -> writeWithin(combiner, "b", Duration.ofMillis(300)));
+
+            assertThatExceptionOfType(ExecutionException.class)
+                    .isThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                    .withCauseInstanceOf(DeadlineExceededException.class);
+            release.countDown();
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("a,b");
+            assertThat(deadlines).hasSize(1);
+            assertThat(deadlines.get(0).orElseThrow().remaining()).isGreaterThan(Duration.ofSeconds(5));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void 期限のない呼び出し元がいる時は期限を設けずに書き込むこと() throws Exception {
+        List<Optional<RequestDeadline>> deadlines = new CopyOnWriteArrayList<>();
+        WriteCombiner<Integer, String, String> combiner = new WriteCombiner<>(Duration.ofMillis(100), 100,
+                (key, updates) -> {
+                    deadlines.add(RequestDeadline.current());
+                    return String.join(",", updates);
+                });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> leader = executor.submit(() -> writeWithin(combiner, "a", Duration.ofSeconds(10)));
+            Thread.sleep(20);
+            Future<String> follower = executor.submit(() -> combiner.write(1, "b"));
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("a,b");
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("a,b");
+            assertThat(deadlines).containsExactly(Optional.empty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String writeWithin(WriteCombiner<Integer, String, String> combiner, String update,
+                                      Duration timeout) {
+        RequestDeadline.attach(RequestDeadline.after(timeout));
+        try {
+            return combiner.write(1, update);
+        } finally {
+            RequestDeadline.detach();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.ninthhomework.integration;
+
+import com.example.ninthhomework.NinthhomeworkApplication;
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.service.CharacterService;
+import com.example.ninthhomework.exception.NotFoundException;
+import com.github.database.rider.core.api.dataset.DataSet;
+import com.github.database.rider.spring.api.DBRider;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.Duration;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// テストのコンテキストと、別に起動したアプリケーションを2つのノードとして同じDBにつなぎ、
+// 一方での書き込みがもう一方のキャッシュ・IDフィルターに反映されることを確認する
+// 書き込みをコミットする必要があるため、@Transactionalは付けない
+@SpringBootTest(properties = "characters.invalidation.poll-interval=100ms")
+@DBRider
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CharacterChangeBusIntegrationTest {
+    private static final Duration CONVERGENCE = Duration.ofSeconds(5);
+
+    static ConfigurableApplicationContext otherNode;
+
+    @Autowired
+    CharacterService characterService;
+
+    @BeforeAll
+    static void startOtherNode() {
+        otherNode = new SpringApplicationBuilder(NinthhomeworkApplication.class)
+                .properties("server.port=0", "characters.invalidation.poll-interval=100ms")
+                .run();
+    }
+
+    @AfterAll
+    static void stopOtherNode() {
+        otherNode.close();
+    }
+
+    @Test
+    @DataSet(value = "characters.yml")
+    void 他のノードでの登録更新削除がポーリング間隔内に反映されること() throws Exception {
+        CharacterService other = otherNode.getBean(CharacterService.class);
+        Character created = characterService.createCharacter("shizuku", 14);
+        int id = created.getId();
+
+        assertThat(eventually(() -> exists(other, id))).isTrue();
+        assertThat(other.findById(id).getName()).isEqualTo("shizuku");
+
+        characterService.updateCharacter(id, "umi", 16);
+        assertThat(eventually(() -> "umi".equals(other.findById(id).getName()))).isTrue();
+
+        characterService.deleteCharacter(id);
+        assertThat(eventually(() -> !exists(other, id))).isTrue();
+    }
+
+    private static boolean exists(CharacterService service, int id) {
+        try {
+            service.findById(id);
+            return true;
+        } catch (NotFoundException e) {
+            return false;
+        }
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + CONVERGENCE.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (condition.getAsBoolean()) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+}
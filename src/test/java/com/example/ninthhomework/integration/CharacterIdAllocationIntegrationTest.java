@@ -0,0 +1,72 @@
+package com.example.ninthhomework.integration;
+
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.service.CharacterSnapshot;
+import com.example.ninthhomework.domain.user.service.CharacterSnapshotService;
+import com.example.ninthhomework.mapper.CharacterIdSequenceMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {"characters.id-allocation.block-size=100", "characters.cache.max-size=0"})
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CharacterIdAllocationIntegrationTest {
+    @TempDir
+    Path tempDir;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    CharacterSnapshotService snapshotService;
+
+    @Autowired
+    CharacterIdSequenceMapper sequenceMapper;
+
+    @Test
+    @Transactional
+    void 予約済みのブロックと重なるIDをスナップショットで入れた後も登録できること() throws Exception {
+        //このノードにブロックを予約させてから、そのブロックと次の2ブロック分のIDを入れる
+        createCharacter();
+        long start = sequenceMapper.findNextId() - 100;
+        List<Character> characters = new ArrayList<>();
+        for (long id = start; id < start + 300; id++) {
+            characters.add(new Character(Math.toIntExact(id), "imported" + id, 10));
+        }
+        Path file = tempDir.resolve("characters.snapshot");
+        CharacterSnapshot.write(characters, file);
+
+        snapshotService.importFrom(file);
+
+        assertThat(sequenceMapper.findNextId()).isGreaterThanOrEqualTo(start + 300);
+        createCharacter();
+        createCharacter();
+    }
+
+    private void createCharacter() throws Exception {
+        mockMvc.perform(post("/characters")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {
+                                  "name": "mei",
+                                  "age": 5
+                                }
+                                """))
+                .andExpect(status().isCreated());
+    }
+}
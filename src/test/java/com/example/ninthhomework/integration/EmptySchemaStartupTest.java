@@ -0,0 +1,69 @@
+package com.example.ninthhomework.integration;
+
+import com.example.ninthhomework.NinthhomeworkApplication;
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.service.CharacterService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 表のない空のスキーマにつないで起動し、起動時の移行だけで動くことを確認する
+// スキーマの作成と削除にはrootで接続する
+class EmptySchemaStartupTest {
+    private static final String SERVER_URL = "jdbc:mysql://localhost:3307/";
+    private static final String SCHEMA = "characters_empty_schema_test";
+
+    ConfigurableApplicationContext context;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        execute("DROP DATABASE IF EXISTS " + SCHEMA);
+        execute("CREATE DATABASE " + SCHEMA);
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        if (context != null) {
+            context.close();
+        }
+        execute("DROP DATABASE IF EXISTS " + SCHEMA);
+    }
+
+    @Test
+    void 空のスキーマでも起動して登録と検索ができること() {
+        context = new SpringApplicationBuilder(NinthhomeworkApplication.class)
+                .properties("server.port=0",
+                        "spring.datasource.url=" + SERVER_URL + SCHEMA,
+                        "spring.datasource.username=root",
+                        "spring.datasource.password=password",
+                        "characters.cache.snapshot-path=")
+                .run();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        CharacterService characterService = context.getBean(CharacterService.class);
+
+        assertThat(jdbcTemplate.queryForList("SELECT table_name FROM information_schema.tables WHERE table_schema = ?",
+                String.class, SCHEMA))
+                .contains("characters", "character_changes", "character_id_sequence", "schema_migrations");
+
+        Character created = characterService.createCharacter("shizuku", 14);
+
+        assertThat(characterService.findById(created.getId()).getName()).isEqualTo("shizuku");
+    }
+
+    private static void execute(String sql) throws SQLException {
+        try (Connection connection = DriverManager.getConnection(SERVER_URL, "root", "password");
+             Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
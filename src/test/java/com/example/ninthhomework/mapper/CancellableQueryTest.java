@@ -0,0 +1,68 @@
+package com.example.ninthhomework.mapper;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CancellableQueryTest {
+    @Mock
+    Statement statement;
+
+    CancellableQuery query = new CancellableQuery();
+
+    private Void prepare() {
+        try {
+            CancellableQuery.prepared(statement);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return null;
+    }
+
+    @Test
+    public void 実行中のStatementを取り消すこと() throws Exception {
+        query.run(() -> {
+            prepare();
+            query.cancel();
+            return null;
+        });
+
+        verify(statement).cancel();
+    }
+
+    @Test
+    public void 準備される前に取り消された時は問い合わせないこと() {
+        query.cancel();
+
+        query.run(() -> {
+            assertThatExceptionOfType(SQLException.class).isThrownBy(() -> CancellableQuery.prepared(statement));
+            return null;
+        });
+    }
+
+    @Test
+    public void 終わった後に取り消しても同じ接続の次のSQLには影響しないこと() throws Exception {
+        query.run(this::prepare);
+
+        query.cancel();
+
+        verify(statement, never()).cancel();
+    }
+
+    @Test
+    public void run以外で準備されたStatementは登録しないこと() throws Exception {
+        CancellableQuery.prepared(statement);
+
+        query.cancel();
+
+        verifyNoInteractions(statement);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.ninthhomework.mapper;
+
+import com.example.ninthhomework.config.CharacterMigrationProperties;
+import com.example.ninthhomework.domain.user.model.CharacterChange;
+import com.example.ninthhomework.domain.user.service.SchemaMigrator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CharacterChangeMapperTest {
+    @Autowired
+    CharacterChangeMapper changeMapper;
+
+    @Autowired
+    SchemaMigrationMapper migrationMapper;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    //DDLは暗黙にコミットされるため、テストのトランザクションとは別の接続で適用する
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        new SchemaMigrator(migrationMapper, transactionTemplate, new CharacterMigrationProperties()).migrate();
+    }
+
+    @Test
+    @Transactional
+    void 記録した変更をseq順に取得できること() {
+        long latest = changeMapper.findLatestSeq();
+        changeMapper.insertChange(1, CharacterChange.Type.UPDATE, "node-a");
+        changeMapper.insertChange(2, CharacterChange.Type.DELETE, "node-b");
+
+        List<CharacterChange> changes = changeMapper.findChangesAfter(latest, 10);
+
+        assertThat(changes)
+                .extracting(CharacterChange::getCharacterId, CharacterChange::getType, CharacterChange::getOrigin)
+                .containsExactly(
+                        tuple(1, CharacterChange.Type.UPDATE, "node-a"),
+                        tuple(2, CharacterChange.Type.DELETE, "node-b"));
+        assertThat(changes.get(0).getSeq()).isLessThan(changes.get(1).getSeq());
+        assertThat(changeMapper.findLatestSeq()).isEqualTo(changes.get(1).getSeq());
+    }
+
+    @Test
+    @Transactional
+    void 指定件数までしか取得しないこと() {
+        long latest = changeMapper.findLatestSeq();
+        changeMapper.insertChange(1, CharacterChange.Type.CREATE, "node-a");
+        changeMapper.insertChange(2, CharacterChange.Type.CREATE, "node-a");
+
+        assertThat(changeMapper.findChangesAfter(latest, 1)).hasSize(1);
+    }
+
+    @Test
+    @Transactional
+    void 保持期間内の変更は削除しないこと() {
+        long latest = changeMapper.findLatestSeq();
+        changeMapper.insertChange(1, CharacterChange.Type.CREATE, "node-a");
+
+        changeMapper.deleteChangesOlderThan(3600);
+
+        assertThat(changeMapper.findChangesAfter(latest, 10)).hasSize(1);
+    }
+}
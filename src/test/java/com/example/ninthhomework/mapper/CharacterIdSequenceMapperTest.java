@@ -0,0 +1,53 @@
+package com.example.ninthhomework.mapper;
+
+import com.example.ninthhomework.config.CharacterMigrationProperties;
+import com.example.ninthhomework.domain.user.service.SchemaMigrator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class CharacterIdSequenceMapperTest {
+    @Autowired
+    CharacterIdSequenceMapper sequenceMapper;
+
+    @Autowired
+    SchemaMigrationMapper migrationMapper;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    //DDLは暗黙にコミットされるため、テストのトランザクションとは別の接続で適用する
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        new SchemaMigrator(migrationMapper, transactionTemplate, new CharacterMigrationProperties()).migrate();
+    }
+
+    @Test
+    @Transactional
+    void 予約したブロックが重ならないこと() {
+        long nextId = sequenceMapper.findNextId();
+        IdBlockReservation first = new IdBlockReservation(100);
+        IdBlockReservation second = new IdBlockReservation(10);
+
+        assertThat(sequenceMapper.reserve(first)).isEqualTo(1);
+        assertThat(sequenceMapper.reserve(second)).isEqualTo(1);
+
+        assertThat(first.getStart()).isEqualTo(nextId);
+        assertThat(first.getEnd()).isEqualTo(nextId + 100);
+        assertThat(second.getStart()).isEqualTo(first.getEnd());
+        assertThat(second.getEnd()).isEqualTo(nextId + 110);
+        assertThat(sequenceMapper.findNextId()).isEqualTo(second.getEnd());
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.ninthhomework.mapper;
+
+import com.example.ninthhomework.config.CharacterMigrationProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.model.CharacterQuery;
+import com.example.ninthhomework.domain.user.service.SchemaMigrator;
+import org.apache.ibatis.executor.parameter.ParameterHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.scripting.defaults.DefaultParameterHandler;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mybatis.spring.boot.test.autoconfigure.MybatisTest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// CharacterMapper.xmlの全ての文をEXPLAINし、件数が多い表で全件走査にならないことを確かめる
+// 行を確定させてからANALYZE TABLEで統計を取り直すため、テストのトランザクションは使わない
+@MybatisTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CharacterMapperPlanTest {
+    //この件数を超えた表で全件走査になる文を失敗とする
+    private static final int THRESHOLD = 1000;
+    private static final String NAMESPACE = CharacterMapper.class.getName();
+    //全件を返す文は全件走査になってよい
+    private static final Set<String> WHOLE_TABLE = Set.of("findAll", "findAllIds", "countAll", "deleteAll");
+    private static final Set<String> FULL_SCAN = Set.of("ALL", "index");
+
+    @Autowired
+    CharacterMapper characterMapper;
+
+    @Autowired
+    SchemaMigrationMapper migrationMapper;
+
+    @Autowired
+    SqlSessionFactory sqlSessionFactory;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        CharacterMigrationProperties properties = new CharacterMigrationProperties();
+        new SchemaMigrator(migrationMapper, new TransactionTemplate(transactionManager), properties).migrate();
+        characterMapper.deleteAll();
+        List<Character> characters = new ArrayList<>();
+        for (int i = 1; i <= THRESHOLD + 200; i++) {
+            characters.add(new Character(i, String.format("name%04d", i), i % 100));
+        }
+        characterMapper.insertCharacters(characters);
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("ANALYZE TABLE characters");
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        characterMapper.deleteAll();
+    }
+
+    //文ごとのEXPLAINに使う引数。1つの文に複数の条件の組み合わせを書いてよい
+    private static List<Case> cases() {
+        return List.of(
+                new Case("findAll", null),
+                new Case("searchByAge", 90),
+                new Case("searchById", 1),
+                new Case("searchByIds", Map.of("ids", List.of(1, 2, 3))),
+                new Case("searchByQuery", CharacterQuery.of(90, null, null, "age", null)),
+                new Case("searchByQuery", CharacterQuery.of(null, 5, null, "-age", null)),
+                new Case("searchByQuery", CharacterQuery.of(null, null, "name01", "name", null)),
+                new Case("findAllIds", null),
+                new Case("countAll", null),
+                new Case("countByAge", 90),
+                new Case("createCharacter", new NewCharacter("new", 1)),
+                new Case("insertCharacters", Map.of("characters", List.of(new Character(0, "new", 1)))),
+                new Case("updateCharacter", new Character(1, "updated", 2)),
+                new Case("upsertCharacter", new Character(1, "updated", 2)),
+                new Case("upsertCharacters", Map.of("characters", List.of(new Character(1, "updated", 2)))),
+                new Case("deleteCharacter", 1),
+                new Case("deleteAll", null)
+        );
+    }
+
+    @Test
+    void 全ての文にEXPLAINの引数が用意されていること() {
+        Set<String> statements = new TreeSet<>();
+        for (String name : sqlSessionFactory.getConfiguration().getMappedStatementNames()) {
+            if (name.startsWith(NAMESPACE + ".") && !name.contains("!")) {
+                statements.add(name.substring(NAMESPACE.length() + 1));
+            }
+        }
+        Set<String> covered = new TreeSet<>();
+        cases().forEach(c -> covered.add(c.statementId));
+
+        assertThat(covered).containsExactlyElementsOf(statements);
+    }
+
+    @Test
+    void 件数が多い表でも全件走査にならないこと() throws SQLException {
+        assertThat(characterMapper.countAll()).isGreaterThan(THRESHOLD);
+
+        for (Case c : cases()) {
+            List<Map<String, String>> plan = explain(statement(c.statementId), c.parameter);
+            assertThat(plan).as(c.statementId).isNotEmpty();
+            if (WHOLE_TABLE.contains(c.statementId)
+                    || statement(c.statementId).getSqlCommandType() == SqlCommandType.INSERT) {
+                //INSERTは表を読まないため、EXPLAINできることだけを確かめる
+                continue;
+            }
+            for (Map<String, String> row : plan) {
+                assertThat(row.get("type")).as("%s %s", c.statementId, row).isNotIn(FULL_SCAN);
+            }
+        }
+    }
+
+    private MappedStatement statement(String statementId) {
+        return sqlSessionFactory.getConfiguration().getMappedStatement(NAMESPACE + "." + statementId);
+    }
+
+    //MyBatisと同じ方法で引数を埋め込んだSQLをEXPLAINし、行ごとのtype・key・Extraを返す
+    private List<Map<String, String>> explain(MappedStatement statement, Object parameter) throws SQLException {
+        BoundSql boundSql = statement.getBoundSql(parameter);
+        ParameterHandler parameterHandler = new DefaultParameterHandler(statement, parameter, boundSql);
+        List<Map<String, String>> plan = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + boundSql.getSql())) {
+            parameterHandler.setParameters(explain);
+            try (ResultSet resultSet = explain.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.add(Map.of(
+                            "type", String.valueOf(resultSet.getString("type")),
+                            "key", String.valueOf(resultSet.getString("key")),
+                            "Extra", String.valueOf(resultSet.getString("Extra"))));
+                }
+            }
+        }
+        return plan;
+    }
+
+    private static final class Case {
+        final String statementId;
+        final Object parameter;
+
+        Case(String statementId, Object parameter) {
+            this.statementId = statementId;
+            this.parameter = parameter;
+        }
+    }
+}
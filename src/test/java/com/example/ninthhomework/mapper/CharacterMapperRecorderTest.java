@@ -0,0 +1,79 @@
+package com.example.ninthhomework.mapper;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CharacterMapperRecorderTest {
+    private static final String EVENT = "com.example.ninthhomework.CharacterMapper";
+
+    @Mock
+    Executor executor;
+
+    @Mock
+    MappedStatement mappedStatement;
+
+    @TempDir
+    Path dir;
+
+    CharacterMapperRecorder recorder = new CharacterMapperRecorder();
+
+    @Test
+    public void ステートメントごとに取得した行数と更新した行数を記録すること() throws Throwable {
+        doReturn("com.example.ninthhomework.mapper.CharacterMapper.findAll").doReturn(
+                "com.example.ninthhomework.mapper.CharacterMapper.deleteCharacter").when(mappedStatement).getId();
+        doReturn(List.of("mei", "satuki", "tatuo")).when(executor)
+                .query(mappedStatement, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+        doReturn(1).when(executor).update(mappedStatement, 1);
+        Path file = dir.resolve("mapper.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable(EVENT).withoutThreshold();
+            recording.start();
+            recorder.intercept(new Invocation(executor, Executor.class.getMethod("query",
+                    MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class),
+                    new Object[]{mappedStatement, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER}));
+            recorder.intercept(new Invocation(executor, Executor.class.getMethod("update",
+                    MappedStatement.class, Object.class), new Object[]{mappedStatement, 1}));
+            recording.stop();
+            recording.dump(file);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(EVENT))
+                .toList();
+        assertThat(events).extracting(event -> event.getString("statement"), event -> event.getInt("rows"))
+                .containsExactly(
+                        tuple("com.example.ninthhomework.mapper.CharacterMapper.findAll", 3),
+                        tuple("com.example.ninthhomework.mapper.CharacterMapper.deleteCharacter", 1));
+    }
+
+    @Test
+    public void 実行結果をそのまま返すこと() throws Throwable {
+        doReturn(List.of()).when(executor).query(mappedStatement, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+
+        Object result = recorder.intercept(new Invocation(executor, Executor.class.getMethod("query",
+                MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class),
+                new Object[]{mappedStatement, null, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER}));
+
+        assertThat(result).isEqualTo(List.of());
+    }
+}
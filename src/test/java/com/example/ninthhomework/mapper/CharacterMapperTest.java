@@ -1,6 +1,7 @@
 package com.example.ninthhomework.mapper;
 
 import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.model.CharacterQuery;
 import com.github.database.rider.core.api.dataset.DataSet;
 import com.github.database.rider.core.api.dataset.ExpectedDataSet;
 import com.github.database.rider.spring.api.DBRider;
@@ -78,18 +79,36 @@ class CharacterMapperTest {
         assertThat(characters).isEmpty();
     }
 
+    @Test
+    @DataSet(value = "datasets/characters.yml")
+    @Transactional
+    void 指定した複数IDのデータをID順に返すこと() {
+        List<Character> characters = characterMapper.searchByIds(List.of(3, 1, 99));
+        assertThat(characters).containsExactly(
+                new Character(1, "mei", 5),
+                new Character(3, "tatuo", 32));
+    }
+
+    @Test
+    @DataSet(value = "datasets/characters.yml")
+    @Transactional
+    void 全てのIDが取得できること() {
+        List<Integer> ids = characterMapper.findAllIds();
+        assertThat(ids).containsExactlyInAnyOrder(1, 2, 3);
+    }
+
     @Test
     @DataSet(value = "datasets/characters.yml")
     @ExpectedDataSet(value = "datasets/insert_characters.yml", ignoreCols = "id")
     @Transactional
     void データが登録できそのIDが既存のものより大きいこと() {
-        Character character4 = new Character("shizuku", 14);
+        NewCharacter character4 = new NewCharacter("shizuku", 14);
         assertThat(character4.getId()).isEqualTo(0);
 
         characterMapper.createCharacter(character4);
         assertThat(character4.getId()).isGreaterThan(0);
 
-        Character character5 = new Character("umi", 16);
+        NewCharacter character5 = new NewCharacter("umi", 16);
         assertThat(character5.getId()).isEqualTo(0);
 
         characterMapper.createCharacter(character5);
@@ -99,6 +118,28 @@ class CharacterMapperTest {
 
     }
 
+    @Test
+    @DataSet(value = "datasets/empty.yml")
+    @Transactional
+    void 指定したIDのデータをまとめて登録できること() {
+        characterMapper.insertCharacters(List.of(
+                new Character(1, "mei", 5),
+                new Character(2, "satuki", 10),
+                new Character(3, "tatuo", 32)));
+        assertThat(characterMapper.findAll()).containsExactlyInAnyOrder(
+                new Character(1, "mei", 5),
+                new Character(2, "satuki", 10),
+                new Character(3, "tatuo", 32));
+    }
+
+    @Test
+    @DataSet(value = "datasets/characters.yml")
+    @Transactional
+    void 全てのデータが削除されること() {
+        characterMapper.deleteAll();
+        assertThat(characterMapper.findAll()).isEmpty();
+    }
+
     @Test
     @DataSet(value = "datasets/characters.yml")
     @ExpectedDataSet(value = "datasets/update_characters.yml")
@@ -113,17 +154,78 @@ class CharacterMapperTest {
         characterMapper.updateCharacter(new Character(99, "kamide", 99));
     }
 
+    @Test
+    @DataSet("datasets/characters.yml")
+    @ExpectedDataSet("datasets/upsert_characters.yml")
+    void 指定したIDがない時は登録しある時は置き換えること() {
+        assertThat(characterMapper.upsertCharacter(new Character(3, "草壁タツオ", 34))).isEqualTo(2);
+        assertThat(characterMapper.upsertCharacter(new Character(10, "kanta", 11))).isEqualTo(1);
+    }
+
+    @Test
+    @DataSet("datasets/characters.yml")
+    @ExpectedDataSet("datasets/upsert_characters.yml")
+    void 登録と置き換えをまとめて行えること() {
+        assertThat(characterMapper.upsertCharacters(List.of(
+                new Character(1, "mei", 5),
+                new Character(3, "草壁タツオ", 34),
+                new Character(10, "kanta", 11)))).isEqualTo(4);
+    }
+
     @Test
     @DataSet("datasets/characters.yml")
     @ExpectedDataSet("datasets/delete_characters.yml")
     void 指定されたIDが削除されること() {
-        characterMapper.deleteCharacter(3);
+        assertThat(characterMapper.deleteCharacter(3)).isEqualTo(1);
     }
 
     @Test
     @DataSet("datasets/characters.yml")
     @ExpectedDataSet("datasets/characters.yml")
     void 指定したIDが存在しない時は何もしないこと() {
-        characterMapper.deleteCharacter(99);
+        assertThat(characterMapper.deleteCharacter(99)).isZero();
+    }
+
+    @Test
+    @DataSet(value = "datasets/characters.yml")
+    @Transactional
+    void 全件数と指定年齢より年上の件数を返すこと() {
+        assertThat(characterMapper.countAll()).isEqualTo(3);
+        assertThat(characterMapper.countByAge(5)).isEqualTo(2);
+        assertThat(characterMapper.countByAge(32)).isZero();
+    }
+
+    @Test
+    @DataSet(value = "datasets/characters.yml")
+    @Transactional
+    void 年齢の範囲で絞り込み指定された順に並べること() {
+        List<Character> characters = characterMapper.searchByQuery(CharacterQuery.of(6, 40, null, "-age", null));
+        assertThat(characters).containsExactly(
+                new Character(3, "tatuo", 32),
+                new Character(2, "satuki", 10));
+    }
+
+    @Test
+    @DataSet(value = "datasets/characters.yml")
+    @Transactional
+    void 名前の前方一致と件数制限で絞り込めること() {
+        assertThat(characterMapper.searchByQuery(CharacterQuery.of(null, null, "sa", null, null)))
+                .containsExactly(new Character(2, "satuki", 10));
+        assertThat(characterMapper.searchByQuery(CharacterQuery.of(null, null, null, "name", 2)))
+                .containsExactly(new Character(1, "mei", 5), new Character(2, "satuki", 10));
+        assertThat(characterMapper.searchByQuery(CharacterQuery.of(null, null, "%", null, null))).isEmpty();
+    }
+
+    @Test
+    @DataSet(value = "datasets/characters.yml")
+    @Transactional
+    void 名前の前方一致と名前順は大文字小文字を区別しないこと() {
+        characterMapper.updateCharacter(new Character(2, "Satuki", 10));
+        assertThat(characterMapper.searchByQuery(CharacterQuery.of(null, null, "sA", null, null)))
+                .containsExactly(new Character(2, "Satuki", 10));
+        assertThat(characterMapper.searchByQuery(CharacterQuery.of(null, null, null, "name", null))).containsExactly(
+                new Character(1, "mei", 5),
+                new Character(2, "Satuki", 10),
+                new Character(3, "tatuo", 32));
     }
 }
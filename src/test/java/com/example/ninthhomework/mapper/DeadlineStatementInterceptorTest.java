@@ -0,0 +1,85 @@
+package com.example.ninthhomework.mapper;
+
+import com.example.ninthhomework.domain.user.service.RequestDeadline;
+import com.example.ninthhomework.exception.DeadlineExceededException;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.plugin.Invocation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DeadlineStatementInterceptorTest {
+    @Mock
+    StatementHandler statementHandler;
+
+    @Mock
+    Connection connection;
+
+    @Mock
+    Statement statement;
+
+    DeadlineStatementInterceptor interceptor = new DeadlineStatementInterceptor();
+
+    Invocation invocation;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        invocation = new Invocation(statementHandler,
+                StatementHandler.class.getMethod("prepare", Connection.class, Integer.class),
+                new Object[]{connection, null});
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestDeadline.detach();
+    }
+
+    @Test
+    public void 残り時間をクエリタイムアウトに設定すること() throws Throwable {
+        doReturn(statement).when(statementHandler).prepare(connection, null);
+        RequestDeadline.attach(RequestDeadline.after(Duration.ofMillis(2500)));
+
+        interceptor.intercept(invocation);
+
+        verify(statement).setQueryTimeout(3);
+    }
+
+    @Test
+    public void 既に短いタイムアウトが設定されている時はそのままとすること() throws Throwable {
+        doReturn(statement).when(statementHandler).prepare(connection, null);
+        doReturn(1).when(statement).getQueryTimeout();
+        RequestDeadline.attach(RequestDeadline.after(Duration.ofSeconds(10)));
+
+        interceptor.intercept(invocation);
+
+        verify(statement, never()).setQueryTimeout(anyInt());
+    }
+
+    @Test
+    public void 期限が設定されていない時はタイムアウトを変えないこと() throws Throwable {
+        doReturn(statement).when(statementHandler).prepare(connection, null);
+
+        interceptor.intercept(invocation);
+
+        verifyNoInteractions(statement);
+    }
+
+    @Test
+    public void 期限を過ぎている時は問い合わせを準備しないこと() {
+        RequestDeadline.attach(RequestDeadline.after(Duration.ZERO));
+
+        assertThatExceptionOfType(DeadlineExceededException.class).isThrownBy(() -> interceptor.intercept(invocation));
+        verifyNoInteractions(statementHandler);
+    }
+}
@@ -0,0 +1,246 @@
+package com.example.ninthhomework.mapper;
+
+import com.example.ninthhomework.config.CharacterMemoryProperties;
+import com.example.ninthhomework.domain.user.model.Character;
+import com.example.ninthhomework.domain.user.model.CharacterQuery;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// CharacterMapperTestと同じ確認事項をメモリ実装に対して確認する
+class InMemoryCharacterMapperTest {
+    @TempDir
+    Path tempDir;
+
+    InMemoryCharacterMapper characterMapper;
+
+    @BeforeEach
+    void setUp() {
+        characterMapper = open();
+        characterMapper.createCharacter(new NewCharacter("mei", 5));
+        characterMapper.createCharacter(new NewCharacter("satuki", 10));
+        characterMapper.createCharacter(new NewCharacter("tatuo", 32));
+    }
+
+    @AfterEach
+    void tearDown() {
+        characterMapper.close();
+    }
+
+    @Test
+    void 全てのデータが取得できること() {
+        List<Character> characters = characterMapper.findAll();
+        assertThat(characters)
+                .hasSize(3)
+                .contains(
+                        new Character(1, "mei", 5),
+                        new Character(2, "satuki", 10),
+                        new Character(3, "tatuo", 32)
+                );
+    }
+
+    @Test
+    void データが空の時は空で返すこと() {
+        characterMapper.deleteCharacter(1);
+        characterMapper.deleteCharacter(2);
+        characterMapper.deleteCharacter(3);
+        assertThat(characterMapper.findAll()).isEmpty();
+    }
+
+    @Test
+    void 指定した年齢より上のユーザーが取得できること() {
+        List<Character> characters = characterMapper.searchByAge(23);
+        assertThat(characters).hasSize(1)
+                .contains(new Character(3, "tatuo", 32));
+    }
+
+    @Test
+    void 指定した年齢より年下しか存在しない時空で返すこと() {
+        assertThat(characterMapper.searchByAge(40)).isEmpty();
+    }
+
+    @Test
+    void 指定したIDのデータを返すこと() {
+        Optional<Character> character = characterMapper.searchById(1);
+        assertThat(character).contains(new Character(1, "mei", 5));
+    }
+
+    @Test
+    void 指定したIDが存在しない時空で返すこと() {
+        assertThat(characterMapper.searchById(5)).isEmpty();
+    }
+
+    @Test
+    void 指定した複数IDのデータをID順に返すこと() {
+        List<Character> characters = characterMapper.searchByIds(List.of(3, 1, 99));
+        assertThat(characters).containsExactly(
+                new Character(1, "mei", 5),
+                new Character(3, "tatuo", 32));
+    }
+
+    @Test
+    void 全てのIDが取得できること() {
+        assertThat(characterMapper.findAllIds()).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void データが登録できそのIDが既存のものより大きいこと() {
+        NewCharacter character4 = new NewCharacter("shizuku", 14);
+        characterMapper.createCharacter(character4);
+        assertThat(character4.getId()).isGreaterThan(3);
+
+        NewCharacter character5 = new NewCharacter("umi", 16);
+        characterMapper.createCharacter(character5);
+        assertThat(character5.getId()).isGreaterThan(character4.getId());
+    }
+
+    @Test
+    void 指定されたIDのデータを更新すること() {
+        characterMapper.updateCharacter(new Character(3, "草壁タツオ", 34));
+        assertThat(characterMapper.searchById(3)).contains(new Character(3, "草壁タツオ", 34));
+    }
+
+    @Test
+    void 指定されたIDが存在しない時は何もしないこと() {
+        characterMapper.updateCharacter(new Character(99, "kamide", 99));
+        assertThat(characterMapper.findAll()).hasSize(3);
+        assertThat(characterMapper.searchById(99)).isEmpty();
+    }
+
+    @Test
+    void 指定したIDがない時は登録しある時は置き換えること() {
+        assertThat(characterMapper.upsertCharacter(new Character(3, "草壁タツオ", 34))).isEqualTo(2);
+        assertThat(characterMapper.upsertCharacter(new Character(10, "kanta", 11))).isEqualTo(1);
+        assertThat(characterMapper.upsertCharacter(new Character(1, "mei", 5))).isEqualTo(1);
+        assertThat(characterMapper.findAll()).containsExactly(
+                new Character(1, "mei", 5),
+                new Character(2, "satuki", 10),
+                new Character(3, "草壁タツオ", 34),
+                new Character(10, "kanta", 11));
+    }
+
+    @Test
+    void まとめて登録と置き換えを行い再起動後も復元すること() {
+        assertThat(characterMapper.upsertCharacters(List.of(
+                new Character(1, "mei", 5),
+                new Character(3, "草壁タツオ", 34),
+                new Character(10, "kanta", 11)))).isEqualTo(4);
+        characterMapper.close();
+
+        characterMapper = open();
+
+        assertThat(characterMapper.findAll()).containsExactly(
+                new Character(1, "mei", 5),
+                new Character(2, "satuki", 10),
+                new Character(3, "草壁タツオ", 34),
+                new Character(10, "kanta", 11));
+        NewCharacter character = new NewCharacter("shizuku", 14);
+        characterMapper.createCharacter(character);
+        assertThat(character.getId()).isEqualTo(11);
+    }
+
+    @Test
+    void 年齢のnullとintの最小値を区別して再起動後も復元すること() {
+        characterMapper.createCharacter(new NewCharacter("kanta", Integer.MIN_VALUE));
+        characterMapper.updateCharacter(new Character(1, "mei", null));
+        characterMapper.close();
+
+        characterMapper = open();
+
+        assertThat(characterMapper.findAll()).containsExactly(
+                new Character(1, "mei", null),
+                new Character(2, "satuki", 10),
+                new Character(3, "tatuo", 32),
+                new Character(4, "kanta", Integer.MIN_VALUE));
+        assertThat(characterMapper.countByAge(Integer.MIN_VALUE)).isEqualTo(2);
+    }
+
+    @Test
+    void 指定されたIDが削除されること() {
+        assertThat(characterMapper.deleteCharacter(3)).isEqualTo(1);
+        assertThat(characterMapper.findAll()).containsExactly(
+                new Character(1, "mei", 5),
+                new Character(2, "satuki", 10));
+    }
+
+    @Test
+    void 指定したIDが存在しない時は何もしないこと() {
+        assertThat(characterMapper.deleteCharacter(99)).isZero();
+        assertThat(characterMapper.findAll()).hasSize(3);
+    }
+
+    @Test
+    void 全件数と指定年齢より年上の件数を返すこと() {
+        characterMapper.updateCharacter(new Character(2, "satuki", null));
+        assertThat(characterMapper.countAll()).isEqualTo(3);
+        assertThat(characterMapper.countByAge(0)).isEqualTo(2);
+        assertThat(characterMapper.countByAge(5)).isEqualTo(1);
+    }
+
+    @Test
+    void 年齢の範囲と名前の前方一致で絞り込み指定された順に並べること() {
+        characterMapper.updateCharacter(new Character(1, "mei", null));
+        assertThat(characterMapper.searchByQuery(CharacterQuery.of(6, 40, null, "-age", null))).containsExactly(
+                new Character(3, "tatuo", 32),
+                new Character(2, "satuki", 10));
+        assertThat(characterMapper.searchByQuery(CharacterQuery.of(null, null, "sa", null, null)))
+                .containsExactly(new Character(2, "satuki", 10));
+        assertThat(characterMapper.searchByQuery(CharacterQuery.of(null, null, null, "age", 2))).containsExactly(
+                new Character(1, "mei", null),
+                new Character(2, "satuki", 10));
+    }
+
+    @Test
+    void 名前の前方一致と名前順は大文字小文字を区別しないこと() {
+        characterMapper.updateCharacter(new Character(2, "Satuki", 10));
+        assertThat(characterMapper.searchByQuery(CharacterQuery.of(null, null, "sA", null, null)))
+                .containsExactly(new Character(2, "Satuki", 10));
+        assertThat(characterMapper.searchByQuery(CharacterQuery.of(null, null, null, "name", null))).containsExactly(
+                new Character(1, "mei", 5),
+                new Character(2, "Satuki", 10),
+                new Character(3, "tatuo", 32));
+    }
+
+    @Test
+    void 全件削除後に指定したIDのデータをまとめて登録できること() {
+        characterMapper.deleteAll();
+        characterMapper.insertCharacters(List.of(new Character(10, "shizuku", 14), new Character("umi", 16)));
+        characterMapper.close();
+
+        characterMapper = open();
+
+        assertThat(characterMapper.findAll()).containsExactly(
+                new Character(10, "shizuku", 14),
+                new Character(11, "umi", 16));
+    }
+
+    @Test
+    void 再起動後も更新ログから同じ内容を復元すること() {
+        characterMapper.updateCharacter(new Character(2, "satuki", null));
+        characterMapper.deleteCharacter(3);
+        characterMapper.close();
+
+        characterMapper = open();
+
+        assertThat(characterMapper.findAll()).containsExactly(
+                new Character(1, "mei", 5),
+                new Character(2, "satuki", null));
+        NewCharacter character = new NewCharacter("shizuku", 14);
+        characterMapper.createCharacter(character);
+        assertThat(character.getId()).isEqualTo(4);
+    }
+
+    private InMemoryCharacterMapper open() {
+        CharacterMemoryProperties properties = new CharacterMemoryProperties();
+        properties.setWalPath(tempDir.resolve("characters.wal").toString());
+        properties.setInitialWalSize(64);
+        return new InMemoryCharacterMapper(properties);
+    }
+}
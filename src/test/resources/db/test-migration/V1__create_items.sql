@@ -0,0 +1,5 @@
+-- テスト用の移行
+CREATE TABLE items (
+  id int unsigned NOT NULL,
+  PRIMARY KEY(id)
+);
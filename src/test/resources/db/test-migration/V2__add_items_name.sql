@@ -0,0 +1,3 @@
+ALTER TABLE items ADD COLUMN name VARCHAR(20);
+
+CREATE INDEX idx_items_name ON items (name);